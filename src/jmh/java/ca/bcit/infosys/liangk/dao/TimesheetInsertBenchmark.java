@@ -0,0 +1,151 @@
+package ca.bcit.infosys.liangk.dao;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Create throughput for one timesheet with N entries, as Hibernate issues it with IDENTITY ids
+ * (one INSERT round trip per row, reading back each generated key) versus pooled table ids
+ * (ids reserved 50 at a time from {@code id_sequences}, entries sent as one JDBC batch).
+ * <p>
+ * Needs a scratch database with the schema from {@code sql/timesheets.sql} and at least one user:
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="TimesheetInsert -jvmArgs -Dbench.jdbc.url=jdbc:mysql://localhost:3306/timesheets?rewriteBatchedStatements=true -jvmArgs -Dbench.jdbc.user=timesheets -jvmArgs -Dbench.jdbc.password=timesheets"
+ * </pre>
+ * Rows created by a run are deleted in tear-down.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TimesheetInsertBenchmark {
+
+    private static final int ALLOCATION_SIZE = 50;
+    private static final LocalDate FIRST_WEEK = LocalDate.of(3000, 1, 6);
+
+    @Param({"5", "20", "40"})
+    public int entries;
+
+    private Connection connection;
+    private long userId;
+    private LocalDate nextWeek = FIRST_WEEK;
+    private final long[] timesheetIds = new long[2];   // next id, block end (exclusive)
+    private final long[] entryIds = new long[2];
+
+    @Setup(Level.Trial)
+    public void connect() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:mysql://localhost:3306/timesheets?rewriteBatchedStatements=true"),
+                System.getProperty("bench.jdbc.user", "timesheets"),
+                System.getProperty("bench.jdbc.password", "timesheets"));
+        connection.setAutoCommit(false);
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT MIN(id) FROM users")) {
+            rs.next();
+            userId = rs.getLong(1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "DELETE FROM timesheets WHERE user_id = ? AND week_start >= ?")) {
+            ps.setLong(1, userId);
+            ps.setDate(2, Date.valueOf(FIRST_WEEK));
+            ps.executeUpdate();
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    @Benchmark
+    public long identityPerRowInserts() throws SQLException {
+        long timesheetId;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO timesheets (user_id, week_start, status, total_hours) VALUES (?, ?, 'OPEN', 0)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            ps.setLong(1, userId);
+            ps.setDate(2, Date.valueOf(nextWeek()));
+            ps.executeUpdate();
+            timesheetId = generatedKey(ps);
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO timesheet_entries (timesheet_id, work_date, project_code, hours) VALUES (?, ?, 'BENCH', 1.00)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < entries; i++) {
+                ps.setLong(1, timesheetId);
+                ps.setDate(2, Date.valueOf(nextWeek));
+                ps.executeUpdate();
+                generatedKey(ps);
+            }
+        }
+        connection.commit();
+        return timesheetId;
+    }
+
+    @Benchmark
+    public long pooledBatchedInserts() throws SQLException {
+        long timesheetId = nextId("timesheets", timesheetIds);
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO timesheets (id, user_id, week_start, status, total_hours) VALUES (?, ?, ?, 'OPEN', 0)")) {
+            ps.setLong(1, timesheetId);
+            ps.setLong(2, userId);
+            ps.setDate(3, Date.valueOf(nextWeek()));
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO timesheet_entries (id, timesheet_id, work_date, project_code, hours) VALUES (?, ?, ?, 'BENCH', 1.00)")) {
+            for (int i = 0; i < entries; i++) {
+                ps.setLong(1, nextId("timesheet_entries", entryIds));
+                ps.setLong(2, timesheetId);
+                ps.setDate(3, Date.valueOf(nextWeek));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        connection.commit();
+        return timesheetId;
+    }
+
+    private LocalDate nextWeek() {
+        LocalDate week = nextWeek;
+        nextWeek = nextWeek.plusWeeks(1);
+        return week;
+    }
+
+    // Same reservation the pooled optimizer makes: read next_val as the block end and advance it by one block
+    private long nextId(String sequence, long[] block) throws SQLException {
+        if (block[0] >= block[1]) {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "UPDATE id_sequences SET next_val = LAST_INSERT_ID(next_val + ?) WHERE seq_name = ?")) {
+                ps.setInt(1, ALLOCATION_SIZE);
+                ps.setString(2, sequence);
+                ps.executeUpdate();
+            }
+            try (Statement st = connection.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT LAST_INSERT_ID()")) {
+                rs.next();
+                long hi = rs.getLong(1) - ALLOCATION_SIZE; // block reserved: (hi - 50, hi]
+                block[0] = hi - ALLOCATION_SIZE + 1;
+                block[1] = hi + 1;
+            }
+        }
+        return block[0]++;
+    }
+
+    private static long generatedKey(PreparedStatement ps) throws SQLException {
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            keys.next();
+            return keys.getLong(1);
+        }
+    }
+}
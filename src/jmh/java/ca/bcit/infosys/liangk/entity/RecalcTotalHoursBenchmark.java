@@ -0,0 +1,61 @@
+package ca.bcit.infosys.liangk.entity;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Timesheet#recalcTotalHours()} on {@link Hours} with the {@code BigDecimal}
+ * summation it replaced, at 10, 100 and 1000 entries. Add {@code -prof gc} for allocation per call,
+ * e.g. {@code mvn -Pjmh test-compile exec:exec -Djmh.args="RecalcTotalHoursBenchmark -prof gc"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecalcTotalHoursBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int entries;
+
+    private Timesheet timesheet;
+    private List<BigDecimal> decimals;
+
+    @Setup
+    public void setup() {
+        timesheet = new Timesheet();
+        timesheet.setEntries(new ArrayList<>(entries));
+        decimals = new ArrayList<>(entries);
+        LocalDate week = LocalDate.of(2025, 1, 6);
+        for (int i = 0; i < entries; i++) {
+            BigDecimal hours = BigDecimal.valueOf(25 + (i % 8) * 100, 2);
+            TimesheetEntry e = new TimesheetEntry();
+            e.setWorkDate(week.plusDays(i % 7));
+            e.setProjectCode("PRJ-" + (i % 3));
+            e.setHours(Hours.of(hours));
+            timesheet.getEntries().add(e);
+            decimals.add(hours);
+        }
+    }
+
+    @Benchmark
+    public Hours fixedPoint() {
+        timesheet.recalcTotalHours();
+        return timesheet.getTotalHours();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalBaseline() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal h : decimals) {
+            if (h != null) sum = sum.add(h);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,99 @@
+package ca.bcit.infosys.liangk.rest;
+
+import ca.bcit.infosys.liangk.dao.TimesheetListRow;
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.Timesheet;
+import ca.bcit.infosys.liangk.entity.TimesheetEntry;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+import ca.bcit.infosys.liangk.util.Mapper;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.ws.rs.core.MediaType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing a page of timesheets through {@link Mapper} DTOs and JSON-B with writing the
+ * same page from query rows through {@link TimesheetListJsonWriter}. Scores are per timesheet;
+ * add {@code -prof gc} for allocation per timesheet ({@code gc.alloc.rate.norm}), e.g.
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="TimesheetListJsonBenchmark -prof gc"}.
+ * Query and entity loading costs are not included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimesheetListJsonBenchmark {
+
+    private static final int TIMESHEETS = 50;
+
+    @Param({"5"})
+    public int entriesPerTimesheet;
+
+    private List<Timesheet> timesheets;
+    private TimesheetListJson rows;
+    private Jsonb jsonb;
+    private TimesheetListJsonWriter writer;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() {
+        timesheets = new ArrayList<>(TIMESHEETS);
+        List<TimesheetListRow> flat = new ArrayList<>();
+        LocalDate week = LocalDate.of(2025, 1, 6);
+        long entryId = 1;
+        for (int i = 0; i < TIMESHEETS; i++) {
+            Timesheet t = new Timesheet();
+            t.setId((long) i + 1);
+            t.setWeekStart(week.minusWeeks(i));
+            t.setStatus(TimesheetStatus.SUBMITTED);
+            for (int j = 0; j < entriesPerTimesheet; j++) {
+                TimesheetEntry e = new TimesheetEntry();
+                e.setId(entryId++);
+                e.setWorkDate(t.getWeekStart().plusDays(j % 7));
+                e.setProjectCode("PRJ-" + (j % 3));
+                e.setTaskCode(j % 2 == 0 ? "DEV" : null);
+                e.setHours(Hours.parse("7.50"));
+                e.setDescription("Implementation work on feature " + j);
+                t.addEntry(e);
+            }
+            timesheets.add(t);
+            for (TimesheetEntry e : t.getEntries()) {
+                flat.add(new TimesheetListRow(t.getId(), t.getWeekStart(), t.getStatus(), t.getTotalHours(), t.getVersion(), t.getUpdatedAt(),
+                        e.getId(), e.getWorkDate(), e.getProjectCode(), e.getTaskCode(), e.getHours(), e.getDescription()));
+            }
+        }
+        rows = new TimesheetListJson(flat);
+        jsonb = JsonbBuilder.create();
+        writer = new TimesheetListJsonWriter();
+        out = new ByteArrayOutputStream(64 * 1024);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        jsonb.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMESHEETS)
+    public int mapperDtosWithJsonb() {
+        out.reset();
+        jsonb.toJson(timesheets.stream().map(Mapper::toTimesheetDTO).toList(), out);
+        return out.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMESHEETS)
+    public int rowsWithGenerator() {
+        out.reset();
+        writer.writeTo(rows, TimesheetListJson.class, null, null, MediaType.APPLICATION_JSON_TYPE, null, out);
+        return out.size();
+    }
+}
@@ -0,0 +1,55 @@
+package ca.bcit.infosys.liangk.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original per-login {@code new SecureRandom()} token path with the shared, pooled
+ * {@link TokenGenerator}. Run multi-threaded (e.g. {@code -t 8}) to approximate a login storm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenGenerationBenchmark {
+
+    private ExecutorService refillExecutor;
+    private TokenGenerator pooled;
+    private TokenGenerator unpooled;
+
+    @Setup
+    public void setup() {
+        refillExecutor = Executors.newSingleThreadExecutor();
+        pooled = new TokenGenerator(256, refillExecutor);
+        unpooled = new TokenGenerator(0, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        refillExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public String newSecureRandomPerToken() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    @Benchmark
+    public String sharedSecureRandom() {
+        return unpooled.nextToken();
+    }
+
+    @Benchmark
+    public String sharedPooled() {
+        return pooled.nextToken();
+    }
+}
@@ -1,10 +1,16 @@
 package ca.bcit.infosys.liangk.dao;
 
 import ca.bcit.infosys.liangk.entity.AuthToken;
+import ca.bcit.infosys.liangk.security.AuthPrincipal;
+import ca.bcit.infosys.liangk.util.TokenHash;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -17,13 +23,30 @@ public class AuthTokenDAO {
     private EntityManager em;
 
     /**
-     * Finds an auth token by its primary key token string.
+     * Finds an auth token by hashing the presented token string and looking up the digest key.
      *
      * @param token token value
      * @return AuthToken or null if not found
      */
     public AuthToken findByToken(String token) {
-        return em.find(AuthToken.class, token);
+        return em.find(AuthToken.class, TokenHash.of(token));
+    }
+
+    /**
+     * Loads only what authorization needs for an active token and its owner, in one statement,
+     * without materializing AuthToken or User entities.
+     *
+     * @param token token value
+     * @return principal projection, or null if the token is unknown or inactive
+     */
+    public AuthPrincipal findActivePrincipal(String token) {
+        List<AuthPrincipal> results = em.createQuery(
+                "SELECT NEW ca.bcit.infosys.liangk.security.AuthPrincipal(u.id, u.username, u.role, u.active, a.expiresAt) "
+                        + "FROM AuthToken a JOIN a.user u WHERE a.tokenHash = :hash AND a.active = true",
+                AuthPrincipal.class)
+            .setParameter("hash", TokenHash.of(token))
+            .getResultList();
+        return results.isEmpty() ? null : results.get(0);
     }
 
     /**
@@ -48,16 +71,140 @@ public class AuthTokenDAO {
     }
 
     /**
-     * Lists all active tokens for the given user id.
+     * Lists all active tokens for the given user id, oldest first.
      *
      * @param userId user identifier
      * @return list of active tokens
      */
     public List<AuthToken> findActiveTokensForUser(long userId) {
         return em.createQuery(
-                "SELECT a FROM AuthToken a WHERE a.user.id = :userId AND a.active = true",
+                "SELECT a FROM AuthToken a WHERE a.user.id = :userId AND a.active = true ORDER BY a.issuedAt",
                 AuthToken.class)
             .setParameter("userId", userId)
             .getResultList();
     }
+
+    /**
+     * Lists digests of revoked (inactive) tokens that have not yet expired.
+     *
+     * @param now current time
+     * @return token digests
+     */
+    public List<byte[]> findRevokedTokenHashes(LocalDateTime now) {
+        return em.createQuery(
+                "SELECT a.tokenHash FROM AuthToken a WHERE a.active = false AND a.expiresAt > :now",
+                byte[].class)
+            .setParameter("now", now)
+            .getResultList();
+    }
+
+    /**
+     * Deactivates all active tokens of a user in a single statement.
+     *
+     * @param userId user identifier
+     * @return number of tokens deactivated
+     */
+    public int deactivateAllForUser(long userId) {
+        return em.createQuery(
+                "UPDATE AuthToken a SET a.active = false WHERE a.user.id = :userId AND a.active = true")
+            .setParameter("userId", userId)
+            .executeUpdate();
+    }
+
+    /**
+     * Records that every token of a user who is about to be deleted is revoked. The row outlives the
+     * user's {@code auth_tokens} rows, which the delete cascades away, and expires with the user's
+     * latest token or at {@code floor}, whichever is later.
+     *
+     * @param userId user being deleted
+     * @param floor  earliest expiry of the revocation
+     */
+    public void revokeDeletedUser(long userId, LocalDateTime floor) {
+        LocalDateTime latest = em.createQuery(
+                "SELECT MAX(a.expiresAt) FROM AuthToken a WHERE a.user.id = :userId", LocalDateTime.class)
+            .setParameter("userId", userId)
+            .getSingleResult();
+        em.createNativeQuery("INSERT INTO revoked_users (user_id, expires_at) VALUES (:userId, :expiresAt) "
+                        + "ON DUPLICATE KEY UPDATE expires_at = GREATEST(expires_at, VALUES(expires_at))")
+            .setParameter("userId", userId)
+            .setParameter("expiresAt", latest != null && latest.isAfter(floor) ? latest : floor)
+            .executeUpdate();
+    }
+
+    /**
+     * Lists ids of deleted users whose tokens may still be presented.
+     *
+     * @param now current time
+     * @return user ids with an unexpired revocation
+     */
+    public List<Long> findRevokedUserIds(LocalDateTime now) {
+        List<?> rows = em.createNativeQuery("SELECT user_id FROM revoked_users WHERE expires_at > :now")
+            .setParameter("now", now)
+            .getResultList();
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            ids.add(((Number) row).longValue());
+        }
+        return ids;
+    }
+
+    /**
+     * Deletes user revocations that have outlived every token they covered.
+     *
+     * @param now current time
+     * @return number of rows deleted
+     */
+    public int deleteExpiredUserRevocations(LocalDateTime now) {
+        return em.createNativeQuery("DELETE FROM revoked_users WHERE expires_at <= :now")
+            .setParameter("now", now)
+            .executeUpdate();
+    }
+
+    /**
+     * Deletes up to {@code limit} expired tokens (and inactive ones, if requested) in its own
+     * transaction, so each chunk holds row locks only briefly.
+     *
+     * @param now             current time
+     * @param includeInactive whether unexpired but inactive tokens are also deleted
+     * @param limit           maximum rows to delete
+     * @return number of rows deleted
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int deleteExpiredChunk(LocalDateTime now, boolean includeInactive, int limit) {
+        String jpql = includeInactive
+                ? "SELECT a.tokenHash FROM AuthToken a WHERE a.expiresAt < :now OR a.active = false"
+                : "SELECT a.tokenHash FROM AuthToken a WHERE a.expiresAt < :now";
+        List<byte[]> hashes = em.createQuery(jpql, byte[].class)
+            .setParameter("now", now)
+            .setMaxResults(limit)
+            .getResultList();
+        if (hashes.isEmpty()) return 0;
+        return em.createQuery("DELETE FROM AuthToken a WHERE a.tokenHash IN :hashes")
+            .setParameter("hashes", hashes)
+            .executeUpdate();
+    }
+
+    /**
+     * Moves the expiry of the given active tokens forward to {@code expiresAt} in its own
+     * transaction. Tokens that already expired, already expire later, or were issued before
+     * {@code issuedAfter} are left alone.
+     *
+     * @param hashes      stored token digests
+     * @param now         current time
+     * @param expiresAt   new expiry
+     * @param issuedAfter tokens issued at or before this time are not extended
+     * @return number of rows updated
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int extendExpiry(List<byte[]> hashes, LocalDateTime now, LocalDateTime expiresAt, LocalDateTime issuedAfter) {
+        if (hashes.isEmpty()) return 0;
+        return em.createQuery("UPDATE AuthToken a SET a.expiresAt = :expiresAt "
+                        + "WHERE a.tokenHash IN :hashes AND a.active = true "
+                        + "AND a.expiresAt > :now AND a.expiresAt < :expiresAt AND a.issuedAt > :issuedAfter")
+            .setParameter("expiresAt", expiresAt)
+            .setParameter("hashes", hashes)
+            .setParameter("now", now)
+            .setParameter("issuedAfter", issuedAfter)
+            .executeUpdate();
+    }
 }
@@ -0,0 +1,17 @@
+package ca.bcit.infosys.liangk.dao;
+
+import ca.bcit.infosys.liangk.entity.Hours;
+
+import java.time.LocalDate;
+
+/**
+ * One hours rollup row with its owner's username, as streamed by {@link HoursRollupDAO#scrollAll}.
+ *
+ * @param userId      owner user id
+ * @param username    owner username
+ * @param projectCode entry project code
+ * @param weekStart   timesheet week start
+ * @param hours       total hours
+ */
+public record HoursRollupCell(long userId, String username, String projectCode, LocalDate weekStart, Hours hours) {
+}
@@ -0,0 +1,162 @@
+package ca.bcit.infosys.liangk.dao;
+
+import ca.bcit.infosys.liangk.entity.Hours;
+import jakarta.ejb.Stateless;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.NativeQuery;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * DAO for the {@code timesheet_hours_rollup} table, which holds total hours per user, project and
+ * week. Writes are delta upserts issued in the caller's transaction; reads sum over users.
+ */
+@Stateless
+public class HoursRollupDAO {
+
+    // Rows per INSERT statement; keeps the statement and its parameter count bounded
+    private static final int UPSERT_ROWS_PER_STATEMENT = 200;
+
+    @PersistenceContext(unitName = "TimesheetsPU")
+    private EntityManager em;
+
+    /**
+     * Adds each delta to its rollup row, creating missing rows. Keys are written in primary key
+     * order so concurrent writers lock rows in the same order.
+     *
+     * @param deltas hours to add per key; may be negative
+     */
+    public void applyDeltas(Map<HoursRollupKey, Hours> deltas) {
+        if (deltas.isEmpty()) return;
+        List<HoursRollupKey> keys = new ArrayList<>(deltas.keySet());
+        keys.sort(HoursRollupKey.ORDER);
+        for (int from = 0; from < keys.size(); from += UPSERT_ROWS_PER_STATEMENT) {
+            List<HoursRollupKey> chunk = keys.subList(from, Math.min(keys.size(), from + UPSERT_ROWS_PER_STATEMENT));
+            StringBuilder sql = new StringBuilder(
+                    "INSERT INTO timesheet_hours_rollup (user_id, project_code, week_start, hours) VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) sql.append(", ");
+                sql.append("(:u").append(i).append(", :p").append(i).append(", :w").append(i)
+                        .append(", :h").append(i).append(')');
+            }
+            sql.append(" ON DUPLICATE KEY UPDATE hours = hours + VALUES(hours)");
+            Query q = em.createNativeQuery(sql.toString());
+            for (int i = 0; i < chunk.size(); i++) {
+                HoursRollupKey k = chunk.get(i);
+                q.setParameter("u" + i, k.userId())
+                        .setParameter("p" + i, k.projectCode())
+                        .setParameter("w" + i, k.weekStart())
+                        .setParameter("h" + i, deltas.get(k).toBigDecimal());
+            }
+            q.executeUpdate();
+        }
+    }
+
+    /**
+     * Sums hours over all users per project and week for weeks starting within {@code [from, to]}.
+     *
+     * @param from        first week start, inclusive
+     * @param to          last week start, inclusive
+     * @param projectCode only this project if not null
+     * @return rows ordered by week, then project; zero totals are left out
+     */
+    public List<HoursRollupRow> findProjectWeekTotals(LocalDate from, LocalDate to, String projectCode) {
+        Query q = em.createNativeQuery("SELECT r.project_code, r.week_start, SUM(r.hours) "
+                + "FROM timesheet_hours_rollup r WHERE r.week_start BETWEEN :from AND :to"
+                + (projectCode == null ? "" : " AND r.project_code = :project")
+                + " GROUP BY r.week_start, r.project_code HAVING SUM(r.hours) <> 0"
+                + " ORDER BY r.week_start, r.project_code");
+        return read(bind(q, from, to, projectCode), false);
+    }
+
+    /**
+     * Like {@link #findProjectWeekTotals} but per user as well.
+     *
+     * @return rows ordered by week, project, then username; zero totals are left out
+     */
+    public List<HoursRollupRow> findUserProjectWeekTotals(LocalDate from, LocalDate to, String projectCode) {
+        Query q = em.createNativeQuery("SELECT u.username, r.project_code, r.week_start, r.hours "
+                + "FROM timesheet_hours_rollup r JOIN users u ON u.id = r.user_id "
+                + "WHERE r.week_start BETWEEN :from AND :to AND r.hours <> 0"
+                + (projectCode == null ? "" : " AND r.project_code = :project")
+                + " ORDER BY r.week_start, r.project_code, u.username");
+        return read(bind(q, from, to, projectCode), true);
+    }
+
+    /**
+     * Runs a statement that reads no table, so the current transaction holds a connection but has no
+     * read view yet.
+     */
+    public void pinConnection() {
+        em.createNativeQuery("SELECT 1").getSingleResult();
+    }
+
+    /**
+     * Opens the current transaction's read view with a one-row consistent read; later reads in the
+     * transaction see the rollup as of this call.
+     */
+    public void openReadView() {
+        em.createNativeQuery("SELECT 1 FROM timesheet_hours_rollup LIMIT 1").getResultList();
+    }
+
+    /**
+     * Streams every non-zero rollup row, with its owner's username, ordered by week, through a
+     * forward-only scroll.
+     *
+     * @param fetchSize JDBC fetch size; {@link Integer#MIN_VALUE} makes MySQL stream row by row
+     * @param sink      receives each row; exceptions it throws end the scroll
+     * @return number of rows read
+     */
+    @SuppressWarnings("unchecked")
+    public long scrollAll(int fetchSize, Consumer<HoursRollupCell> sink) {
+        NativeQuery<Object[]> q = em.createNativeQuery("SELECT r.user_id, u.username, r.project_code, r.week_start, r.hours "
+                        + "FROM timesheet_hours_rollup r JOIN users u ON u.id = r.user_id "
+                        + "WHERE r.hours <> 0 ORDER BY r.week_start")
+                .unwrap(NativeQuery.class);
+        q.setFetchSize(fetchSize);
+        q.setReadOnly(true);
+        long rows = 0;
+        try (ScrollableResults<Object[]> scroll = q.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (scroll.next()) {
+                Object[] r = scroll.get();
+                sink.accept(new HoursRollupCell(((Number) r[0]).longValue(), (String) r[1], (String) r[2],
+                        toLocalDate(r[3]), Hours.of(new BigDecimal(r[4].toString()))));
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static Query bind(Query q, LocalDate from, LocalDate to, String projectCode) {
+        q.setParameter("from", from).setParameter("to", to);
+        if (projectCode != null) q.setParameter("project", projectCode);
+        return q;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<HoursRollupRow> read(Query q, boolean withUser) {
+        List<Object[]> rows = q.getResultList();
+        List<HoursRollupRow> result = new ArrayList<>(rows.size());
+        int c = withUser ? 1 : 0;
+        for (Object[] r : rows) {
+            result.add(new HoursRollupRow(withUser ? (String) r[0] : null, (String) r[c], toLocalDate(r[c + 1]),
+                    Hours.of(new BigDecimal(r[c + 2].toString()))));
+        }
+        return result;
+    }
+
+    // Drivers return DATE columns as java.sql.Date or LocalDate depending on configuration
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date d ? d.toLocalDate() : (LocalDate) value;
+    }
+}
@@ -0,0 +1,21 @@
+package ca.bcit.infosys.liangk.dao;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+/**
+ * Key of a row in the hours rollup table.
+ *
+ * @param userId      owner user id
+ * @param projectCode entry project code
+ * @param weekStart   timesheet week start
+ */
+public record HoursRollupKey(long userId, String projectCode, LocalDate weekStart) {
+
+    /**
+     * Primary key order, used to upsert rows in a consistent lock order.
+     */
+    public static final Comparator<HoursRollupKey> ORDER = Comparator.comparingLong(HoursRollupKey::userId)
+            .thenComparing(HoursRollupKey::projectCode)
+            .thenComparing(HoursRollupKey::weekStart);
+}
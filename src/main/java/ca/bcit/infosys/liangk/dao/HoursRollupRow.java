@@ -0,0 +1,16 @@
+package ca.bcit.infosys.liangk.dao;
+
+import ca.bcit.infosys.liangk.entity.Hours;
+
+import java.time.LocalDate;
+
+/**
+ * Summed hours for a project and week, optionally for a single user, read from the rollup table.
+ *
+ * @param username    user, or null when summed over all users
+ * @param projectCode project code
+ * @param weekStart   week start
+ * @param hours       total hours
+ */
+public record HoursRollupRow(String username, String projectCode, LocalDate weekStart, Hours hours) {
+}
@@ -0,0 +1,24 @@
+package ca.bcit.infosys.liangk.dao;
+
+import ca.bcit.infosys.liangk.entity.Timesheet;
+
+import java.util.List;
+
+/**
+ * Insert-only writer for bulk loads, bound to the transaction that was active when it was opened.
+ * Rows are sent as JDBC batches when that transaction commits, so close the writer only after
+ * commit or rollback.
+ */
+public interface TimesheetBulkWriter extends AutoCloseable {
+
+    /**
+     * Queues new timesheets and all of their entries for insertion. Lifecycle callbacks and
+     * cascades do not run; timestamps are set here.
+     *
+     * @param timesheets new timesheets with owner, week, status, totals and entries set
+     */
+    void insertAll(List<Timesheet> timesheets);
+
+    @Override
+    void close();
+}
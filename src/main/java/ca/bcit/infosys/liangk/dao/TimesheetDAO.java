@@ -1,13 +1,33 @@
 package ca.bcit.infosys.liangk.dao;
 
+import ca.bcit.infosys.liangk.entity.Hours;
 import ca.bcit.infosys.liangk.entity.Timesheet;
+import ca.bcit.infosys.liangk.entity.TimesheetEntry;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.Query;
 
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
 
 /**
  * DAO for Timesheet entities. Encapsulates all persistence operations using JPA.
@@ -20,21 +40,36 @@ public class TimesheetDAO {
 
     /**
      * Finds a timesheet by id, eagerly fetching entries to avoid lazy-loading issues
-     * when mapping to DTOs.
+     * when mapping to DTOs. With an owner id the ownership check is part of the query, so a
+     * timesheet of another user is not loaded at all.
+     *
+     * @param id      timesheet identifier
+     * @param ownerId only return the timesheet if this user owns it; null for any owner
+     * @return Timesheet or null if not found (or owned by someone else)
+     */
+    public Timesheet findById(long id, Long ownerId) {
+        TypedQuery<Timesheet> q = em.createQuery(
+                "SELECT t FROM Timesheet t LEFT JOIN FETCH t.entries WHERE t.id = :id"
+                        + (ownerId == null ? "" : " AND t.owner.id = :ownerId"),
+                Timesheet.class)
+                .setParameter("id", id);
+        if (ownerId != null) q.setParameter("ownerId", ownerId);
+        List<Timesheet> results = q.getResultList();
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Reads only the owner of a timesheet, from the foreign key column, to tell a missing
+     * timesheet from one the requester may not see.
      *
      * @param id timesheet identifier
-     * @return Timesheet or null if not found
-     */
-    public Timesheet findById(long id) {
-        try {
-            return em.createQuery(
-                    "SELECT t FROM Timesheet t LEFT JOIN FETCH t.entries WHERE t.id = :id",
-                    Timesheet.class)
-                    .setParameter("id", id)
-                    .getSingleResult();
-        } catch (jakarta.persistence.NoResultException e) {
-            return null;
-        }
+     * @return owner user id or null if the timesheet does not exist
+     */
+    public Long findOwnerId(long id) {
+        List<Long> rows = em.createQuery("SELECT t.owner.id FROM Timesheet t WHERE t.id = :id", Long.class)
+                .setParameter("id", id)
+                .getResultList();
+        return rows.isEmpty() ? null : rows.get(0);
     }
 
     /**
@@ -68,6 +103,337 @@ public class TimesheetDAO {
             .getResultList();
     }
 
+    /**
+     * Returns the keys of one page of a user's timesheets, newest week first, seeking past
+     * {@code after}. Only ids and week starts are read, so the LIMIT is applied by the database;
+     * the {@code (user_id, week_start)} unique index (which carries the id) serves the ordering.
+     *
+     * @param userId owner user id
+     * @param after  last key of the previous page, or null for the first page
+     * @param limit  maximum number of keys
+     * @return page keys in listing order
+     */
+    public List<TimesheetKey> findPageKeysByUser(long userId, TimesheetKey after, int limit) {
+        String jpql = "SELECT NEW ca.bcit.infosys.liangk.dao.TimesheetKey(t.weekStart, t.id) FROM Timesheet t "
+                + "WHERE t.owner.id = :userId"
+                + (after == null ? "" : " AND (t.weekStart < :week OR (t.weekStart = :week AND t.id < :id))")
+                + " ORDER BY t.weekStart DESC, t.id DESC";
+        TypedQuery<TimesheetKey> q = em.createQuery(jpql, TimesheetKey.class)
+                .setParameter("userId", userId)
+                .setMaxResults(limit);
+        if (after != null) {
+            q.setParameter("week", after.weekStart());
+            q.setParameter("id", after.id());
+        }
+        return q.getResultList();
+    }
+
+    /**
+     * Returns one page of timesheets of any user matching {@code filter}, newest week first,
+     * seeking past {@code after}. Owner fields come from the same query through a join, so no user
+     * entity is loaded. {@code idx_timesheets_status_week} serves status searches,
+     * {@code idx_timesheets_week_start} week ranges and {@code idx_entries_project_timesheet} the project
+     * filter.
+     *
+     * @param filter search criteria
+     * @param after  last key of the previous page, or null for the first page
+     * @param limit  maximum number of rows
+     * @return rows in listing order
+     */
+    public List<TimesheetSearchRow> search(TimesheetSearchFilter filter, TimesheetKey after, int limit) {
+        StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        if (filter.status() != null) where.add("t.status = :status");
+        if (filter.from() != null) where.add("t.weekStart >= :from");
+        if (filter.to() != null) where.add("t.weekStart <= :to");
+        if (filter.username() != null) where.add("u.username = :username");
+        if (filter.projectCode() != null) {
+            where.add("EXISTS (SELECT 1 FROM TimesheetEntry e WHERE e.timesheet = t AND e.projectCode = :project)");
+        }
+        if (after != null) where.add("(t.weekStart < :week OR (t.weekStart = :week AND t.id < :id))");
+        String jpql = "SELECT NEW ca.bcit.infosys.liangk.dao.TimesheetSearchRow(t.id, t.weekStart, t.status, t.totalHours, "
+                + "t.version, u.username, u.firstName, u.lastName) FROM Timesheet t JOIN t.owner u" + where
+                + " ORDER BY t.weekStart DESC, t.id DESC";
+
+        TypedQuery<TimesheetSearchRow> q = em.createQuery(jpql, TimesheetSearchRow.class)
+                .setMaxResults(limit);
+        if (filter.status() != null) q.setParameter("status", filter.status());
+        if (filter.from() != null) q.setParameter("from", filter.from());
+        if (filter.to() != null) q.setParameter("to", filter.to());
+        if (filter.username() != null) q.setParameter("username", filter.username());
+        if (filter.projectCode() != null) q.setParameter("project", filter.projectCode());
+        if (after != null) {
+            q.setParameter("week", after.weekStart());
+            q.setParameter("id", after.id());
+        }
+        return q.getResultList();
+    }
+
+    /**
+     * Loads the given timesheets with their entries in one query, returned in the order of
+     * {@code ids}. Ids that no longer exist are skipped.
+     *
+     * @param ids timesheet ids
+     * @return timesheets with entries
+     */
+    public List<Timesheet> findByIdsWithEntries(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        List<Timesheet> loaded = em.createQuery(
+                "SELECT DISTINCT t FROM Timesheet t LEFT JOIN FETCH t.entries WHERE t.id IN :ids",
+                Timesheet.class)
+            .setParameter("ids", ids)
+            .getResultList();
+        Map<Long, Timesheet> byId = new HashMap<>();
+        for (Timesheet t : loaded) {
+            byId.put(t.getId(), t);
+        }
+        List<Timesheet> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Timesheet t = byId.get(id);
+            if (t != null) ordered.add(t);
+        }
+        return ordered;
+    }
+
+    private static final String LIST_ROW_SELECT =
+            "SELECT NEW ca.bcit.infosys.liangk.dao.TimesheetListRow(t.id, t.weekStart, t.status, t.totalHours, t.version, t.updatedAt, "
+                    + "e.id, e.workDate, e.projectCode, e.taskCode, e.hours, e.description) "
+                    + "FROM Timesheet t LEFT JOIN t.entries e ";
+    private static final String LIST_ROW_ORDER = " ORDER BY t.weekStart DESC, t.id DESC, e.id";
+    private static final String VERSION_SELECT =
+            "SELECT NEW ca.bcit.infosys.liangk.dao.TimesheetVersion(t.id, t.version, t.updatedAt) FROM Timesheet t ";
+    private static final String VERSION_ORDER = " ORDER BY t.weekStart DESC, t.id DESC";
+
+    /**
+     * Reads a user's timesheets joined with their entries as flat rows, newest week first, for
+     * writing list responses without building entities.
+     *
+     * @param userId    owner user id
+     * @param weekStart only this week if not null
+     * @return rows, those of one timesheet adjacent
+     */
+    public List<TimesheetListRow> findListRowsByUser(long userId, LocalDate weekStart) {
+        TypedQuery<TimesheetListRow> q = em.createQuery(LIST_ROW_SELECT + "WHERE t.owner.id = :userId"
+                + (weekStart == null ? "" : " AND t.weekStart = :week") + LIST_ROW_ORDER, TimesheetListRow.class)
+            .setParameter("userId", userId);
+        if (weekStart != null) q.setParameter("week", weekStart);
+        return q.getResultList();
+    }
+
+    /**
+     * Reads the given timesheets joined with their entries as flat rows, newest week first.
+     *
+     * @param ids timesheet ids
+     * @return rows, those of one timesheet adjacent
+     */
+    public List<TimesheetListRow> findListRowsByIds(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        return em.createQuery(LIST_ROW_SELECT + "WHERE t.id IN :ids" + LIST_ROW_ORDER, TimesheetListRow.class)
+            .setParameter("ids", ids)
+            .getResultList();
+    }
+
+    /**
+     * Reads the ids and versions of the timesheets {@link #findListRowsByUser} would return, in
+     * the same order, without touching the entries.
+     *
+     * @param userId    owner user id
+     * @param weekStart only this week if not null
+     * @return one row per timesheet
+     */
+    public List<TimesheetVersion> findVersionsByUser(long userId, LocalDate weekStart) {
+        TypedQuery<TimesheetVersion> q = em.createQuery(VERSION_SELECT + "WHERE t.owner.id = :userId"
+                + (weekStart == null ? "" : " AND t.weekStart = :week") + VERSION_ORDER, TimesheetVersion.class)
+            .setParameter("userId", userId);
+        if (weekStart != null) q.setParameter("week", weekStart);
+        return q.getResultList();
+    }
+
+    /**
+     * Reads the ids and versions of the given timesheets, in list order.
+     *
+     * @param ids timesheet ids
+     * @return one row per existing timesheet
+     */
+    public List<TimesheetVersion> findVersionsByIds(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        return em.createQuery(VERSION_SELECT + "WHERE t.id IN :ids" + VERSION_ORDER, TimesheetVersion.class)
+            .setParameter("ids", ids)
+            .getResultList();
+    }
+
+    /**
+     * Reads the header columns of a timesheet without its entries.
+     *
+     * @param id timesheet id
+     * @return header projection or null if not found
+     */
+    public TimesheetHeader findHeader(long id) {
+        List<TimesheetHeader> rows = em.createQuery(
+                "SELECT NEW ca.bcit.infosys.liangk.dao.TimesheetHeader(t.id, t.owner.id, t.weekStart, t.status, t.totalHours, t.version, t.updatedAt) "
+                        + "FROM Timesheet t WHERE t.id = :id", TimesheetHeader.class)
+            .setParameter("id", id)
+            .getResultList();
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Finds a single entry of a timesheet.
+     *
+     * @param timesheetId owning timesheet id
+     * @param entryId     entry id
+     * @return the entry or null if it does not exist on that timesheet
+     */
+    public TimesheetEntry findEntry(long timesheetId, long entryId) {
+        List<TimesheetEntry> rows = em.createQuery(
+                "SELECT e FROM TimesheetEntry e WHERE e.id = :entryId AND e.timesheet.id = :timesheetId",
+                TimesheetEntry.class)
+            .setParameter("entryId", entryId)
+            .setParameter("timesheetId", timesheetId)
+            .getResultList();
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Sums the hours of a timesheet's entries on one day, for checking the daily cap without
+     * loading the entries.
+     *
+     * @param timesheetId    timesheet id
+     * @param workDate       day to sum
+     * @param excludeEntryId entry to leave out, e.g. the one being changed; null to include all
+     * @return total hours, zero if there are none
+     */
+    public Hours sumEntryHoursOnDay(long timesheetId, LocalDate workDate, Long excludeEntryId) {
+        // Native because JPQL SUM is not defined on the converted Hours type
+        Object sum = em.createNativeQuery("SELECT COALESCE(SUM(hours), 0) FROM timesheet_entries "
+                        + "WHERE timesheet_id = :id AND work_date = :day AND id <> :exclude")
+            .setParameter("id", timesheetId)
+            .setParameter("day", workDate)
+            .setParameter("exclude", excludeEntryId == null ? -1L : excludeEntryId)
+            .getSingleResult();
+        return Hours.of(new BigDecimal(sum.toString()));
+    }
+
+    /**
+     * Inserts one entry under the timesheet without loading the timesheet.
+     *
+     * @param timesheetId owning timesheet id
+     * @param entry       new entry
+     * @return the persisted entry
+     */
+    public TimesheetEntry createEntry(long timesheetId, TimesheetEntry entry) {
+        entry.setTimesheet(em.getReference(Timesheet.class, timesheetId));
+        em.persist(entry);
+        return entry;
+    }
+
+    /**
+     * Merges changes to one entry.
+     *
+     * @param entry entry with changes
+     * @return managed entry
+     */
+    public TimesheetEntry updateEntry(TimesheetEntry entry) {
+        return em.merge(entry);
+    }
+
+    /**
+     * Deletes one entry.
+     *
+     * @param entry entry to delete
+     */
+    public void deleteEntry(TimesheetEntry entry) {
+        em.remove(em.contains(entry) ? entry : em.merge(entry));
+    }
+
+    /**
+     * Adds {@code delta} to a timesheet's total hours in a single UPDATE, so concurrent entry
+     * changes never overwrite each other's totals. Also bumps the version, since an entry changed.
+     *
+     * @param timesheetId timesheet id
+     * @param delta       hours to add; may be negative
+     */
+    public void adjustTotalHours(long timesheetId, Hours delta) {
+        // Bulk updates skip @PreUpdate, so updated_at is set explicitly. Native SQL because JPQL
+        // arithmetic is not defined on the converted Hours type.
+        em.createNativeQuery("UPDATE timesheets SET total_hours = total_hours + :delta, updated_at = :now, "
+                        + "version = version + 1 WHERE id = :id")
+            .setParameter("delta", delta.toBigDecimal())
+            .setParameter("now", LocalDateTime.now())
+            .setParameter("id", timesheetId)
+            .executeUpdate();
+    }
+
+    /**
+     * Returns which of the given users already have a timesheet for any of the given weeks, in one
+     * query. The result may include pairs that were not asked about; callers test membership.
+     *
+     * @param userIds owner user ids
+     * @param weeks   week start dates
+     * @return week starts taken, keyed by user id
+     */
+    public Map<Long, Set<LocalDate>> findExistingWeeks(Collection<Long> userIds, Collection<LocalDate> weeks) {
+        Map<Long, Set<LocalDate>> taken = new HashMap<>();
+        if (userIds.isEmpty() || weeks.isEmpty()) return taken;
+        List<Object[]> rows = em.createQuery(
+                "SELECT t.owner.id, t.weekStart FROM Timesheet t WHERE t.owner.id IN :userIds AND t.weekStart IN :weeks",
+                Object[].class)
+            .setParameter("userIds", userIds)
+            .setParameter("weeks", weeks)
+            .getResultList();
+        for (Object[] row : rows) {
+            taken.computeIfAbsent((Long) row[0], k -> new HashSet<>()).add((LocalDate) row[1]);
+        }
+        return taken;
+    }
+
+    /**
+     * Streams every timesheet whose week starts within {@code [from, to]}, joined with its entries,
+     * through a forward-only scroll. Rows are plain projections, so nothing accumulates in the
+     * persistence context however many rows are read. Rows of one timesheet are adjacent, ordered
+     * by timesheet id then entry id.
+     *
+     * @param from      first week start, inclusive
+     * @param to        last week start, inclusive
+     * @param fetchSize JDBC fetch size; {@link Integer#MIN_VALUE} makes MySQL stream row by row
+     * @param sink      receives each row; exceptions it throws end the scroll
+     * @return number of rows read
+     */
+    @SuppressWarnings("unchecked")
+    public long scrollForExport(LocalDate from, LocalDate to, int fetchSize, Consumer<TimesheetExportRow> sink) {
+        Query<TimesheetExportRow> q = em.createQuery(
+                "SELECT NEW ca.bcit.infosys.liangk.dao.TimesheetExportRow(t.id, u.username, t.weekStart, t.status, "
+                        + "t.totalHours, e.id, e.workDate, e.projectCode, e.taskCode, e.hours, e.description) "
+                        + "FROM Timesheet t JOIN t.owner u LEFT JOIN t.entries e "
+                        + "WHERE t.weekStart BETWEEN :from AND :to ORDER BY t.id, e.id",
+                TimesheetExportRow.class)
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .unwrap(Query.class);
+        q.setFetchSize(fetchSize);
+        q.setReadOnly(true);
+        long rows = 0;
+        try (ScrollableResults<TimesheetExportRow> scroll = q.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (scroll.next()) {
+                sink.accept(scroll.get());
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Opens a writer that inserts through a Hibernate stateless session, skipping the persistence
+     * context and dirty checking. Must be called inside the transaction the rows belong to.
+     *
+     * @param batchSize JDBC batch size
+     * @return writer to close after the transaction completes
+     */
+    public TimesheetBulkWriter openBulkWriter(int batchSize) {
+        StatelessSession session = em.getEntityManagerFactory().unwrap(SessionFactory.class).openStatelessSession();
+        session.setJdbcBatchSize(batchSize);
+        return new StatelessBulkWriter(session);
+    }
+
     /**
      * Persists a new timesheet.
      *
@@ -90,14 +456,123 @@ public class TimesheetDAO {
     }
 
     /**
-     * Deletes a timesheet by id. No-op if not found.
+     * Lists the ids of a user's timesheets whose week starts within {@code [from, to]}.
+     *
+     * @param userId owner user id
+     * @param from   first week start, inclusive
+     * @param to     last week start, inclusive
+     * @return timesheet ids in id order
+     */
+    public List<Long> findIdsByUserAndWeekRange(long userId, LocalDate from, LocalDate to) {
+        return em.createQuery("SELECT t.id FROM Timesheet t WHERE t.owner.id = :userId "
+                        + "AND t.weekStart BETWEEN :from AND :to ORDER BY t.id", Long.class)
+            .setParameter("userId", userId)
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .getResultList();
+    }
+
+    /**
+     * Locks the given timesheet rows and reads their headers. Rows are locked in id order, so
+     * concurrent deletes cannot deadlock. Entry inserts check their parent row, so no entry can
+     * be added to a locked timesheet until the transaction ends. Callers that go on to read the
+     * timesheet's entries should lock first: under REPEATABLE READ the transaction's first plain
+     * read fixes its snapshot, which would then predate whatever the previous lock holder committed.
+     *
+     * @param ids timesheet ids
+     * @return headers of the ids that exist, in id order
+     */
+    @SuppressWarnings("unchecked")
+    public List<TimesheetHeader> lockHeaders(Collection<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        List<Object[]> rows = em.createNativeQuery("SELECT id, user_id, week_start, status, total_hours, version, updated_at "
+                        + "FROM timesheets WHERE id IN (:ids) ORDER BY id FOR UPDATE")
+            .setParameter("ids", ids)
+            .getResultList();
+        List<TimesheetHeader> headers = new ArrayList<>(rows.size());
+        for (Object[] r : rows) {
+            headers.add(new TimesheetHeader(((Number) r[0]).longValue(), ((Number) r[1]).longValue(),
+                    toLocalDate(r[2]),
+                    TimesheetStatus.valueOf(r[3].toString()), Hours.of(new BigDecimal(r[4].toString())),
+                    ((Number) r[5]).longValue(), toLocalDateTime(r[6])));
+        }
+        return headers;
+    }
+
+    /**
+     * Sums the entry hours of the given timesheets per owner, project and week, which is what
+     * deleting them removes from the hours rollup. Only the sums are read, not the entries. The read
+     * is a locking one, so it sees the latest committed entries even if the transaction's snapshot
+     * was taken before the timesheets were locked.
      *
-     * @param id identifier
+     * @param ids timesheet ids
+     * @return hours per rollup key; keys without entries are absent
      */
-    public void delete(long id) {
-        Timesheet t = em.find(Timesheet.class, id);
-        if (t != null) {
-            em.remove(t);
+    @SuppressWarnings("unchecked")
+    public Map<HoursRollupKey, Hours> sumHoursByRollupKey(Collection<Long> ids) {
+        if (ids.isEmpty()) return Map.of();
+        List<Object[]> rows = em.createNativeQuery("SELECT t.user_id, e.project_code, t.week_start, SUM(e.hours) "
+                        + "FROM timesheet_entries e JOIN timesheets t ON t.id = e.timesheet_id "
+                        + "WHERE t.id IN (:ids) GROUP BY t.user_id, e.project_code, t.week_start FOR SHARE")
+            .setParameter("ids", ids)
+            .getResultList();
+        Map<HoursRollupKey, Hours> sums = new HashMap<>();
+        for (Object[] r : rows) {
+            sums.put(new HoursRollupKey(((Number) r[0]).longValue(), (String) r[1],
+                            toLocalDate(r[2])),
+                    Hours.of(new BigDecimal(r[3].toString())));
+        }
+        return sums;
+    }
+
+    /**
+     * Deletes timesheets with one bulk statement. Their entries are removed by the
+     * {@code ON DELETE CASCADE} of {@code fk_entries_timesheet} rather than one by one, so entities
+     * of these timesheets already in the persistence context must not be used afterwards.
+     *
+     * @param ids timesheet ids
+     * @return number of timesheets deleted
+     */
+    public int deleteByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) return 0;
+        return em.createQuery("DELETE FROM Timesheet t WHERE t.id IN :ids")
+            .setParameter("ids", ids)
+            .executeUpdate();
+    }
+
+    // Drivers return DATE columns as java.sql.Date or LocalDate depending on configuration
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date d ? d.toLocalDate() : (LocalDate) value;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp ts ? ts.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    private static final class StatelessBulkWriter implements TimesheetBulkWriter {
+        private final StatelessSession session;
+
+        StatelessBulkWriter(StatelessSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public void insertAll(List<Timesheet> timesheets) {
+            // Parents first, then children, so each statement type forms unbroken batches
+            for (Timesheet t : timesheets) {
+                t.prePersist();
+                session.insert(t);
+            }
+            for (Timesheet t : timesheets) {
+                for (TimesheetEntry e : t.getEntries()) {
+                    session.insert(e);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            session.close();
         }
     }
 }
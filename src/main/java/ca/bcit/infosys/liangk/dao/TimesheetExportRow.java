@@ -0,0 +1,27 @@
+package ca.bcit.infosys.liangk.dao;
+
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+
+import java.time.LocalDate;
+
+/**
+ * One row of the export scroll: a timesheet's columns joined with one of its entries. Entry
+ * columns are null for a timesheet without entries.
+ *
+ * @param timesheetId  timesheet id
+ * @param username     owner's username
+ * @param weekStart    week start date
+ * @param status       timesheet status
+ * @param totalHours   timesheet total hours
+ * @param entryId      entry id, or null
+ * @param workDate     entry work date
+ * @param projectCode  entry project code
+ * @param taskCode     entry task code
+ * @param hours        entry hours
+ * @param description  entry description
+ */
+public record TimesheetExportRow(Long timesheetId, String username, LocalDate weekStart, TimesheetStatus status,
+                                 Hours totalHours, Long entryId, LocalDate workDate, String projectCode,
+                                 String taskCode, Hours hours, String description) {
+}
@@ -0,0 +1,23 @@
+package ca.bcit.infosys.liangk.dao;
+
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Timesheet columns needed to authorize and validate a single-entry change, read without
+ * loading the timesheet entity or its entries.
+ *
+ * @param id         timesheet id
+ * @param ownerId    owner user id
+ * @param weekStart  week start date
+ * @param status     current status
+ * @param totalHours current total of the entries' hours
+ * @param version    optimistic lock version
+ * @param updatedAt  time of the last change
+ */
+public record TimesheetHeader(Long id, Long ownerId, LocalDate weekStart, TimesheetStatus status, Hours totalHours,
+                              long version, LocalDateTime updatedAt) {
+}
@@ -0,0 +1,42 @@
+package ca.bcit.infosys.liangk.dao;
+
+import ca.bcit.infosys.liangk.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Seek position in the timesheet listings, ordered by {@code (week_start DESC, id DESC)}.
+ * Serialized as an opaque URL-safe cursor for clients.
+ *
+ * @param weekStart week start of the last row seen
+ * @param id        id of the last row seen
+ */
+public record TimesheetKey(LocalDate weekStart, Long id) {
+
+    /**
+     * Encodes this key as an opaque cursor string.
+     */
+    public String toCursor() {
+        String raw = weekStart + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Parses a cursor produced by {@link #toCursor()}.
+     *
+     * @param cursor opaque cursor
+     * @return decoded key
+     * @throws ValidationException if the cursor is malformed
+     */
+    public static TimesheetKey fromCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int sep = raw.indexOf(':');
+            return new TimesheetKey(LocalDate.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+}
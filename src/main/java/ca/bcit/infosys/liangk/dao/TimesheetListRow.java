@@ -0,0 +1,29 @@
+package ca.bcit.infosys.liangk.dao;
+
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A timesheet's columns joined with one of its entries, as read for list responses. Entry
+ * columns are null for a timesheet without entries.
+ *
+ * @param timesheetId timesheet id
+ * @param weekStart   week start date
+ * @param status      timesheet status
+ * @param totalHours  timesheet total hours
+ * @param version     timesheet optimistic lock version
+ * @param updatedAt   timesheet last change time
+ * @param entryId     entry id, or null
+ * @param workDate    entry work date
+ * @param projectCode entry project code
+ * @param taskCode    entry task code
+ * @param hours       entry hours
+ * @param description entry description
+ */
+public record TimesheetListRow(Long timesheetId, LocalDate weekStart, TimesheetStatus status, Hours totalHours,
+                               long version, LocalDateTime updatedAt, Long entryId, LocalDate workDate, String projectCode, String taskCode,
+                               Hours hours, String description) {
+}
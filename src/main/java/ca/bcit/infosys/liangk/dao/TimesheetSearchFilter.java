@@ -0,0 +1,18 @@
+package ca.bcit.infosys.liangk.dao;
+
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Criteria of the admin timesheet search; null components do not filter.
+ *
+ * @param status      only timesheets in this status
+ * @param from        first week start, inclusive
+ * @param to          last week start, inclusive
+ * @param username    only timesheets of this user
+ * @param projectCode only timesheets with at least one entry for this project
+ */
+public record TimesheetSearchFilter(TimesheetStatus status, LocalDate from, LocalDate to, String username,
+                                    String projectCode) {
+}
@@ -0,0 +1,23 @@
+package ca.bcit.infosys.liangk.dao;
+
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+
+import java.time.LocalDate;
+
+/**
+ * One admin search result: timesheet header columns with its owner's display fields, read in the
+ * same query.
+ *
+ * @param id         timesheet id
+ * @param weekStart  week start date
+ * @param status     current status
+ * @param totalHours total of the entries' hours
+ * @param version    optimistic lock version
+ * @param username   owner username
+ * @param firstName  owner first name
+ * @param lastName   owner last name
+ */
+public record TimesheetSearchRow(Long id, LocalDate weekStart, TimesheetStatus status, Hours totalHours, long version,
+                                 String username, String firstName, String lastName) {
+}
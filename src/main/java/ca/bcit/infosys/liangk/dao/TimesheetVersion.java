@@ -0,0 +1,14 @@
+package ca.bcit.infosys.liangk.dao;
+
+import java.time.LocalDateTime;
+
+/**
+ * A timesheet's id, optimistic lock version and last change time, read without its entries to
+ * compute ETags and {@code Last-Modified}.
+ *
+ * @param id        timesheet id
+ * @param version   optimistic lock version
+ * @param updatedAt time of the last change
+ */
+public record TimesheetVersion(Long id, long version, LocalDateTime updatedAt) {
+}
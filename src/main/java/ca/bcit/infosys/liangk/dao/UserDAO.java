@@ -6,7 +6,11 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * DAO for User entities encapsulating JPA access.
@@ -27,6 +31,17 @@ public class UserDAO {
         return em.find(User.class, id);
     }
 
+    /**
+     * Returns an uninitialized reference to a user, for use as an association target without
+     * loading the row.
+     *
+     * @param id user id
+     * @return lazy User reference
+     */
+    public User getReference(long id) {
+        return em.getReference(User.class, id);
+    }
+
     /**
      * Finds a user by unique username.
      *
@@ -65,6 +80,58 @@ public class UserDAO {
                 .getResultList();
     }
 
+    /**
+     * Lists every username, without loading user rows.
+     *
+     * @return all usernames
+     */
+    public List<String> findAllUsernames() {
+        return em.createQuery("SELECT u.username FROM User u", String.class)
+                .getResultList();
+    }
+
+    /**
+     * Returns whether any user row was created or changed at or after the given time.
+     *
+     * @param since lower bound on {@code updated_at}
+     * @return true if such a user exists
+     */
+    public boolean existsUpdatedSince(LocalDateTime since) {
+        return !em.createQuery("SELECT u.id FROM User u WHERE u.updatedAt >= :since", Long.class)
+                .setParameter("since", since)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * Resolves usernames to ids in one query.
+     *
+     * @param usernames usernames to look up
+     * @return id keyed by the username as stored
+     */
+    public Map<String, Long> findIdsByUsernames(Collection<String> usernames) {
+        Map<String, Long> ids = new HashMap<>();
+        if (usernames.isEmpty()) return ids;
+        List<Object[]> rows = em.createQuery("SELECT u.username, u.id FROM User u WHERE u.username IN :names", Object[].class)
+                .setParameter("names", usernames)
+                .getResultList();
+        for (Object[] row : rows) {
+            ids.put((String) row[0], (Long) row[1]);
+        }
+        return ids;
+    }
+
+    /**
+     * Lists ids of all inactive users.
+     *
+     * @return inactive user ids
+     */
+    public List<Long> findInactiveUserIds() {
+        return em.createQuery("SELECT u.id FROM User u WHERE u.active = false", Long.class)
+                .getResultList();
+    }
+
     /**
      * Persists a new user.
      *
@@ -0,0 +1,46 @@
+package ca.bcit.infosys.liangk.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Data transfer object for one line of the hours report: total hours booked to a project in a
+ * week, by one user or by everyone. Analytics breakdowns leave out the dimensions they sum over.
+ */
+public class HoursTotalDTO {
+    private String username; // null when summed over all users
+    private String projectCode; // null when summed over all projects
+    private String weekStart; // ISO yyyy-MM-dd; null when summed over all weeks
+    private BigDecimal hours;
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getProjectCode() {
+        return projectCode;
+    }
+
+    public void setProjectCode(String projectCode) {
+        this.projectCode = projectCode;
+    }
+
+    public String getWeekStart() {
+        return weekStart;
+    }
+
+    public void setWeekStart(String weekStart) {
+        this.weekStart = weekStart;
+    }
+
+    public BigDecimal getHours() {
+        return hours;
+    }
+
+    public void setHours(BigDecimal hours) {
+        this.hours = hours;
+    }
+}
@@ -0,0 +1,103 @@
+package ca.bcit.infosys.liangk.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: counts of imported and rejected timesheets, and the reason for each
+ * rejection up to {@link #MAX_ERRORS} rows.
+ */
+public class ImportReport {
+
+    public static final int MAX_ERRORS = 1_000;
+
+    private int imported;
+    private int failed;
+    private boolean errorsTruncated;
+    private List<RowError> errors = new ArrayList<>();
+
+    /**
+     * Counts timesheets that were committed.
+     */
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    /**
+     * Counts a rejected timesheet and records why, unless the error list is already full.
+     *
+     * @param line    input line the timesheet starts on
+     * @param message reason for the rejection
+     */
+    public void addFailure(long line, String message) {
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RowError(line, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * A rejected input row.
+     */
+    public static class RowError {
+        private long line;
+        private String message;
+
+        public RowError() {}
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public void setLine(long line) {
+            this.line = line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ca.bcit.infosys.liangk.dto;
+
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Data transfer object for one admin search result: a timesheet without its entries, with its
+ * owner's display fields.
+ */
+public class TimesheetSummaryDTO {
+    private Long id;
+    private String weekStart; // ISO yyyy-MM-dd
+    private TimesheetStatus status;
+    private BigDecimal totalHours;
+    private String username;
+    private String firstName;
+    private String lastName;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getWeekStart() {
+        return weekStart;
+    }
+
+    public void setWeekStart(String weekStart) {
+        this.weekStart = weekStart;
+    }
+
+    public TimesheetStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TimesheetStatus status) {
+        this.status = status;
+    }
+
+    public BigDecimal getTotalHours() {
+        return totalHours;
+    }
+
+    public void setTotalHours(BigDecimal totalHours) {
+        this.totalHours = totalHours;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+}
@@ -1,18 +1,24 @@
 package ca.bcit.infosys.liangk.entity;
 
+import ca.bcit.infosys.liangk.util.TokenHash;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 /**
  * JPA entity representing an authentication token issued to a user.
- * Tokens are stored as 64-character hex strings with expiry and active flags.
+ * Only the 32-byte SHA-256 digest of the token is stored, as a {@code BINARY(32)} primary key,
+ * with expiry and active flags. The raw token value is transient and only known when issuing.
  */
 @Entity
-@Table(name = "auth_tokens")
+@Table(name = "auth_tokens",
+        indexes = @Index(name = "idx_auth_tokens_expires_at", columnList = "expires_at"))
 public class AuthToken {
 
     @Id
-    @Column(length = 64)
+    @Column(name = "token_hash", columnDefinition = "BINARY(32)", length = TokenHash.LENGTH)
+    private byte[] tokenHash;
+
+    @Transient
     private String token;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -28,12 +34,27 @@ public class AuthToken {
     @Column(nullable = false)
     private boolean active = true;
 
+    /**
+     * Returns the raw token value; null for tokens loaded from the database.
+     */
     public String getToken() {
         return token;
     }
 
+    /**
+     * Sets the raw token value and derives the stored digest from it.
+     */
     public void setToken(String token) {
         this.token = token;
+        this.tokenHash = TokenHash.of(token);
+    }
+
+    public byte[] getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(byte[] tokenHash) {
+        this.tokenHash = tokenHash;
     }
 
     public User getUser() {
@@ -0,0 +1,125 @@
+package ca.bcit.infosys.liangk.entity;
+
+import jakarta.json.bind.annotation.JsonbTypeAdapter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable amount of hours with two decimal places, held as a count of hundredths of an hour.
+ * <p>
+ * Matches the {@code DECIMAL(4,2)} and {@code DECIMAL(5,2)} hour columns, so sums and comparisons
+ * run on a primitive {@code long} instead of allocating a {@link BigDecimal} per step. Arithmetic
+ * throws {@link ArithmeticException} on overflow rather than wrapping. Values convert to and from
+ * {@code BigDecimal} only at the edges: {@link HoursConverter} for the database and
+ * {@link HoursJsonAdapter} for JSON, which writes the same number a {@code BigDecimal} of scale 2
+ * would (e.g. {@code 7.50}).
+ */
+@JsonbTypeAdapter(HoursJsonAdapter.class)
+public final class Hours implements Comparable<Hours>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int SCALE = 2;
+    private static final int CACHE_MAX = 2_400; // every valid single-entry value, 0.00 to 24.00
+    private static final Hours[] CACHE = new Hours[CACHE_MAX + 1];
+
+    static {
+        for (int i = 0; i <= CACHE_MAX; i++) {
+            CACHE[i] = new Hours(i);
+        }
+    }
+
+    public static final Hours ZERO = CACHE[0];
+
+    private final long hundredths;
+
+    private Hours(long hundredths) {
+        this.hundredths = hundredths;
+    }
+
+    /**
+     * Returns the amount of {@code hundredths / 100} hours.
+     */
+    public static Hours ofHundredths(long hundredths) {
+        if (hundredths >= 0 && hundredths <= CACHE_MAX) return CACHE[(int) hundredths];
+        return new Hours(hundredths);
+    }
+
+    /**
+     * Converts a decimal amount, rounding half up to two decimal places as the database columns do.
+     *
+     * @param value decimal hours
+     * @return the amount, or null if {@code value} is null
+     * @throws ArithmeticException if the value does not fit in a long count of hundredths
+     */
+    public static Hours of(BigDecimal value) {
+        if (value == null) return null;
+        return ofHundredths(value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Parses a decimal string such as {@code "7.5"}.
+     *
+     * @throws NumberFormatException if the string is not a decimal number
+     * @throws ArithmeticException   if the value does not fit
+     */
+    public static Hours parse(String value) {
+        return of(new BigDecimal(value));
+    }
+
+    /**
+     * Returns the amount in hundredths of an hour.
+     */
+    public long hundredths() {
+        return hundredths;
+    }
+
+    public Hours plus(Hours other) {
+        return ofHundredths(Math.addExact(hundredths, other.hundredths));
+    }
+
+    public Hours minus(Hours other) {
+        return ofHundredths(Math.subtractExact(hundredths, other.hundredths));
+    }
+
+    public Hours negate() {
+        return ofHundredths(Math.negateExact(hundredths));
+    }
+
+    public boolean isZero() {
+        return hundredths == 0;
+    }
+
+    /**
+     * Returns the amount as a {@code BigDecimal} of scale 2.
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(hundredths, SCALE);
+    }
+
+    @Override
+    public int compareTo(Hours other) {
+        return Long.compare(hundredths, other.hundredths);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Hours h && h.hundredths == hundredths;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hundredths);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    // Keep one instance per cached value after deserialization
+    private Object readResolve() {
+        return ofHundredths(hundredths);
+    }
+}
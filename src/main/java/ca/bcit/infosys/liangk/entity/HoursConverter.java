@@ -0,0 +1,23 @@
+package ca.bcit.infosys.liangk.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps {@link Hours} attributes to {@code DECIMAL(p,2)} columns.
+ */
+@Converter(autoApply = true)
+public class HoursConverter implements AttributeConverter<Hours, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Hours hours) {
+        return hours == null ? null : hours.toBigDecimal();
+    }
+
+    @Override
+    public Hours convertToEntityAttribute(BigDecimal value) {
+        return Hours.of(value);
+    }
+}
@@ -0,0 +1,22 @@
+package ca.bcit.infosys.liangk.entity;
+
+import jakarta.json.bind.adapter.JsonbAdapter;
+
+import java.math.BigDecimal;
+
+/**
+ * Serializes {@link Hours} as a JSON number with two decimals, exactly as the {@code BigDecimal}
+ * it replaces.
+ */
+public class HoursJsonAdapter implements JsonbAdapter<Hours, BigDecimal> {
+
+    @Override
+    public BigDecimal adaptToJson(Hours hours) {
+        return hours.toBigDecimal();
+    }
+
+    @Override
+    public Hours adaptFromJson(BigDecimal value) {
+        return Hours.of(value);
+    }
+}
@@ -1,7 +1,6 @@
 package ca.bcit.infosys.liangk.entity;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -15,8 +14,11 @@ import java.util.List;
 @Table(name = "timesheets")
 public class Timesheet {
 
+    // Pooled table allocation instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "timesheet_ids")
+    @TableGenerator(name = "timesheet_ids", table = "id_sequences", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "timesheets", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -31,7 +33,12 @@ public class Timesheet {
     private TimesheetStatus status = TimesheetStatus.OPEN;
 
     @Column(name = "total_hours", nullable = false, precision = 5, scale = 2)
-    private BigDecimal totalHours = BigDecimal.ZERO;
+    private Hours totalHours = Hours.ZERO;
+
+    // Incremented on every change; exposed to clients as the ETag
+    @Version
+    @Column(nullable = false)
+    private long version;
 
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -47,7 +54,7 @@ public class Timesheet {
         LocalDateTime now = LocalDateTime.now();
         this.createdAt = now;
         this.updatedAt = now;
-        if (this.totalHours == null) this.totalHours = BigDecimal.ZERO;
+        if (this.totalHours == null) this.totalHours = Hours.ZERO;
     }
 
     @PreUpdate
@@ -56,15 +63,15 @@ public class Timesheet {
     }
 
     public void recalcTotalHours() {
-        BigDecimal sum = BigDecimal.ZERO;
+        long sum = 0;
         if (entries != null) {
             for (TimesheetEntry e : entries) {
                 if (e != null && e.getHours() != null) {
-                    sum = sum.add(e.getHours());
+                    sum = Math.addExact(sum, e.getHours().hundredths());
                 }
             }
         }
-        this.totalHours = sum;
+        this.totalHours = Hours.ofHundredths(sum);
     }
 
     // Getters and setters
@@ -100,14 +107,22 @@ public class Timesheet {
         this.status = status;
     }
 
-    public BigDecimal getTotalHours() {
+    public Hours getTotalHours() {
         return totalHours;
     }
 
-    public void setTotalHours(BigDecimal totalHours) {
+    public void setTotalHours(Hours totalHours) {
         this.totalHours = totalHours;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -1,7 +1,6 @@
 package ca.bcit.infosys.liangk.entity;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 /**
@@ -12,8 +11,11 @@ import java.time.LocalDate;
 @Table(name = "timesheet_entries")
 public class TimesheetEntry {
 
+    // Pooled table allocation instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "timesheet_entry_ids")
+    @TableGenerator(name = "timesheet_entry_ids", table = "id_sequences", pkColumnName = "seq_name",
+            valueColumnName = "next_val", pkColumnValue = "timesheet_entries", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -30,7 +32,7 @@ public class TimesheetEntry {
     private String taskCode;
 
     @Column(nullable = false, precision = 4, scale = 2)
-    private BigDecimal hours;
+    private Hours hours;
 
     @Column(length = 255)
     private String description;
@@ -75,11 +77,11 @@ public class TimesheetEntry {
         this.taskCode = taskCode;
     }
 
-    public BigDecimal getHours() {
+    public Hours getHours() {
         return hours;
     }
 
-    public void setHours(BigDecimal hours) {
+    public void setHours(Hours hours) {
         this.hours = hours;
     }
 
@@ -1,5 +1,6 @@
 package ca.bcit.infosys.liangk.exception;
 
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.ExceptionMapper;
@@ -19,14 +20,13 @@ public class AppExceptionMapper implements ExceptionMapper<AppException> {
      */
     @Override
     public Response toResponse(AppException exception) {
-        ErrorResponse payload = new ErrorResponse(
-                exception.getErrorCode(),
-                exception.getMessage(),
-                exception.getStatusCode()
-        );
-        return Response.status(exception.getStatusCode())
+        ErrorResponse payload = ErrorResponse.of(exception);
+        Response.ResponseBuilder builder = Response.status(exception.getStatusCode())
                 .type(MediaType.APPLICATION_JSON_TYPE)
-                .entity(payload)
-                .build();
+                .entity(payload);
+        if (exception instanceof TooManyRequestsException tooMany) {
+            builder.header(HttpHeaders.RETRY_AFTER, tooMany.getRetryAfterSeconds());
+        }
+        return builder.build();
     }
 }
@@ -0,0 +1,13 @@
+package ca.bcit.infosys.liangk.exception;
+
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Exception indicating that the request conflicts with the current state of the resource, such
+ * as a change to a timesheet that has been approved.
+ */
+public class ConflictException extends AppException {
+    public ConflictException(String message) {
+        super(Response.Status.CONFLICT.getStatusCode(), "CONFLICT", message);
+    }
+}
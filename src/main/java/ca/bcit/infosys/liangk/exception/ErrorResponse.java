@@ -1,17 +1,34 @@
 package ca.bcit.infosys.liangk.exception;
 
+import java.util.List;
+
 /**
  * Simple error response payload serialized as JSON by the JAX-RS provider.
+ * {@code details} lists individual validation violations and is omitted when there are none.
  */
 public class ErrorResponse {
     private final String error;
     private final String message;
     private final int status;
+    private final List<Violation> details;
 
     public ErrorResponse(String error, String message, int status) {
+        this(error, message, status, null);
+    }
+
+    public ErrorResponse(String error, String message, int status, List<Violation> details) {
         this.error = error;
         this.message = message;
         this.status = status;
+        this.details = (details == null || details.isEmpty()) ? null : details;
+    }
+
+    /**
+     * Builds the payload for an application exception, including validation details if any.
+     */
+    public static ErrorResponse of(AppException exception) {
+        List<Violation> details = exception instanceof ValidationException v ? v.getViolations() : null;
+        return new ErrorResponse(exception.getErrorCode(), exception.getMessage(), exception.getStatusCode(), details);
     }
 
     public String getError() {
@@ -25,4 +42,8 @@ public class ErrorResponse {
     public int getStatus() {
         return status;
     }
+
+    public List<Violation> getDetails() {
+        return details;
+    }
 }
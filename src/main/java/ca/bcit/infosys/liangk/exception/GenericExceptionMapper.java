@@ -2,9 +2,11 @@ package ca.bcit.infosys.liangk.exception;
 
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ejb.EJBException;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
+import org.hibernate.StaleStateException;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -16,6 +18,8 @@ import java.util.logging.Logger;
  * - Unwraps EJBException (common on WildFly) to expose the actual cause.
  * - If the cause is an AppException, returns a structured payload with its status.
  * - If it's a WebApplicationException, returns its provided response.
+ * - If an optimistic lock check failed anywhere in the cause chain, returns 409 so the client
+ *   can reload and retry.
  * - Otherwise, logs the error and returns HTTP 500 with a generic message.
  */
 @Provider
@@ -40,11 +44,7 @@ public class GenericExceptionMapper implements ExceptionMapper<Throwable> {
         // 2. If the unwrapped cause is one of our AppExceptions, delegate to logic consistent with AppExceptionMapper
         if (cause instanceof AppException) {
             AppException appEx = (AppException) cause;
-            ErrorResponse payload = new ErrorResponse(
-                    appEx.getErrorCode(),
-                    appEx.getMessage(),
-                    appEx.getStatusCode()
-            );
+            ErrorResponse payload = ErrorResponse.of(appEx);
             return Response.status(appEx.getStatusCode())
                     .type(MediaType.APPLICATION_JSON_TYPE)
                     .entity(payload)
@@ -56,7 +56,22 @@ public class GenericExceptionMapper implements ExceptionMapper<Throwable> {
             return ((jakarta.ws.rs.WebApplicationException) cause).getResponse();
         }
 
-        // 4. Fallback for truly unexpected errors
+        // 4. A concurrent writer bumped the version between our read and our write
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockException || t instanceof StaleStateException) {
+                ErrorResponse payload = new ErrorResponse(
+                        "CONFLICT",
+                        "The resource was modified concurrently; reload it and retry",
+                        Response.Status.CONFLICT.getStatusCode()
+                );
+                return Response.status(Response.Status.CONFLICT)
+                        .type(MediaType.APPLICATION_JSON_TYPE)
+                        .entity(payload)
+                        .build();
+            }
+        }
+
+        // 5. Fallback for truly unexpected errors
         LOGGER.log(Level.SEVERE, "Uncaught exception: " + cause.getMessage(), cause);
         
         ErrorResponse payload = new ErrorResponse(
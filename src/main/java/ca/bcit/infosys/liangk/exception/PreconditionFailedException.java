@@ -0,0 +1,13 @@
+package ca.bcit.infosys.liangk.exception;
+
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Exception indicating that a conditional request ({@code If-Match}) named a version of the
+ * resource that is no longer current.
+ */
+public class PreconditionFailedException extends AppException {
+    public PreconditionFailedException(String message) {
+        super(Response.Status.PRECONDITION_FAILED.getStatusCode(), "PRECONDITION_FAILED", message);
+    }
+}
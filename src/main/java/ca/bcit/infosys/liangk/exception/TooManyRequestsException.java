@@ -0,0 +1,20 @@
+package ca.bcit.infosys.liangk.exception;
+
+/**
+ * Exception indicating that the caller exceeded a rate limit; rendered as 429 with {@code Retry-After}.
+ */
+public class TooManyRequestsException extends AppException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(429, "TOO_MANY_REQUESTS", message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Returns the number of whole seconds after which the request may be retried.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
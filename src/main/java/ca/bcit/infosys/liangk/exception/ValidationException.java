@@ -2,11 +2,47 @@ package ca.bcit.infosys.liangk.exception;
 
 import jakarta.ws.rs.core.Response;
 
+import java.util.List;
+
 /**
  * Exception indicating that the client has provided invalid input parameters or payload.
+ * May carry every {@link Violation} found in the payload so clients can fix them in one round trip.
  */
 public class ValidationException extends AppException {
+    private final List<Violation> violations;
+
     public ValidationException(String message) {
         super(Response.Status.BAD_REQUEST.getStatusCode(), "VALIDATION_ERROR", message);
+        this.violations = List.of();
+    }
+
+    /**
+     * Constructs an exception reporting all of the given violations; the message joins them,
+     * each prefixed with its field when there is more than one.
+     *
+     * @param violations at least one violation
+     */
+    public ValidationException(List<Violation> violations) {
+        super(Response.Status.BAD_REQUEST.getStatusCode(), "VALIDATION_ERROR", join(violations));
+        this.violations = List.copyOf(violations);
+    }
+
+    /**
+     * Returns the individual violations, or an empty list if only a message was given.
+     */
+    public List<Violation> getViolations() {
+        return violations;
+    }
+
+    private static String join(List<Violation> violations) {
+        if (violations.size() == 1) return violations.get(0).message();
+        StringBuilder sb = new StringBuilder().append(violations.size()).append(" validation errors: ");
+        for (int i = 0; i < violations.size(); i++) {
+            if (i > 0) sb.append("; ");
+            Violation v = violations.get(i);
+            if (v.field() != null) sb.append(v.field()).append(": ");
+            sb.append(v.message());
+        }
+        return sb.toString();
     }
 }
@@ -0,0 +1,10 @@
+package ca.bcit.infosys.liangk.exception;
+
+/**
+ * One failed validation rule, reported in {@link ErrorResponse#getDetails()}.
+ *
+ * @param field   path of the offending field, e.g. {@code entries[2].hours}
+ * @param message human-readable reason
+ */
+public record Violation(String field, String message) {
+}
@@ -0,0 +1,257 @@
+package ca.bcit.infosys.liangk.rest;
+
+import ca.bcit.infosys.liangk.dao.TimesheetSearchRow;
+import ca.bcit.infosys.liangk.dto.HoursTotalDTO;
+import ca.bcit.infosys.liangk.dto.ImportReport;
+import ca.bcit.infosys.liangk.dto.TimesheetSummaryDTO;
+import ca.bcit.infosys.liangk.entity.UserRole;
+import ca.bcit.infosys.liangk.exception.ForbiddenException;
+import ca.bcit.infosys.liangk.security.AuthPrincipal;
+import ca.bcit.infosys.liangk.security.CurrentUserHolder;
+import ca.bcit.infosys.liangk.security.NegativeTokenCache;
+import ca.bcit.infosys.liangk.security.RateLimiter;
+import ca.bcit.infosys.liangk.security.TokenCache;
+import ca.bcit.infosys.liangk.security.TokenGenerator;
+import ca.bcit.infosys.liangk.security.TokenRevocationList;
+import ca.bcit.infosys.liangk.security.UsernameFilter;
+import ca.bcit.infosys.liangk.service.EntryWriteMetrics;
+import ca.bcit.infosys.liangk.service.HoursCube;
+import ca.bcit.infosys.liangk.service.HoursReportService;
+import ca.bcit.infosys.liangk.service.SessionRenewer;
+import ca.bcit.infosys.liangk.service.TimesheetExportService;
+import ca.bcit.infosys.liangk.service.TimesheetImportReader;
+import ca.bcit.infosys.liangk.service.TimesheetImportService;
+import ca.bcit.infosys.liangk.service.TimesheetService;
+import ca.bcit.infosys.liangk.service.TokenInsertBatcher;
+import ca.bcit.infosys.liangk.service.TokenReaper;
+import ca.bcit.infosys.liangk.util.Mapper;
+import ca.bcit.infosys.liangk.util.Page;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Administrative and operational endpoints. Restricted to ADMIN role.
+ */
+@Path("/admin")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class AdminResource {
+
+    @Inject
+    private TokenCache tokenCache;
+
+    @Inject
+    private TokenRevocationList revocationList;
+
+    @Inject
+    private TokenReaper tokenReaper;
+
+    @Inject
+    private TokenGenerator tokenGenerator;
+
+    @Inject
+    private TokenInsertBatcher tokenInsertBatcher;
+
+    @Inject
+    private NegativeTokenCache negativeTokenCache;
+
+    @Inject
+    private UsernameFilter usernameFilter;
+
+    @Inject
+    private RateLimiter rateLimiter;
+
+    @Inject
+    private SessionRenewer sessionRenewer;
+
+    @Inject
+    private EntryWriteMetrics entryWriteMetrics;
+
+    @Inject
+    private TimesheetImportService timesheetImportService;
+
+    @Inject
+    private TimesheetExportService timesheetExportService;
+
+    @Inject
+    private HoursReportService hoursReportService;
+
+    @Inject
+    private HoursCube hoursCube;
+
+    @Inject
+    private TimesheetService timesheetService;
+
+    @Inject
+    private CurrentUserHolder currentUserHolder;
+
+    private void ensureAdmin() {
+        AuthPrincipal current = currentUserHolder.getPrincipal();
+        if (current == null || current.role() != UserRole.ADMIN) {
+            throw new ForbiddenException("Admin privileges required");
+        }
+    }
+
+    /**
+     * Returns runtime counters of in-process caches and background jobs, keyed by component. ADMIN only.
+     */
+    @GET
+    @Path("/metrics")
+    public Map<String, Map<String, Long>> metrics() {
+        ensureAdmin();
+        Map<String, Map<String, Long>> metrics = new LinkedHashMap<>();
+        metrics.put("authTokenCache", tokenCache.stats());
+        metrics.put("tokenRevocation", revocationList.stats());
+        metrics.put("tokenReaper", tokenReaper.stats());
+        metrics.put("tokenGenerator", tokenGenerator.stats());
+        metrics.put("tokenGroupCommit", tokenInsertBatcher.stats());
+        metrics.put("negativeTokenCache", negativeTokenCache.stats());
+        metrics.put("usernameFilter", usernameFilter.stats());
+        metrics.put("rateLimiter", rateLimiter.stats());
+        metrics.put("sessionRenewal", sessionRenewer.stats());
+        metrics.put("timesheetEntryWrites", entryWriteMetrics.stats());
+        metrics.put("hoursCube", hoursCube.stats());
+        return metrics;
+    }
+
+    /**
+     * Bulk-imports timesheets from an NDJSON or CSV body, streamed rather than buffered. See
+     * {@link TimesheetImportReader} for the formats. Rows that fail validation or conflict with an
+     * existing timesheet are skipped and listed in the report. ADMIN only.
+     *
+     * @param contentType {@code application/x-ndjson} or {@code text/csv}
+     * @param body        request body
+     * @return counts and per-row errors
+     */
+    @POST
+    @Path("/import/timesheets")
+    @Consumes({TimesheetImportReader.NDJSON, TimesheetImportReader.CSV})
+    public ImportReport importTimesheets(@HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        ensureAdmin();
+        return timesheetImportService.importTimesheets(TimesheetImportReader.open(contentType, body));
+    }
+
+    /**
+     * Searches the timesheets of all users, newest week first, by status, week start range
+     * (yyyy-MM-dd, inclusive), owner username and project code; every filter is optional. Results
+     * carry the owner's display fields but not the entries. Pages hold {@code limit} timesheets
+     * (default {@link TimesheetService#DEFAULT_PAGE_SIZE}); the cursor for the next page is returned
+     * in the {@code X-Next-Cursor} header and as a {@code Link} with {@code rel="next"}. ADMIN only.
+     */
+    @GET
+    @Path("/timesheets")
+    public Response searchTimesheets(@QueryParam("status") String status,
+                                     @QueryParam("from") String from,
+                                     @QueryParam("to") String to,
+                                     @QueryParam("username") String username,
+                                     @QueryParam("projectCode") String projectCode,
+                                     @QueryParam("limit") Integer limit,
+                                     @QueryParam("after") String after,
+                                     @Context UriInfo uriInfo) {
+        ensureAdmin();
+        int pageSize = limit != null ? limit : TimesheetService.DEFAULT_PAGE_SIZE;
+        Page<TimesheetSearchRow> page = timesheetService.searchTimesheets(currentUserHolder.getPrincipal(),
+                status, from, to, username, projectCode, pageSize, after);
+        List<TimesheetSummaryDTO> body = page.items().stream().map(Mapper::toTimesheetSummaryDTO).toList();
+        Response.ResponseBuilder rb = Response.ok(body);
+        if (page.nextCursor() != null) {
+            URI next = uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("limit", pageSize)
+                    .replaceQueryParam("after", page.nextCursor())
+                    .build();
+            rb.header(TimesheetResource.NEXT_CURSOR_HEADER, page.nextCursor()).link(next, "next");
+        }
+        return rb.build();
+    }
+
+    /**
+     * Deletes timesheets in bulk, either those listed by repeated {@code id} parameters or those of
+     * {@code username} whose week starts within {@code [from, to]} (yyyy-MM-dd, inclusive). Each
+     * request runs one DELETE statement; entries are removed by the database cascade. ADMIN only.
+     *
+     * @return {@code {"deleted": n}}
+     */
+    @DELETE
+    @Path("/timesheets")
+    public Map<String, Integer> deleteTimesheets(@QueryParam("id") List<Long> ids,
+                                                 @QueryParam("username") String username,
+                                                 @QueryParam("from") String from,
+                                                 @QueryParam("to") String to) {
+        ensureAdmin();
+        int deleted = timesheetService.deleteTimesheets(currentUserHolder.getPrincipal(), ids, username, from, to);
+        return Map.of("deleted", deleted);
+    }
+
+    /**
+     * Streams every timesheet whose week starts within {@code [from, to]} (yyyy-MM-dd, inclusive),
+     * with its entries, as NDJSON. The body is written as rows are read, so its size is not
+     * limited by memory; the format is accepted by the import endpoint. ADMIN only.
+     */
+    @GET
+    @Path("/timesheets/export")
+    @Produces(TimesheetImportReader.NDJSON)
+    public Response exportTimesheets(@QueryParam("from") String from, @QueryParam("to") String to) {
+        ensureAdmin();
+        TimesheetExportService.Range range = timesheetExportService.parseRange(from, to);
+        StreamingOutput body = out -> timesheetExportService.export(range, out);
+        return Response.ok(body)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"timesheets-" + range.from() + "-to-" + range.to() + ".ndjson\"")
+                .build();
+    }
+
+    /**
+     * Reports total hours per project and week for weeks starting within {@code [from, to]}
+     * (yyyy-MM-dd, inclusive), optionally for one project. With {@code groupBy=user} each user's
+     * hours are listed separately. Served from the hours rollup table. ADMIN only.
+     */
+    @GET
+    @Path("/reports/hours")
+    public List<HoursTotalDTO> hoursReport(@QueryParam("from") String from,
+                                           @QueryParam("to") String to,
+                                           @QueryParam("projectCode") String projectCode,
+                                           @QueryParam("groupBy") String groupBy) {
+        ensureAdmin();
+        return hoursReportService.hoursByProjectAndWeek(from, to, projectCode, groupBy).stream()
+                .map(Mapper::toHoursTotalDTO)
+                .toList();
+    }
+
+    /**
+     * Breaks down total hours for weeks starting within {@code [from, to]} (yyyy-MM-dd, inclusive)
+     * by any mix of {@code user}, {@code project} and {@code week} (default {@code project,week}),
+     * optionally for one project or user. Served from memory for dashboards; may lag writes on
+     * other nodes by a few minutes. ADMIN only.
+     */
+    @GET
+    @Path("/analytics/hours")
+    public List<HoursTotalDTO> hoursAnalytics(@QueryParam("from") String from,
+                                              @QueryParam("to") String to,
+                                              @QueryParam("projectCode") String projectCode,
+                                              @QueryParam("username") String username,
+                                              @QueryParam("groupBy") String groupBy) {
+        ensureAdmin();
+        return hoursReportService.hoursBreakdown(from, to, projectCode, username, groupBy).stream()
+                .map(Mapper::toHoursTotalDTO)
+                .toList();
+    }
+}
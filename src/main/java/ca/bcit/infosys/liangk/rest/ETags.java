@@ -0,0 +1,67 @@
+package ca.bcit.infosys.liangk.rest;
+
+import ca.bcit.infosys.liangk.dao.TimesheetListRow;
+import ca.bcit.infosys.liangk.dao.TimesheetVersion;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Builds timesheet ETag values (the opaque part, without quotes) from optimistic lock versions. A single timesheet's tag is its version; a
+ * list's tag is a 64-bit FNV-1a hash of the listed (id, version) pairs in order, so it changes when
+ * any listed timesheet changes, is added or is removed.
+ */
+final class ETags {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ETags() {}
+
+    /**
+     * Returns the tag value of a timesheet at the given version.
+     */
+    static String of(long version) {
+        return Long.toString(version);
+    }
+
+    /**
+     * Returns the tag value of a list from its ids and versions, in list order.
+     */
+    static String ofVersions(List<TimesheetVersion> versions) {
+        long h = FNV_OFFSET;
+        for (TimesheetVersion v : versions) {
+            h = mix(mix(h, v.id()), v.version());
+        }
+        return list(h, versions.size());
+    }
+
+    /**
+     * Returns the tag value of a list from the rows it is written from; equal to {@link #ofVersions} for
+     * the same timesheets.
+     */
+    static String ofRows(List<TimesheetListRow> rows) {
+        long h = FNV_OFFSET;
+        int count = 0;
+        Long previous = null;
+        for (TimesheetListRow r : rows) {
+            if (Objects.equals(r.timesheetId(), previous)) continue;
+            previous = r.timesheetId();
+            h = mix(mix(h, r.timesheetId()), r.version());
+            count++;
+        }
+        return list(h, count);
+    }
+
+    private static String list(long hash, int count) {
+        return count + "-" + Long.toHexString(hash);
+    }
+
+    private static long mix(long h, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            h = (h ^ (value & 0xff)) * FNV_PRIME;
+            value >>>= 8;
+        }
+        return h;
+    }
+}
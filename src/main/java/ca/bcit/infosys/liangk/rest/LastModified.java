@@ -0,0 +1,65 @@
+package ca.bcit.infosys.liangk.rest;
+
+import ca.bcit.infosys.liangk.dao.TimesheetListRow;
+import ca.bcit.infosys.liangk.dao.TimesheetVersion;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Builds {@code Last-Modified} values from timesheet {@code updated_at} times. A list's value is the
+ * latest time among the listed timesheets.
+ * <p>
+ * HTTP dates have whole-second precision, so a time within the current second yields no value: a
+ * second change in the same second would carry the same date, and {@code If-Modified-Since} would
+ * hide it.
+ */
+final class LastModified {
+
+    private LastModified() {}
+
+    /**
+     * Returns the value for a timesheet changed at {@code updatedAt}, or null if there is none yet.
+     */
+    static Date of(LocalDateTime updatedAt) {
+        return of(updatedAt, LocalDateTime.now());
+    }
+
+    /**
+     * Returns the value for a list from its versions, or null if there is none yet.
+     */
+    static Date ofVersions(List<TimesheetVersion> versions) {
+        LocalDateTime latest = null;
+        for (TimesheetVersion v : versions) {
+            latest = later(latest, v.updatedAt());
+        }
+        return of(latest);
+    }
+
+    /**
+     * Returns the value for a list from the rows it is written from; equal to {@link #ofVersions}
+     * for the same timesheets.
+     */
+    static Date ofRows(List<TimesheetListRow> rows) {
+        LocalDateTime latest = null;
+        for (TimesheetListRow r : rows) {
+            latest = later(latest, r.updatedAt());
+        }
+        return of(latest);
+    }
+
+    static Date of(LocalDateTime updatedAt, LocalDateTime now) {
+        if (updatedAt == null) return null;
+        LocalDateTime second = updatedAt.truncatedTo(ChronoUnit.SECONDS);
+        if (second.plusSeconds(1).isAfter(now)) return null;
+        return Date.from(second.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b;
+        return b == null || !b.isAfter(a) ? a : b;
+    }
+}
@@ -0,0 +1,14 @@
+package ca.bcit.infosys.liangk.rest;
+
+import ca.bcit.infosys.liangk.dao.TimesheetListRow;
+
+import java.util.List;
+
+/**
+ * Response body of a timesheet list, written by {@link TimesheetListJsonWriter} straight from
+ * query rows.
+ *
+ * @param rows timesheet/entry rows, those of one timesheet adjacent
+ */
+public record TimesheetListJson(List<TimesheetListRow> rows) {
+}
@@ -0,0 +1,110 @@
+package ca.bcit.infosys.liangk.rest;
+
+import ca.bcit.infosys.liangk.dao.TimesheetListRow;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes {@link TimesheetListJson} as a JSON array of timesheets with a JSON-P generator, without
+ * building entities or DTOs in between.
+ * <p>
+ * The output is identical to JSON-B's serialization of the equivalent {@code TimesheetDTO} list:
+ * properties in lexicographic order, null properties omitted, and an {@code entries} array on
+ * every timesheet. Keep the two in step when {@code TimesheetDTO} or {@code TimesheetEntryDTO}
+ * changes.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class TimesheetListJsonWriter implements MessageBodyWriter<TimesheetListJson> {
+
+    private static final JsonGeneratorFactory JSON = Json.createGeneratorFactory(Map.of());
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == TimesheetListJson.class;
+    }
+
+    @Override
+    public void writeTo(TimesheetListJson body, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream out) {
+        try (JsonGenerator g = JSON.createGenerator(new NonClosingOutputStream(out))) {
+            write(body.rows(), g);
+        }
+    }
+
+    /**
+     * Writes the rows as an array of timesheet objects.
+     *
+     * @param rows rows with those of one timesheet adjacent
+     * @param g    generator positioned where a value may start
+     */
+    public static void write(List<TimesheetListRow> rows, JsonGenerator g) {
+        g.writeStartArray();
+        TimesheetListRow open = null;
+        for (TimesheetListRow r : rows) {
+            if (open == null || !Objects.equals(r.timesheetId(), open.timesheetId())) {
+                if (open != null) endTimesheet(open, g);
+                open = r;
+                // "entries" sorts first, so the array is opened before any scalar property
+                g.writeStartObject().writeStartArray("entries");
+            }
+            if (r.entryId() != null) {
+                g.writeStartObject();
+                writeIfPresent(g, "description", r.description());
+                if (r.hours() != null) g.write("hours", r.hours().toBigDecimal());
+                g.write("id", r.entryId());
+                writeIfPresent(g, "projectCode", r.projectCode());
+                writeIfPresent(g, "taskCode", r.taskCode());
+                if (r.workDate() != null) g.write("workDate", r.workDate().toString());
+                g.writeEnd();
+            }
+        }
+        if (open != null) endTimesheet(open, g);
+        g.writeEnd();
+    }
+
+    private static void endTimesheet(TimesheetListRow t, JsonGenerator g) {
+        g.writeEnd();
+        if (t.timesheetId() != null) g.write("id", t.timesheetId());
+        if (t.status() != null) g.write("status", t.status().name());
+        if (t.totalHours() != null) g.write("totalHours", t.totalHours().toBigDecimal());
+        if (t.weekStart() != null) g.write("weekStart", t.weekStart().toString());
+        g.writeEnd();
+    }
+
+    private static void writeIfPresent(JsonGenerator g, String name, String value) {
+        if (value != null) g.write(name, value);
+    }
+
+    // The container owns the entity stream; closing the generator must only flush it
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
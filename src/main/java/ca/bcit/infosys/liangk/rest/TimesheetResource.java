@@ -1,20 +1,34 @@
 package ca.bcit.infosys.liangk.rest;
 
+import ca.bcit.infosys.liangk.dao.TimesheetHeader;
+import ca.bcit.infosys.liangk.dao.TimesheetListRow;
+import ca.bcit.infosys.liangk.dao.TimesheetVersion;
 import ca.bcit.infosys.liangk.dto.TimesheetDTO;
+import ca.bcit.infosys.liangk.dto.TimesheetEntryDTO;
 import ca.bcit.infosys.liangk.entity.Timesheet;
-import ca.bcit.infosys.liangk.entity.User;
+import ca.bcit.infosys.liangk.entity.TimesheetEntry;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+import ca.bcit.infosys.liangk.exception.PreconditionFailedException;
+import ca.bcit.infosys.liangk.security.AuthPrincipal;
 import ca.bcit.infosys.liangk.security.CurrentUserHolder;
 import ca.bcit.infosys.liangk.service.TimesheetService;
+import ca.bcit.infosys.liangk.util.AppConfig;
 import ca.bcit.infosys.liangk.util.Mapper;
+import ca.bcit.infosys.liangk.util.Page;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.CacheControl;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 
 import java.net.URI;
 import java.time.LocalDate;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -22,43 +36,165 @@ import java.util.stream.Collectors;
 /**
  * Timesheet REST endpoints for listing, retrieving, creating, updating and deleting timesheets
  * for the authenticated user (or by admins, as enforced in the service layer).
+ * <p>
+ * Reads carry an ETag derived from the timesheet version (see {@link ETags}) and a
+ * {@code Last-Modified} date from its {@code updated_at} (see {@link LastModified}), and answer
+ * {@code If-None-Match} with 304 after a version-only query. A single timesheet also answers
+ * {@code If-Modified-Since}; lists do not, since removing a timesheet leaves the latest date of the
+ * rest unchanged. {@code PUT} and {@code DELETE} honour
+ * {@code If-Match} and fail with 412 if the timesheet has changed. Responses are private and
+ * revalidated on every use, except that APPROVED timesheets, which the service refuses to change,
+ * may be reused for {@code timesheets.http.approvedMaxAgeSeconds} (default 86400).
  */
 @Path("/timesheets")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
 public class TimesheetResource {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int APPROVED_MAX_AGE_SECONDS =
+            AppConfig.getInt("timesheets.http.approvedMaxAgeSeconds", 86_400);
+
     @Inject
     private TimesheetService timesheetService;
 
     @Inject
     private CurrentUserHolder currentUserHolder;
 
-    private User current() {
-        return currentUserHolder.getUser();
+    private AuthPrincipal current() {
+        return currentUserHolder.getPrincipal();
+    }
+
+    private static Optional<LocalDate> weekFilter(String weekStart) {
+        if (weekStart == null || weekStart.isBlank()) return Optional.empty();
+        return Optional.of(LocalDate.parse(weekStart));
+    }
+
+    private static CacheControl cacheControl(TimesheetStatus status) {
+        CacheControl cc = new CacheControl();
+        cc.setPrivate(true);
+        if (status == TimesheetStatus.APPROVED) {
+            cc.setMaxAge(APPROVED_MAX_AGE_SECONDS);
+        } else {
+            cc.setNoCache(true);
+        }
+        return cc;
+    }
+
+    // Resolves If-Match to the version the write must find, or null if the request is unconditional
+    private Long expectedVersion(long id, String ifMatch, Request request) {
+        if (ifMatch == null) return null;
+        TimesheetHeader header = timesheetService.getTimesheetHeader(current(), id);
+        if (request.evaluatePreconditions(new EntityTag(ETags.of(header.version()))) != null) {
+            throw new PreconditionFailedException("Timesheet " + id + " has changed since it was read");
+        }
+        return header.version();
+    }
+
+    // If-Modified-Since counts only when the client sent no If-None-Match, so a tag, when present, decides alone
+    private static Response.ResponseBuilder notModified(Request request, String ifNoneMatch, EntityTag tag,
+                                                        Date lastModified) {
+        if (ifNoneMatch != null) return request.evaluatePreconditions(tag);
+        return lastModified == null ? null : request.evaluatePreconditions(lastModified, tag);
+    }
+
+    /**
+     * Test-friendly variant for unit tests to bypass Response building; lists without paging.
+     */
+    List<TimesheetDTO> list(String weekStart) {
+        List<Timesheet> ts = timesheetService.listTimesheets(current(), weekFilter(weekStart));
+        return ts.stream().map(Mapper::toTimesheetDTO).collect(Collectors.toList());
     }
 
     /**
-     * Lists timesheets for the current user. Optional filter on weekStart (yyyy-MM-dd).
+     * Lists timesheets for the current user, newest week first. Optional filter on weekStart
+     * (yyyy-MM-dd). Passing {@code limit} and/or {@code after} pages through the list; the cursor
+     * for the next page is returned in the {@code X-Next-Cursor} header and as a {@code Link}
+     * with {@code rel="next"}. Without either parameter the full list is returned. The body is
+     * written from query rows by {@link TimesheetListJsonWriter}.
      */
     @GET
-    public List<TimesheetDTO> list(@QueryParam("weekStart") String weekStart) {
-        Optional<LocalDate> weekOpt = Optional.empty();
-        if (weekStart != null && !weekStart.isBlank()) {
-            weekOpt = Optional.of(LocalDate.parse(weekStart));
+    public Response list(@QueryParam("weekStart") String weekStart,
+                         @QueryParam("limit") Integer limit,
+                         @QueryParam("after") String after,
+                         @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                         @Context Request request,
+                         @Context UriInfo uriInfo) {
+        CacheControl revalidate = cacheControl(null); // lists may mix statuses, so always revalidate
+        boolean paged = limit != null || (after != null && !after.isBlank());
+        if (!paged || (weekStart != null && !weekStart.isBlank())) {
+            if (ifNoneMatch != null) {
+                List<TimesheetVersion> versions = timesheetService.listTimesheetVersions(current(), weekFilter(weekStart));
+                EntityTag tag = new EntityTag(ETags.ofVersions(versions));
+                Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+                if (notModified != null) {
+                    return notModified.tag(tag).lastModified(LastModified.ofVersions(versions)).cacheControl(revalidate).build();
+                }
+            }
+            List<TimesheetListRow> rows = timesheetService.listTimesheetRows(current(), weekFilter(weekStart));
+            return Response.ok(new TimesheetListJson(rows))
+                    .tag(new EntityTag(ETags.ofRows(rows)))
+                    .lastModified(LastModified.ofRows(rows))
+                    .cacheControl(revalidate)
+                    .build();
         }
-        List<Timesheet> ts = timesheetService.listTimesheets(current(), weekOpt);
-        return ts.stream().map(Mapper::toTimesheetDTO).collect(Collectors.toList());
+        int pageSize = limit != null ? limit : TimesheetService.DEFAULT_PAGE_SIZE;
+        if (ifNoneMatch != null) {
+            List<TimesheetVersion> versions = timesheetService.listTimesheetVersionsPage(current(), pageSize, after).items();
+            EntityTag tag = new EntityTag(ETags.ofVersions(versions));
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+            if (notModified != null) {
+                return notModified.tag(tag).lastModified(LastModified.ofVersions(versions)).cacheControl(revalidate).build();
+            }
+        }
+        Page<TimesheetListRow> page = timesheetService.listTimesheetRowsPage(current(), pageSize, after);
+        Response.ResponseBuilder rb = Response.ok(new TimesheetListJson(page.items()))
+                .tag(new EntityTag(ETags.ofRows(page.items())))
+                .lastModified(LastModified.ofRows(page.items()))
+                .cacheControl(revalidate);
+        if (page.nextCursor() != null) {
+            URI next = uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("limit", pageSize)
+                    .replaceQueryParam("after", page.nextCursor())
+                    .build();
+            rb.header(NEXT_CURSOR_HEADER, page.nextCursor()).link(next, "next");
+        }
+        return rb.build();
+    }
+
+    /**
+     * Test-friendly variant for unit tests to bypass Response building.
+     */
+    TimesheetDTO get(long id) {
+        return Mapper.toTimesheetDTO(timesheetService.getTimesheet(current(), id));
     }
 
     /**
-     * Retrieves a single timesheet by id.
+     * Retrieves a single timesheet by id. If {@code If-None-Match} names the current version, or
+     * without it, {@code If-Modified-Since} is not before the last change, answers 304 without
+     * loading the entries.
      */
     @GET
     @Path("/{id}")
-    public TimesheetDTO get(@PathParam("id") long id) {
+    public Response get(@PathParam("id") long id,
+                        @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                        @HeaderParam(HttpHeaders.IF_MODIFIED_SINCE) String ifModifiedSince,
+                        @Context Request request) {
+        if (ifNoneMatch != null || ifModifiedSince != null) {
+            TimesheetHeader header = timesheetService.getTimesheetHeader(current(), id);
+            EntityTag tag = new EntityTag(ETags.of(header.version()));
+            Date lastModified = LastModified.of(header.updatedAt());
+            Response.ResponseBuilder notModified = notModified(request, ifNoneMatch, tag, lastModified);
+            if (notModified != null) {
+                return notModified.tag(tag).lastModified(lastModified).cacheControl(cacheControl(header.status())).build();
+            }
+        }
         Timesheet t = timesheetService.getTimesheet(current(), id);
-        return Mapper.toTimesheetDTO(t);
+        return Response.ok(Mapper.toTimesheetDTO(t))
+                .tag(new EntityTag(ETags.of(t.getVersion())))
+                .lastModified(LastModified.of(t.getUpdatedAt()))
+                .cacheControl(cacheControl(t.getStatus()))
+                .build();
     }
 
     /**
@@ -68,26 +204,67 @@ public class TimesheetResource {
     public Response create(TimesheetDTO dto, @Context UriInfo uriInfo) {
         Timesheet created = timesheetService.createTimesheet(current(), dto);
         URI location = uriInfo.getAbsolutePathBuilder().path(String.valueOf(created.getId())).build();
-        return Response.created(location).entity(Mapper.toTimesheetDTO(created)).build();
+        return Response.created(location).entity(Mapper.toTimesheetDTO(created))
+                .tag(new EntityTag(ETags.of(created.getVersion())))
+                .build();
     }
 
     /**
-     * Updates an existing timesheet.
+     * Updates an existing timesheet; with {@code If-Match}, only if it is still at that version.
      */
     @PUT
     @Path("/{id}")
-    public TimesheetDTO update(@PathParam("id") long id, TimesheetDTO dto) {
-        Timesheet updated = timesheetService.updateTimesheet(current(), id, dto);
-        return Mapper.toTimesheetDTO(updated);
+    public Response update(@PathParam("id") long id,
+                           @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                           @Context Request request,
+                           TimesheetDTO dto) {
+        Timesheet updated = timesheetService.updateTimesheet(current(), id, dto, expectedVersion(id, ifMatch, request));
+        return Response.ok(Mapper.toTimesheetDTO(updated))
+                .tag(new EntityTag(ETags.of(updated.getVersion())))
+                .cacheControl(cacheControl(updated.getStatus()))
+                .build();
     }
 
     /**
-     * Deletes a timesheet.
+     * Deletes a timesheet; with {@code If-Match}, only if it is still at that version.
      */
     @DELETE
     @Path("/{id}")
-    public Response delete(@PathParam("id") long id) {
-        timesheetService.deleteTimesheet(current(), id);
+    public Response delete(@PathParam("id") long id,
+                           @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                           @Context Request request) {
+        timesheetService.deleteTimesheet(current(), id, expectedVersion(id, ifMatch, request));
+        return Response.noContent().build();
+    }
+
+    /**
+     * Adds a single entry to a timesheet.
+     */
+    @POST
+    @Path("/{id}/entries")
+    public Response addEntry(@PathParam("id") long id, TimesheetEntryDTO dto, @Context UriInfo uriInfo) {
+        TimesheetEntry created = timesheetService.addEntry(current(), id, dto);
+        URI location = uriInfo.getAbsolutePathBuilder().path(String.valueOf(created.getId())).build();
+        return Response.created(location).entity(Mapper.toTimesheetEntryDTO(created)).build();
+    }
+
+    /**
+     * Changes the provided fields of a single entry.
+     */
+    @PATCH
+    @Path("/{id}/entries/{entryId}")
+    public TimesheetEntryDTO patchEntry(@PathParam("id") long id, @PathParam("entryId") long entryId,
+                                        TimesheetEntryDTO dto) {
+        return Mapper.toTimesheetEntryDTO(timesheetService.patchEntry(current(), id, entryId, dto));
+    }
+
+    /**
+     * Deletes a single entry.
+     */
+    @DELETE
+    @Path("/{id}/entries/{entryId}")
+    public Response deleteEntry(@PathParam("id") long id, @PathParam("entryId") long entryId) {
+        timesheetService.deleteEntry(current(), id, entryId);
         return Response.noContent().build();
     }
 }
@@ -5,6 +5,7 @@ import ca.bcit.infosys.liangk.dto.UpdateUserRequest;
 import ca.bcit.infosys.liangk.dto.UserDTO;
 import ca.bcit.infosys.liangk.entity.User;
 import ca.bcit.infosys.liangk.entity.UserRole;
+import ca.bcit.infosys.liangk.security.AuthPrincipal;
 import ca.bcit.infosys.liangk.security.CurrentUserHolder;
 import ca.bcit.infosys.liangk.service.UserService;
 import ca.bcit.infosys.liangk.util.Mapper;
@@ -34,8 +35,8 @@ public class UserResource {
     private CurrentUserHolder currentUserHolder;
 
     private void ensureAdmin() {
-        User current = currentUserHolder.getUser();
-        if (current == null || current.getRole() != UserRole.ADMIN) {
+        AuthPrincipal current = currentUserHolder.getPrincipal();
+        if (current == null || current.role() != UserRole.ADMIN) {
             throw new ca.bcit.infosys.liangk.exception.ForbiddenException("Admin privileges required");
         }
     }
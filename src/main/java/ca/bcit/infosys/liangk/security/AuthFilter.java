@@ -1,6 +1,5 @@
 package ca.bcit.infosys.liangk.security;
 
-import ca.bcit.infosys.liangk.entity.User;
 import ca.bcit.infosys.liangk.exception.UnauthorizedException;
 import ca.bcit.infosys.liangk.service.AuthService;
 import jakarta.annotation.Priority;
@@ -34,7 +33,7 @@ public class AuthFilter implements ContainerRequestFilter {
     CurrentUserHolder currentUserHolder;
 
     /**
-     * Validates Authorization header for non-login requests and stores the authenticated user
+     * Validates Authorization header for non-login requests and stores the authenticated principal
      * into the request-scoped holder and request properties.
      *
      * @param requestContext container request context
@@ -69,11 +68,11 @@ public class AuthFilter implements ContainerRequestFilter {
             throw new UnauthorizedException("Token is empty");
         }
 
-        User user = authService.validateToken(token);
+        AuthPrincipal principal = authService.validateToken(token);
 
         // Store in request-scoped holder
-        currentUserHolder.setUser(user);
+        currentUserHolder.setPrincipal(principal);
         // Also make available via request properties for non-CDI lookups
-        requestContext.setProperty(REQ_PROP_CURRENT_USER, user);
+        requestContext.setProperty(REQ_PROP_CURRENT_USER, principal);
     }
 }
@@ -0,0 +1,17 @@
+package ca.bcit.infosys.liangk.security;
+
+import ca.bcit.infosys.liangk.entity.UserRole;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of the authorization-relevant state behind a bearer token.
+ *
+ * @param userId    id of the token owner
+ * @param username  username of the token owner
+ * @param role      role of the token owner
+ * @param active    whether the owning user account is active
+ * @param expiresAt token expiry
+ */
+public record AuthPrincipal(Long userId, String username, UserRole role, boolean active, LocalDateTime expiresAt) {
+}
@@ -1,28 +1,28 @@
 package ca.bcit.infosys.liangk.security;
 
-import ca.bcit.infosys.liangk.entity.User;
 import jakarta.enterprise.context.RequestScoped;
 
 /**
- * Request-scoped holder for the authenticated User placed by AuthFilter.
+ * Request-scoped holder for the authenticated principal placed by AuthFilter.
  * This enables injection of the current user into REST resources and services
- * without passing it explicitly through every method call.
+ * without passing it explicitly through every method call. Only the lightweight
+ * {@link AuthPrincipal} is held; code that needs the full User entity loads it itself.
  */
 @RequestScoped
 public class CurrentUserHolder {
-    private User user;
+    private AuthPrincipal principal;
 
     /**
-     * Returns the authenticated user associated with the current request, or null if not set.
+     * Returns the authenticated principal associated with the current request, or null if not set.
      */
-    public User getUser() {
-        return user;
+    public AuthPrincipal getPrincipal() {
+        return principal;
     }
 
     /**
-     * Sets the authenticated user for the current request context.
+     * Sets the authenticated principal for the current request context.
      */
-    public void setUser(User user) {
-        this.user = user;
+    public void setPrincipal(AuthPrincipal principal) {
+        this.principal = principal;
     }
 }
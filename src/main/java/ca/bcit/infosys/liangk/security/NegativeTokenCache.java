@@ -0,0 +1,120 @@
+package ca.bcit.infosys.liangk.security;
+
+import ca.bcit.infosys.liangk.util.AppConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived, bounded LRU of bearer tokens that recently failed validation, so repeated requests
+ * with the same bad token are rejected without a database lookup.
+ * <p>
+ * Only permanent rejections belong here: unknown, deactivated and expired tokens can never become
+ * valid again. Rejections caused by the owner's state (e.g. an inactive user) must not be cached.
+ * Oversized token strings are not cached so junk input cannot inflate memory use.
+ */
+@ApplicationScoped
+public class NegativeTokenCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final long DEFAULT_TTL_SECONDS = 30L;
+    private static final int MAX_TOKEN_LENGTH = 512;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Rejection> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public NegativeTokenCache() {
+        this(AppConfig.getInt("timesheets.auth.negativeCache.maxEntries", DEFAULT_MAX_ENTRIES),
+                AppConfig.getLong("timesheets.auth.negativeCache.ttlSeconds", DEFAULT_TTL_SECONDS) * 1000L);
+    }
+
+    /**
+     * Creates a cache with explicit limits. A non-positive size or TTL disables caching.
+     *
+     * @param maxEntries maximum number of remembered tokens
+     * @param ttlMillis  how long a rejection is remembered in milliseconds
+     */
+    public NegativeTokenCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Rejection> eldest) {
+                if (size() > NegativeTokenCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the remembered rejection message for the token, or null if it was not rejected recently.
+     *
+     * @param token bearer token
+     * @return rejection message or null
+     */
+    public String get(String token) {
+        if (!isEnabled() || token == null) return null;
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Rejection r = entries.get(token);
+            if (r == null || r.deadline <= now) {
+                if (r != null) entries.remove(token);
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return r.message;
+        }
+    }
+
+    /**
+     * Remembers that the token was permanently rejected with the given message.
+     *
+     * @param token   bearer token
+     * @param message message of the rejection to replay
+     */
+    public void put(String token, String message) {
+        if (!isEnabled() || token == null || token.length() > MAX_TOKEN_LENGTH) return;
+        Rejection r = new Rejection(message, System.currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            entries.put(token, r);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return ordered map of counter name to value
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", (long) entries.size());
+        }
+        long h = hits.sum();
+        long m = misses.sum();
+        stats.put("maxEntries", (long) maxEntries);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRatePercent", h + m == 0 ? 0L : h * 100L / (h + m));
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private boolean isEnabled() {
+        return maxEntries > 0 && ttlMillis > 0;
+    }
+
+    private record Rejection(String message, long deadline) {
+    }
+}
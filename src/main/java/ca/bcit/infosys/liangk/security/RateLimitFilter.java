@@ -0,0 +1,95 @@
+package ca.bcit.infosys.liangk.security;
+
+import ca.bcit.infosys.liangk.exception.TooManyRequestsException;
+import ca.bcit.infosys.liangk.util.AppConfig;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ContainerRequestFilter that throttles callers with {@link RateLimiter}. Runs right after
+ * {@link AuthFilter}: authenticated requests are limited per user id and route, the login endpoint
+ * per client address. Throttled requests fail with 429 and a {@code Retry-After} header.
+ * <p>
+ * The client address is the socket peer unless {@code timesheets.ratelimit.trustForwardedFor=true},
+ * in which case the first {@code X-Forwarded-For} entry is used; only enable that behind a proxy
+ * that overwrites the header.
+ */
+@Provider
+@Priority(Priorities.AUTHENTICATION + 1)
+public class RateLimitFilter implements ContainerRequestFilter {
+
+    private static final String HTTP_OPTIONS = "OPTIONS";
+    private static final String LOGIN_PATH = "auth/login";
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+    private static final boolean TRUST_FORWARDED_FOR =
+            AppConfig.getBoolean("timesheets.ratelimit.trustForwardedFor", false);
+
+    @Inject
+    RateLimiter rateLimiter;
+
+    @Context
+    HttpServletRequest servletRequest;
+
+    /**
+     * Takes a token for the request's route and caller, aborting the request when none is left.
+     *
+     * @param requestContext container request context
+     * @throws TooManyRequestsException if the caller is over the route's limit
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        if (HTTP_OPTIONS.equalsIgnoreCase(requestContext.getMethod())) {
+            return;
+        }
+        String path = requestContext.getUriInfo().getPath();
+        String normalized = path == null ? "" : (path.startsWith("/") ? path.substring(1) : path);
+
+        String route;
+        String caller;
+        Object principal = requestContext.getProperty(AuthFilter.REQ_PROP_CURRENT_USER);
+        if (normalized.startsWith(LOGIN_PATH)) {
+            route = RateLimiter.ROUTE_LOGIN;
+            caller = clientAddress(requestContext);
+        } else if (principal instanceof AuthPrincipal p) {
+            route = routeOf(normalized);
+            caller = String.valueOf(p.userId());
+        } else {
+            return; // AuthFilter rejects unauthenticated requests before this point
+        }
+
+        long waitNanos = rateLimiter.tryAcquire(route, caller);
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1L, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            throw new TooManyRequestsException("Rate limit exceeded; retry in " + retryAfter + "s", retryAfter);
+        }
+    }
+
+    private static String routeOf(String path) {
+        int slash = path.indexOf('/');
+        String first = slash < 0 ? path : path.substring(0, slash);
+        return switch (first) {
+            case RateLimiter.ROUTE_TIMESHEETS, RateLimiter.ROUTE_USERS, RateLimiter.ROUTE_ADMIN -> first;
+            default -> RateLimiter.ROUTE_DEFAULT;
+        };
+    }
+
+    private String clientAddress(ContainerRequestContext requestContext) {
+        if (TRUST_FORWARDED_FOR) {
+            String forwarded = requestContext.getHeaderString(FORWARDED_FOR);
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        return servletRequest == null ? "unknown" : servletRequest.getRemoteAddr();
+    }
+}
@@ -0,0 +1,200 @@
+package ca.bcit.infosys.liangk.security;
+
+import ca.bcit.infosys.liangk.util.AppConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-striped token-bucket rate limiter.
+ * <p>
+ * Each (route, caller) pair owns a bucket holding up to {@code capacity} tokens that refills at
+ * {@code perMinute} tokens per minute. Buckets are spread across independently locked stripes, so
+ * concurrent callers rarely contend. A bucket that has been idle long enough to refill completely
+ * is indistinguishable from a new one and is evicted; each stripe is also capped in size, dropping
+ * its least recently used bucket, so memory stays bounded under address scans.
+ * <p>
+ * Limits are read per route from {@code timesheets.ratelimit.<route>.capacity} and
+ * {@code timesheets.ratelimit.<route>.perMinute}; a non-positive capacity disables limiting for
+ * that route. Set {@code timesheets.ratelimit.enabled=false} to switch limiting off entirely.
+ */
+@ApplicationScoped
+public class RateLimiter {
+
+    public static final String ROUTE_LOGIN = "login";
+    public static final String ROUTE_TIMESHEETS = "timesheets";
+    public static final String ROUTE_USERS = "users";
+    public static final String ROUTE_ADMIN = "admin";
+    public static final String ROUTE_DEFAULT = "default";
+
+    private static final int STRIPES = 64; // power of two
+    private static final int DEFAULT_MAX_BUCKETS_PER_STRIPE = 2_048;
+
+    private final boolean enabled;
+    private final Map<String, Limit> limits;
+    private final int maxBucketsPerStripe;
+    private final LongSupplier nanoClock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder idleEvictions = new LongAdder();
+    private final LongAdder capacityEvictions = new LongAdder();
+
+    public RateLimiter() {
+        this(AppConfig.getBoolean("timesheets.ratelimit.enabled", true), Map.of(
+                ROUTE_LOGIN, configured(ROUTE_LOGIN, 10, 20),
+                ROUTE_TIMESHEETS, configured(ROUTE_TIMESHEETS, 60, 600),
+                ROUTE_USERS, configured(ROUTE_USERS, 30, 300),
+                ROUTE_ADMIN, configured(ROUTE_ADMIN, 30, 300),
+                ROUTE_DEFAULT, configured(ROUTE_DEFAULT, 60, 600)),
+                AppConfig.getInt("timesheets.ratelimit.maxBucketsPerStripe", DEFAULT_MAX_BUCKETS_PER_STRIPE),
+                System::nanoTime);
+    }
+
+    /**
+     * Creates a limiter with explicit limits.
+     *
+     * @param enabled             whether requests are limited at all
+     * @param limits              limit per route; routes without an entry use {@link #ROUTE_DEFAULT}
+     * @param maxBucketsPerStripe cap on buckets per stripe
+     * @param nanoClock           monotonic time source in nanoseconds
+     */
+    public RateLimiter(boolean enabled, Map<String, Limit> limits, int maxBucketsPerStripe, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.limits = Map.copyOf(limits);
+        this.maxBucketsPerStripe = Math.max(1, maxBucketsPerStripe);
+        this.nanoClock = nanoClock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Takes one token from the caller's bucket for the route.
+     *
+     * @param route  route name, e.g. {@link #ROUTE_LOGIN}
+     * @param caller caller identity, e.g. user id or client address
+     * @return 0 if the request may proceed, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(String route, String caller) {
+        Limit limit = limits.getOrDefault(route, limits.get(ROUTE_DEFAULT));
+        if (!enabled || limit == null || !limit.isEnabled()) return 0L;
+        String key = route + '|' + caller;
+        int h = key.hashCode();
+        Stripe stripe = stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+        long now = nanoClock.getAsLong();
+        long wait;
+        synchronized (stripe) {
+            stripe.evictIdle(now);
+            Bucket b = stripe.buckets.get(key);
+            if (b == null) {
+                b = new Bucket(limit, now);
+                stripe.buckets.put(key, b);
+            }
+            wait = b.tryTake(now);
+        }
+        if (wait == 0L) {
+            allowed.increment();
+        } else {
+            throttled.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Returns limiter counters.
+     */
+    public Map<String, Long> stats() {
+        long buckets = 0;
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                buckets += s.buckets.size();
+            }
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("buckets", buckets);
+        stats.put("allowed", allowed.sum());
+        stats.put("throttled", throttled.sum());
+        stats.put("idleEvictions", idleEvictions.sum());
+        stats.put("capacityEvictions", capacityEvictions.sum());
+        return stats;
+    }
+
+    private static Limit configured(String route, int defaultCapacity, int defaultPerMinute) {
+        String prefix = "timesheets.ratelimit." + route + ".";
+        return new Limit(AppConfig.getInt(prefix + "capacity", defaultCapacity),
+                AppConfig.getInt(prefix + "perMinute", defaultPerMinute));
+    }
+
+    /**
+     * Bucket size and refill rate of a route.
+     *
+     * @param capacity  maximum burst
+     * @param perMinute sustained requests per minute
+     */
+    public record Limit(int capacity, int perMinute) {
+        boolean isEnabled() {
+            return capacity > 0 && perMinute > 0;
+        }
+
+        long nanosPerToken() {
+            return TimeUnit.MINUTES.toNanos(1) / perMinute;
+        }
+    }
+
+    private final class Stripe {
+        // Access order, so the eldest entry is the least recently used bucket
+        final LinkedHashMap<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                if (size() > maxBucketsPerStripe) {
+                    capacityEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        void evictIdle(long now) {
+            Iterator<Bucket> it = buckets.values().iterator();
+            while (it.hasNext()) {
+                if (!it.next().isFull(now)) break;
+                it.remove();
+                idleEvictions.increment();
+            }
+        }
+    }
+
+    // Tokens are tracked in nanoseconds of refill time so no floating point is needed
+    private static final class Bucket {
+        final long nanosPerToken;
+        final long burstNanos;
+        long emptyUntil;
+
+        Bucket(Limit limit, long now) {
+            this.nanosPerToken = limit.nanosPerToken();
+            this.burstNanos = nanosPerToken * limit.capacity();
+            this.emptyUntil = now - burstNanos;
+        }
+
+        long tryTake(long now) {
+            long base = Math.max(emptyUntil, now - burstNanos);
+            long next = base + nanosPerToken;
+            if (next > now) {
+                return next - now;
+            }
+            emptyUntil = next;
+            return 0L;
+        }
+
+        boolean isFull(long now) {
+            return emptyUntil <= now - burstNanos;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ca.bcit.infosys.liangk.security;
+
+import ca.bcit.infosys.liangk.entity.UserRole;
+import ca.bcit.infosys.liangk.util.AppConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.logging.Logger;
+
+/**
+ * Issues and verifies self-contained HMAC-SHA256 signed bearer tokens.
+ * <p>
+ * Token format: {@code <tokenId>.<userId>.<role>.<expiresAtEpochSecond>.<base64url signature>}.
+ * Verification is pure CPU work; revocation is checked separately against {@link TokenRevocationList}.
+ * Signed tokens are only issued when {@code timesheets.auth.tokenMode=signed}; the signing key comes
+ * from {@code timesheets.auth.signingKey} and must be shared by all replicas.
+ */
+@ApplicationScoped
+public class SignedTokenCodec {
+
+    public static final String MODE_SIGNED = "signed";
+    private static final Logger LOGGER = Logger.getLogger(SignedTokenCodec.class.getName());
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int GENERATED_KEY_BYTES = 32;
+    private static final char SEPARATOR = '.';
+
+    private final boolean enabled;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public SignedTokenCodec() {
+        this(MODE_SIGNED.equalsIgnoreCase(AppConfig.getString("timesheets.auth.tokenMode", "opaque")),
+                AppConfig.getString("timesheets.auth.signingKey", null));
+    }
+
+    /**
+     * Creates a codec. When enabled without a secret, a random per-process key is generated, so
+     * tokens will not survive a restart or validate on other replicas.
+     *
+     * @param enabled whether signed tokens are issued and accepted
+     * @param secret  shared signing secret, may be null
+     */
+    public SignedTokenCodec(boolean enabled, String secret) {
+        this.enabled = enabled;
+        byte[] keyBytes;
+        if (secret != null && !secret.isBlank()) {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            keyBytes = new byte[GENERATED_KEY_BYTES];
+            new SecureRandom().nextBytes(keyBytes);
+            if (enabled) {
+                LOGGER.warning("timesheets.auth.signingKey not set; using a random per-process signing key");
+            }
+        }
+        this.key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Returns whether signed-token mode is switched on.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns whether the token string has the signed-token shape (opaque tokens are plain hex).
+     */
+    public static boolean looksSigned(String token) {
+        return token != null && token.indexOf(SEPARATOR) >= 0;
+    }
+
+    /**
+     * Encodes and signs the claims into a bearer token string.
+     *
+     * @param claims token claims
+     * @return signed token
+     */
+    public String encode(Claims claims) {
+        String payload = claims.tokenId() + SEPARATOR + claims.userId() + SEPARATOR
+                + claims.role().name() + SEPARATOR + claims.expiresAtEpochSecond();
+        return payload + SEPARATOR + sign(payload);
+    }
+
+    /**
+     * Verifies the signature and parses the claims. Expiry is not checked here.
+     *
+     * @param token signed token string
+     * @return claims, or null if the token is malformed or the signature does not match
+     */
+    public Claims decode(String token) {
+        if (token == null) return null;
+        int sigStart = token.lastIndexOf(SEPARATOR);
+        if (sigStart <= 0) return null;
+        String payload = token.substring(0, sigStart);
+        byte[] expected = sign(payload).getBytes(StandardCharsets.US_ASCII);
+        byte[] presented = token.substring(sigStart + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, presented)) return null;
+
+        String[] parts = payload.split("\\.", -1);
+        if (parts.length != 4 || parts[0].isEmpty()) return null;
+        try {
+            return new Claims(parts[0], Long.parseLong(parts[1]), UserRole.valueOf(parts[2]), Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String sign(String payload) {
+        byte[] mac = macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mac);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    /**
+     * Claims carried inside a signed token.
+     *
+     * @param tokenId              random token id; its digest is the auth_tokens row key used for revocation
+     * @param userId               owner user id
+     * @param role                 owner role at issue time
+     * @param expiresAtEpochSecond expiry as epoch seconds
+     */
+    public record Claims(String tokenId, long userId, UserRole role, long expiresAtEpochSecond) {
+    }
+}
@@ -0,0 +1,165 @@
+package ca.bcit.infosys.liangk.security;
+
+import ca.bcit.infosys.liangk.util.AppConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, expiry-aware LRU cache of validated bearer tokens.
+ * <p>
+ * Each entry maps a token to an {@link AuthPrincipal} snapshot and lives for at most the configured
+ * TTL, and never beyond the token's own {@code expiresAt}. Logout and user changes must invalidate
+ * entries explicitly; the TTL bounds staleness for anything else.
+ */
+@ApplicationScoped
+public class TokenCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final long DEFAULT_TTL_SECONDS = 60L;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, CachedPrincipal> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public TokenCache() {
+        this(AppConfig.getInt("timesheets.auth.cache.maxEntries", DEFAULT_MAX_ENTRIES),
+                AppConfig.getLong("timesheets.auth.cache.ttlSeconds", DEFAULT_TTL_SECONDS) * 1000L);
+    }
+
+    /**
+     * Creates a cache with explicit limits. A non-positive size or TTL disables caching.
+     *
+     * @param maxEntries maximum number of cached tokens
+     * @param ttlMillis  maximum lifetime of an entry in milliseconds
+     */
+    public TokenCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                if (size() > TokenCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached principal for the token, or null on a miss or if the entry has expired.
+     *
+     * @param token bearer token
+     * @return cached principal or null
+     */
+    public AuthPrincipal get(String token) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            CachedPrincipal cached = entries.get(token);
+            if (cached == null) {
+                misses.increment();
+                return null;
+            }
+            if (cached.deadline <= now) {
+                entries.remove(token);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return cached.principal;
+        }
+    }
+
+    /**
+     * Caches a principal for the token until the earlier of the TTL and the token expiry.
+     *
+     * @param token     bearer token
+     * @param principal validated principal snapshot
+     */
+    public void put(String token, AuthPrincipal principal) {
+        if (!isEnabled() || token == null || principal == null || principal.expiresAt() == null) return;
+        long now = System.currentTimeMillis();
+        long deadline = Math.min(now + ttlMillis, toEpochMillis(principal.expiresAt()));
+        if (deadline <= now) return;
+        synchronized (entries) {
+            entries.put(token, new CachedPrincipal(principal, deadline));
+        }
+    }
+
+    /**
+     * Removes a single token from the cache.
+     *
+     * @param token bearer token
+     */
+    public void invalidate(String token) {
+        if (token == null) return;
+        synchronized (entries) {
+            if (entries.remove(token) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes every cached token belonging to the given user.
+     *
+     * @param userId user id
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) return;
+        synchronized (entries) {
+            Iterator<CachedPrincipal> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (Objects.equals(it.next().principal.userId(), userId)) {
+                    it.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return ordered map of counter name to value
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", (long) entries.size());
+        }
+        stats.put("maxEntries", (long) maxEntries);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private boolean isEnabled() {
+        return maxEntries > 0 && ttlMillis > 0;
+    }
+
+    private static long toEpochMillis(LocalDateTime t) {
+        return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record CachedPrincipal(AuthPrincipal principal, long deadline) {
+    }
+}
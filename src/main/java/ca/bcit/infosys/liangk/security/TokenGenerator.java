@@ -0,0 +1,152 @@
+package ca.bcit.infosys.liangk.security;
+
+import ca.bcit.infosys.liangk.util.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Application-wide source of random bearer token values.
+ * <p>
+ * A single non-blocking {@link SecureRandom} is shared by all callers instead of seeding a new one
+ * per login. Tokens are pre-generated into a bounded pool that a managed background task refills
+ * whenever it drops below a low-water mark, so {@link #nextToken()} normally just dequeues. If the
+ * pool is empty a token is generated inline rather than waiting for the refill.
+ */
+@ApplicationScoped
+public class TokenGenerator {
+
+    private static final Logger LOGGER = Logger.getLogger(TokenGenerator.class.getName());
+    private static final int TOKEN_RANDOM_BYTES = 32; // 256-bit token -> 64 hex chars
+    private static final int DEFAULT_POOL_SIZE = 256;
+
+    @Resource
+    private ManagedExecutorService managedExecutor;
+
+    private final SecureRandom random = newSecureRandom();
+    private final BlockingQueue<String> pool;
+    private final int lowWaterMark;
+    private Executor refillExecutor;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong refills = new AtomicLong();
+    private final AtomicLong lastRefillNanos = new AtomicLong();
+    private final AtomicLong totalRefillNanos = new AtomicLong();
+
+    public TokenGenerator() {
+        this(AppConfig.getInt("timesheets.auth.tokenPoolSize", DEFAULT_POOL_SIZE), null);
+    }
+
+    /**
+     * Creates a generator with an explicit pool size and refill executor. A null executor refills
+     * synchronously on the calling thread; a non-positive pool size disables pooling.
+     *
+     * @param poolSize       maximum number of pre-generated tokens
+     * @param refillExecutor executor running background refills, may be null
+     */
+    public TokenGenerator(int poolSize, Executor refillExecutor) {
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.lowWaterMark = poolSize > 0 ? Math.max(1, poolSize / 4) : 0;
+        this.refillExecutor = refillExecutor;
+    }
+
+    @PostConstruct
+    void init() {
+        if (refillExecutor == null) {
+            refillExecutor = managedExecutor;
+        }
+        triggerRefill();
+    }
+
+    /**
+     * Returns a fresh 64-character hex token, from the pool when available.
+     *
+     * @return random token value
+     */
+    public String nextToken() {
+        served.incrementAndGet();
+        String token = lowWaterMark > 0 ? pool.poll() : null;
+        if (token == null) {
+            fallbacks.incrementAndGet();
+            token = generate();
+        }
+        if (lowWaterMark > 0 && pool.size() < lowWaterMark) {
+            triggerRefill();
+        }
+        return token;
+    }
+
+    /**
+     * Returns pool depth and refill counters.
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        long refillCount = refills.get();
+        stats.put("poolDepth", (long) pool.size());
+        stats.put("served", served.get());
+        stats.put("fallbacks", fallbacks.get());
+        stats.put("refills", refillCount);
+        stats.put("lastRefillMicros", lastRefillNanos.get() / 1_000L);
+        stats.put("avgRefillMicros", refillCount == 0 ? 0L : totalRefillNanos.get() / refillCount / 1_000L);
+        return stats;
+    }
+
+    private void triggerRefill() {
+        if (lowWaterMark <= 0 || !refilling.compareAndSet(false, true)) return;
+        try {
+            if (refillExecutor != null) {
+                refillExecutor.execute(this::refill);
+            } else {
+                refill();
+            }
+        } catch (RuntimeException e) {
+            refilling.set(false);
+            LOGGER.log(Level.WARNING, "Could not schedule token pool refill", e);
+        }
+    }
+
+    private void refill() {
+        long start = System.nanoTime();
+        try {
+            while (pool.remainingCapacity() > 0) {
+                if (!pool.offer(generate())) break;
+            }
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            refills.incrementAndGet();
+            lastRefillNanos.set(elapsed);
+            totalRefillNanos.addAndGet(elapsed);
+            refilling.set(false);
+        }
+    }
+
+    private String generate() {
+        byte[] bytes = new byte[TOKEN_RANDOM_BYTES];
+        random.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static SecureRandom newSecureRandom() {
+        try {
+            return SecureRandom.getInstance("NativePRNGNonBlocking");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
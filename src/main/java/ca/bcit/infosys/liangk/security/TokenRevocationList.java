@@ -0,0 +1,143 @@
+package ca.bcit.infosys.liangk.security;
+
+import ca.bcit.infosys.liangk.dao.AuthTokenDAO;
+import ca.bcit.infosys.liangk.dao.UserDAO;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.inject.Inject;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory revocation set for signed bearer tokens, so a revoked token is rejected without a
+ * per-request query.
+ * <p>
+ * Revoked tokens are held as a sorted array of 64-bit prefixes of their stored SHA-256 digests;
+ * inactive and deleted users as a set of ids. Deleted users are read from {@code revoked_users},
+ * which keeps them after their {@code auth_tokens} rows are gone.
+ * The snapshot is reloaded from the database periodically so all replicas converge, and local
+ * revocations are applied immediately and kept until a reload has certainly observed them.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class TokenRevocationList {
+
+    private static final Logger LOGGER = Logger.getLogger(TokenRevocationList.class.getName());
+    private static final long LOCAL_RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    @Inject
+    private AuthTokenDAO tokenDAO;
+
+    @Inject
+    private UserDAO userDAO;
+
+    @Inject
+    private SignedTokenCodec signedTokenCodec;
+
+    private volatile Snapshot snapshot = new Snapshot(new long[0], Set.of());
+    private final Map<Long, Long> pendingTokenIds = new ConcurrentHashMap<>();
+    private final Map<Long, Long> pendingUserIds = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Initial token revocation load failed; will retry on schedule", e);
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot from revoked, unexpired token rows, inactive users and deleted users.
+     */
+    @Schedule(hour = "*", minute = "*", second = "*/30", persistent = false)
+    public void reload() {
+        if (signedTokenCodec == null || !signedTokenCodec.isEnabled()) return;
+        long startedAt = System.currentTimeMillis();
+        List<byte[]> hashes = tokenDAO.findRevokedTokenHashes(LocalDateTime.now());
+        long[] prefixes = new long[hashes.size()];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = prefix(hashes.get(i));
+        }
+        Arrays.sort(prefixes);
+        Set<Long> userIds = new HashSet<>(userDAO.findInactiveUserIds());
+        userIds.addAll(tokenDAO.findRevokedUserIds(LocalDateTime.now()));
+        snapshot = new Snapshot(prefixes, userIds);
+
+        long cutoff = startedAt - LOCAL_RETENTION_MILLIS;
+        pendingTokenIds.values().removeIf(addedAt -> addedAt < cutoff);
+        pendingUserIds.values().removeIf(addedAt -> addedAt < cutoff);
+    }
+
+    /**
+     * Marks a token, identified by its stored digest, as revoked on this node immediately.
+     */
+    public void revokeToken(byte[] tokenHash) {
+        if (tokenHash != null) pendingTokenIds.put(prefix(tokenHash), System.currentTimeMillis());
+    }
+
+    /**
+     * Marks all tokens of a deactivated or deleted user as revoked on this node immediately.
+     */
+    public void revokeUser(long userId) {
+        pendingUserIds.put(userId, System.currentTimeMillis());
+    }
+
+    /**
+     * Clears local user revocations after reactivation; the next reload settles the snapshot.
+     */
+    public void restoreUser(long userId) {
+        pendingUserIds.remove(userId);
+    }
+
+    /**
+     * Returns whether the token, identified by its stored digest, or its user has been revoked.
+     */
+    public boolean isRevoked(byte[] tokenHash, long userId) {
+        Snapshot s = snapshot;
+        if (s.inactiveUserIds.contains(userId) || pendingUserIds.containsKey(userId)) {
+            return true;
+        }
+        long p = prefix(tokenHash);
+        return Arrays.binarySearch(s.tokenIdPrefixes, p) >= 0 || pendingTokenIds.containsKey(p);
+    }
+
+    /**
+     * Returns a snapshot of the revocation set sizes.
+     */
+    public Map<String, Long> stats() {
+        Snapshot s = snapshot;
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("revokedTokens", (long) s.tokenIdPrefixes.length);
+        stats.put("inactiveUsers", (long) s.inactiveUserIds.size());
+        stats.put("pendingTokens", (long) pendingTokenIds.size());
+        stats.put("pendingUsers", (long) pendingUserIds.size());
+        return stats;
+    }
+
+    private static long prefix(byte[] tokenHash) {
+        long p = 0;
+        for (int i = 0; i < Long.BYTES && i < tokenHash.length; i++) {
+            p = (p << 8) | (tokenHash[i] & 0xFF);
+        }
+        return p;
+    }
+
+    private record Snapshot(long[] tokenIdPrefixes, Set<Long> inactiveUserIds) {
+    }
+}
@@ -0,0 +1,229 @@
+package ca.bcit.infosys.liangk.security;
+
+import ca.bcit.infosys.liangk.dao.UserDAO;
+import ca.bcit.infosys.liangk.util.AppConfig;
+import ca.bcit.infosys.liangk.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.inject.Inject;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory Bloom filter of existing usernames, letting login reject unknown names without a
+ * username lookup.
+ * <p>
+ * The filter is built at startup and rebuilt every minute, which also drops deleted and renamed
+ * names and picks up users created on other nodes. {@code UserService} adds new names immediately;
+ * names added while a rebuild is in flight are kept for two minutes and replayed into the new filter.
+ * <p>
+ * Names created or renamed on another node reach this filter only with the next rebuild, so a miss
+ * is not final on its own: it is confirmed by checking that no user row changed since shortly before
+ * the filter was built. The check is a single indexed probe, repeated at most once per
+ * {@code timesheets.auth.usernameFilter.recheckMillis} (default 1000); once it finds a change, misses
+ * fall through to the database until the next rebuild. A user created elsewhere can therefore be
+ * rejected for at most that interval, and never if it is 0.
+ * <p>
+ * {@code users.username} compares case- and accent-insensitively with trailing spaces ignored, so
+ * names are folded before hashing. Only printable-ASCII login names are screened; anything else,
+ * and every name while the filter is not loaded, falls through to the database. If a stored name
+ * does not fold to ASCII the filter stays off, since its equivalents cannot be enumerated.
+ * Disable with {@code timesheets.auth.usernameFilter.enabled=false}.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class UsernameFilter {
+
+    private static final Logger LOGGER = Logger.getLogger(UsernameFilter.class.getName());
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_CAPACITY = 1_024;
+    private static final long RECENT_RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    // Covers clock skew between nodes and writes committed just after the rebuild read the names
+    private static final long CHANGE_SLACK_SECONDS = 30L;
+
+    @Inject
+    private UserDAO userDAO;
+
+    private final boolean enabled = AppConfig.getBoolean("timesheets.auth.usernameFilter.enabled", true);
+    private final long recheckMillis = AppConfig.getLong("timesheets.auth.usernameFilter.recheckMillis", 1_000L);
+    private volatile Screen screen;
+    private final Map<String, Long> recentlyAdded = new ConcurrentHashMap<>();
+
+    private final LongAdder screened = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder changeProbes = new LongAdder();
+    private final LongAdder staleMisses = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Initial username filter load failed; will retry on schedule", e);
+        }
+    }
+
+    /**
+     * Rebuilds the filter from all stored usernames.
+     */
+    @Schedule(hour = "*", minute = "*", persistent = false)
+    public void rebuild() {
+        if (!enabled) return;
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime changedSince = LocalDateTime.now().minusSeconds(CHANGE_SLACK_SECONDS);
+        List<String> names = userDAO.findAllUsernames();
+        BloomFilter next = new BloomFilter(Math.max(MIN_CAPACITY, names.size() * 2L), FALSE_POSITIVE_RATE);
+        for (String name : names) {
+            String key = fold(name);
+            if (!isScreenable(key)) {
+                LOGGER.warning("Username filter disabled: stored username does not fold to ASCII");
+                screen = null;
+                return;
+            }
+            next.put(key);
+        }
+        recentlyAdded.values().removeIf(addedAt -> addedAt < startedAt - RECENT_RETENTION_MILLIS);
+        recentlyAdded.keySet().forEach(next::put);
+        screen = new Screen(next, changedSince);
+    }
+
+    /**
+     * Records a new or renamed username so it is accepted before the next rebuild.
+     *
+     * @param username stored username
+     */
+    public void add(String username) {
+        if (username == null) return;
+        String key = fold(username);
+        if (!isScreenable(key)) {
+            screen = null; // resumes only if the next rebuild finds all names screenable
+            return;
+        }
+        recentlyAdded.put(key, System.currentTimeMillis());
+        Screen sc = screen;
+        if (sc != null) sc.filter.put(key);
+    }
+
+    /**
+     * Returns true only if no user with this login name can exist: the filter misses and no user
+     * row changed since the filter was built.
+     *
+     * @param username login name as submitted
+     */
+    public boolean isDefinitelyAbsent(String username) {
+        Screen sc = screen;
+        String key = username == null ? null : fold(username);
+        if (sc == null || !isScreenable(key)) {
+            bypassed.increment();
+            return false;
+        }
+        screened.increment();
+        if (sc.filter.mightContain(key)) return false;
+        if (mayHaveChanged(sc)) {
+            staleMisses.increment();
+            return false;
+        }
+        rejected.increment();
+        return true;
+    }
+
+    private boolean mayHaveChanged(Screen sc) {
+        if (sc.changed) return true;
+        long now = System.currentTimeMillis();
+        if (now < sc.unchangedUntil) return false;
+        changeProbes.increment();
+        try {
+            if (userDAO.existsUpdatedSince(sc.changedSince)) {
+                sc.changed = true;
+                return true;
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, "Username change probe failed; deferring to the database", e);
+            return true;
+        }
+        sc.unchangedUntil = now + recheckMillis;
+        return false;
+    }
+
+    /**
+     * Records that a name the filter let through was not found in the database.
+     *
+     * @param username login name as submitted
+     */
+    public void recordLookupMiss(String username) {
+        if (screen != null && username != null && isScreenable(fold(username))) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Returns screening counters. The false-positive rate is measured over unknown names that
+     * were screened, in parts per million.
+     */
+    public Map<String, Long> stats() {
+        Screen sc = screen;
+        long fp = falsePositives.sum();
+        long rej = rejected.sum();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("loaded", sc == null ? 0L : 1L);
+        stats.put("bits", sc == null ? 0L : sc.filter.bitCount());
+        stats.put("screened", screened.sum());
+        stats.put("rejected", rej);
+        stats.put("falsePositives", fp);
+        stats.put("falsePositivePpm", fp + rej == 0 ? 0L : fp * 1_000_000L / (fp + rej));
+        stats.put("bypassed", bypassed.sum());
+        stats.put("changeProbes", changeProbes.sum());
+        stats.put("staleMisses", staleMisses.sum());
+        return stats;
+    }
+
+    // Mirrors utf8mb4_unicode_ci closely enough for ASCII: drop accents, ignore case and trailing spaces
+    static String fold(String username) {
+        String s = Normalizer.normalize(username, Normalizer.Form.NFKD).replaceAll("\\p{M}+", "");
+        int end = s.length();
+        while (end > 0 && s.charAt(end - 1) == ' ') end--;
+        return s.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A built filter with the time its names are known to be current from. Once any user row is
+     * seen to have changed since then, misses are no longer trusted.
+     */
+    private static final class Screen {
+        final BloomFilter filter;
+        final LocalDateTime changedSince;
+        volatile boolean changed;
+        volatile long unchangedUntil;
+
+        Screen(BloomFilter filter, LocalDateTime changedSince) {
+            this.filter = filter;
+            this.changedSince = changedSince;
+        }
+    }
+
+    private static boolean isScreenable(String key) {
+        if (key == null) return false;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x20 || c > 0x7E) return false;
+        }
+        return true;
+    }
+}
@@ -9,24 +9,45 @@ import ca.bcit.infosys.liangk.entity.AuthToken;
 import ca.bcit.infosys.liangk.entity.User;
 import ca.bcit.infosys.liangk.exception.UnauthorizedException;
 import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.security.AuthPrincipal;
+import ca.bcit.infosys.liangk.security.NegativeTokenCache;
+import ca.bcit.infosys.liangk.security.SignedTokenCodec;
+import ca.bcit.infosys.liangk.security.TokenCache;
+import ca.bcit.infosys.liangk.security.TokenGenerator;
+import ca.bcit.infosys.liangk.security.TokenRevocationList;
+import ca.bcit.infosys.liangk.security.UsernameFilter;
+import ca.bcit.infosys.liangk.util.AppConfig;
 import ca.bcit.infosys.liangk.util.Mapper;
+import ca.bcit.infosys.liangk.util.TokenHash;
+import jakarta.annotation.Resource;
 import jakarta.ejb.Stateless;
 import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 
-import java.security.SecureRandom;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.HexFormat;
+import java.time.ZoneId;
+import java.util.List;
 
 /**
  * Authentication service issuing and validating bearer tokens.
+ * <p>
+ * Two token modes are supported. Opaque tokens (default) are random hex strings looked up in
+ * {@code auth_tokens}. With {@code timesheets.auth.tokenMode=signed}, login issues HMAC-signed
+ * tokens carrying user id, role and expiry that validate without a database lookup; the
+ * {@code auth_tokens} row is still written, keyed by the digest of the token id, and backs revocation.
  *
  * Note: Passwords are compared in plaintext per assignment constraints.
  */
 @Stateless
 public class AuthService {
 
-    private static final long TOKEN_TTL_HOURS = 8L; // token lifetime in hours
-    private static final int TOKEN_RANDOM_BYTES = 32; // 256-bit token -> 64 hex chars
+    static final long TOKEN_TTL_HOURS = 8L; // token lifetime in hours; extended by SessionRenewer
+    // Oldest active tokens beyond this count are deactivated at login; 0 disables the cap
+    private static final int MAX_ACTIVE_TOKENS_PER_USER =
+            AppConfig.getInt("timesheets.auth.maxActiveTokensPerUser", 10);
 
     @Inject
     private UserDAO userDAO;
@@ -34,6 +55,33 @@ public class AuthService {
     @Inject
     private AuthTokenDAO tokenDAO;
 
+    @Inject
+    private TokenCache tokenCache;
+
+    @Inject
+    private SignedTokenCodec signedTokenCodec;
+
+    @Inject
+    private TokenRevocationList revocationList;
+
+    @Inject
+    private TokenGenerator tokenGenerator;
+
+    @Inject
+    private TokenInsertBatcher tokenInsertBatcher;
+
+    @Inject
+    private NegativeTokenCache negativeTokenCache;
+
+    @Inject
+    private UsernameFilter usernameFilter;
+
+    @Inject
+    private SessionRenewer sessionRenewer;
+
+    @Resource
+    private TransactionSynchronizationRegistry txRegistry;
+
     /**
      * Authenticates a user and issues a bearer token.
      *
@@ -47,8 +95,14 @@ public class AuthService {
         if (isBlank(req.getUsername()) || isBlank(req.getPassword())) {
             throw new ValidationException("Username and password must be provided");
         }
+        if (usernameFilter.isDefinitelyAbsent(req.getUsername())) {
+            throw new UnauthorizedException("Invalid username or password");
+        }
         User u = userDAO.findByUsername(req.getUsername());
-        if (u == null) throw new UnauthorizedException("Invalid username or password");
+        if (u == null) {
+            usernameFilter.recordLookupMiss(req.getUsername());
+            throw new UnauthorizedException("Invalid username or password");
+        }
         if (!u.isActive()) throw new UnauthorizedException("User account is inactive");
 
         // Compare plaintext password directly to stored value (no hashing)
@@ -56,41 +110,73 @@ public class AuthService {
             throw new UnauthorizedException("Invalid username or password");
         }
 
+        enforceActiveTokenCap(u);
+
         AuthToken token = new AuthToken();
-        token.setToken(generateToken());
+        token.setToken(tokenGenerator.nextToken());
         token.setUser(u);
         LocalDateTime now = LocalDateTime.now();
         token.setIssuedAt(now);
         token.setExpiresAt(now.plusHours(TOKEN_TTL_HOURS));
         token.setActive(true);
-        tokenDAO.create(token);
+        if (tokenInsertBatcher.isEnabled()) {
+            tokenInsertBatcher.insert(token);
+        } else {
+            tokenDAO.create(token);
+        }
+
+        String issued = token.getToken();
+        if (signedTokenCodec.isEnabled()) {
+            long expiresAtEpochSecond = token.getExpiresAt().atZone(ZoneId.systemDefault()).toEpochSecond();
+            issued = signedTokenCodec.encode(new SignedTokenCodec.Claims(
+                    token.getToken(), u.getId(), u.getRole(), expiresAtEpochSecond));
+        }
 
         UserDTO userDTO = Mapper.toUserDTO(u);
-        return new LoginResponse(token.getToken(), userDTO);
+        return new LoginResponse(issued, userDTO);
     }
 
     /**
-     * Validates a bearer token and returns the associated active user.
+     * Validates a bearer token and returns the authorization principal of its active owner.
+     * Recently validated tokens are served from {@link TokenCache} and recently rejected ones from
+     * {@link NegativeTokenCache}; otherwise the token and its owner are read with a single
+     * projection query. Activity is reported to {@link SessionRenewer}, which extends expiry in the
+     * background, so validation itself never writes. Signed tokens are verified in memory and
+     * carry no username.
      *
      * @param tokenString the token value
-     * @return the active User
+     * @return principal of the active token owner
      * @throws UnauthorizedException if token missing, invalid, inactive, or expired; or user inactive
      */
-    public User validateToken(String tokenString) {
+    public AuthPrincipal validateToken(String tokenString) {
         if (isBlank(tokenString)) {
             throw new UnauthorizedException("Missing token");
         }
-        AuthToken token = tokenDAO.findByToken(tokenString);
-        if (token == null) throw new UnauthorizedException("Invalid token");
-        if (!token.isActive()) throw new UnauthorizedException("Token inactive");
-        if (token.getExpiresAt() == null || token.getExpiresAt().isBefore(LocalDateTime.now())) {
-            throw new UnauthorizedException("Token expired");
+        if (signedTokenCodec.isEnabled() && SignedTokenCodec.looksSigned(tokenString)) {
+            return validateSigned(tokenString);
         }
-        User user = token.getUser();
-        if (user == null || !user.isActive()) {
+        AuthPrincipal cached = tokenCache.get(tokenString);
+        if (cached != null) {
+            sessionRenewer.touch(tokenString, cached.expiresAt());
+            return cached;
+        }
+        String rejection = negativeTokenCache.get(tokenString);
+        if (rejection != null) {
+            throw new UnauthorizedException(rejection);
+        }
+        AuthPrincipal principal = tokenDAO.findActivePrincipal(tokenString);
+        if (principal == null) {
+            throw rejectPermanently(tokenString, "Invalid or inactive token");
+        }
+        if (principal.expiresAt() == null || principal.expiresAt().isBefore(LocalDateTime.now())) {
+            throw rejectPermanently(tokenString, "Token expired");
+        }
+        if (!principal.active()) {
             throw new UnauthorizedException("User inactive");
         }
-        return user;
+        tokenCache.put(tokenString, principal);
+        sessionRenewer.touch(tokenString, principal.expiresAt());
+        return principal;
     }
 
     /**
@@ -100,18 +186,134 @@ public class AuthService {
      */
     public void logout(String tokenString) {
         if (isBlank(tokenString)) return;
+        if (signedTokenCodec.isEnabled() && SignedTokenCodec.looksSigned(tokenString)) {
+            SignedTokenCodec.Claims claims = signedTokenCodec.decode(tokenString);
+            if (claims == null) return;
+            tokenString = claims.tokenId();
+            revocationList.revokeToken(TokenHash.of(tokenString));
+        }
+        String cacheKey = tokenString;
+        tokenCache.invalidate(cacheKey);
         AuthToken token = tokenDAO.findByToken(tokenString);
         if (token != null && token.isActive()) {
             token.setActive(false);
             tokenDAO.update(token);
+            // A lookup before the commit still sees the token active and may have cached it again
+            afterCommit(() -> tokenCache.invalidate(cacheKey));
         }
     }
 
-    private static boolean isBlank(String s) { return s == null || s.trim().isEmpty(); }
+    /**
+     * Reacts to a change in a user's role or active flag. Signed tokens embed the role and are not
+     * re-read from the database, so in signed mode every outstanding token of the user is revoked.
+     *
+     * @param userId   affected user
+     * @param active   the user's active flag after the change
+     */
+    public void onUserAccessChanged(long userId, boolean active) {
+        invalidateCachedUser(userId);
+        if (!signedTokenCodec.isEnabled()) return;
+        for (AuthToken t : tokenDAO.findActiveTokensForUser(userId)) {
+            revocationList.revokeToken(t.getTokenHash());
+        }
+        tokenDAO.deactivateAllForUser(userId);
+        if (active) {
+            // Revocations apply at once; lifting them waits until the reactivation is visible
+            afterCommit(() -> revocationList.restoreUser(userId));
+        } else {
+            revocationList.revokeUser(userId);
+        }
+    }
+
+    /**
+     * Revokes all tokens of a user that is being deleted. Must run before the delete: in signed mode
+     * the revocation is persisted while the user's token rows still carry their latest expiry, and
+     * other replicas pick it up on their next reload.
+     *
+     * @param userId deleted user
+     */
+    public void onUserDeleted(long userId) {
+        invalidateCachedUser(userId);
+        if (signedTokenCodec.isEnabled()) {
+            tokenDAO.revokeDeletedUser(userId, LocalDateTime.now().plusHours(TOKEN_TTL_HOURS));
+            revocationList.revokeUser(userId);
+        }
+    }
+
+    /**
+     * Drops the user's cached principals now and again once the surrounding transaction commits.
+     * A validation that read the user row before the commit could otherwise re-cache the old
+     * role or active flag for the full cache TTL.
+     *
+     * @param userId changed user
+     */
+    public void invalidateCachedUser(long userId) {
+        tokenCache.invalidateUser(userId);
+        afterCommit(() -> tokenCache.invalidateUser(userId));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (txRegistry.getTransactionKey() == null) {
+            action.run();
+            return;
+        }
+        txRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
 
-    private static String generateToken() {
-        byte[] bytes = new byte[TOKEN_RANDOM_BYTES];
-        new SecureRandom().nextBytes(bytes);
-        return HexFormat.of().formatHex(bytes);
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) action.run();
+            }
+        });
     }
+
+    /**
+     * Deactivates the user's oldest unexpired tokens so that, including the one about to be issued,
+     * at most {@link #MAX_ACTIVE_TOKENS_PER_USER} remain active.
+     */
+    private void enforceActiveTokenCap(User u) {
+        if (MAX_ACTIVE_TOKENS_PER_USER <= 0) return;
+        LocalDateTime now = LocalDateTime.now();
+        List<AuthToken> live = tokenDAO.findActiveTokensForUser(u.getId()).stream()
+                .filter(t -> t.getExpiresAt() != null && t.getExpiresAt().isAfter(now))
+                .toList();
+        int excess = live.size() - MAX_ACTIVE_TOKENS_PER_USER + 1;
+        for (int i = 0; i < excess; i++) {
+            AuthToken oldest = live.get(i);
+            oldest.setActive(false);
+            tokenDAO.update(oldest);
+            if (signedTokenCodec.isEnabled()) {
+                revocationList.revokeToken(oldest.getTokenHash());
+            }
+        }
+        if (excess > 0) {
+            // The cache is keyed by raw token, which loaded rows no longer carry
+            tokenCache.invalidateUser(u.getId());
+        }
+    }
+
+    // Unknown, deactivated and expired tokens never become valid, so the rejection can be replayed
+    private UnauthorizedException rejectPermanently(String tokenString, String message) {
+        negativeTokenCache.put(tokenString, message);
+        return new UnauthorizedException(message);
+    }
+
+    private AuthPrincipal validateSigned(String tokenString) {
+        SignedTokenCodec.Claims claims = signedTokenCodec.decode(tokenString);
+        if (claims == null) throw new UnauthorizedException("Invalid token");
+        if (claims.expiresAtEpochSecond() <= Instant.now().getEpochSecond()) {
+            throw new UnauthorizedException("Token expired");
+        }
+        if (revocationList.isRevoked(TokenHash.of(claims.tokenId()), claims.userId())) {
+            throw new UnauthorizedException("Token inactive");
+        }
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(
+                Instant.ofEpochSecond(claims.expiresAtEpochSecond()), ZoneId.systemDefault());
+        return new AuthPrincipal(claims.userId(), null, claims.role(), true, expiresAt);
+    }
+
+    private static boolean isBlank(String s) { return s == null || s.trim().isEmpty(); }
+
 }
@@ -0,0 +1,45 @@
+package ca.bcit.infosys.liangk.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the row-level writes that timesheet entry updates cause, to verify that reconciling
+ * entries by id keeps unchanged rows untouched.
+ */
+@ApplicationScoped
+public class EntryWriteMetrics {
+
+    private final LongAdder reconciles = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder updated = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+
+    /**
+     * Records the outcome of reconciling one timesheet's entries.
+     */
+    public void record(int insertedRows, int updatedRows, int deletedRows, int unchangedRows) {
+        reconciles.increment();
+        inserted.add(insertedRows);
+        updated.add(updatedRows);
+        deleted.add(deletedRows);
+        unchanged.add(unchangedRows);
+    }
+
+    /**
+     * Returns cumulative entry write counters.
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("reconciles", reconciles.sum());
+        stats.put("inserted", inserted.sum());
+        stats.put("updated", updated.sum());
+        stats.put("deleted", deleted.sum());
+        stats.put("unchanged", unchanged.sum());
+        return stats;
+    }
+}
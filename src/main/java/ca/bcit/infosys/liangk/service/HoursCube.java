@@ -0,0 +1,446 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dao.HoursRollupCell;
+import ca.bcit.infosys.liangk.dao.HoursRollupDAO;
+import ca.bcit.infosys.liangk.dao.HoursRollupKey;
+import ca.bcit.infosys.liangk.dao.HoursRollupRow;
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.util.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory copy of the hours rollup for dashboard queries, so breakdowns of hours by any mix of
+ * user, project and week are aggregated without a database round trip.
+ * <p>
+ * Cells are held column-wise in primitive arrays sorted by week: user and project as indexes into
+ * dictionaries, week as an epoch day and hours as hundredths. A query binary-searches the week
+ * range, scans it once and sums into an open-addressing table keyed by the packed group.
+ * The snapshot is reloaded from the rollup table every five minutes so all replicas converge.
+ * Writes on this node are added as deltas once their transaction commits, and count until a
+ * reload whose read view includes them. Hours of users created since the last reload appear after
+ * the next one.
+ * <p>
+ * Usernames and project codes are matched and grouped as their {@code utf8mb4_unicode_ci} columns
+ * compare them, ignoring case and accents; a group is labelled with the first spelling seen.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class HoursCube {
+
+    private static final Logger LOGGER = Logger.getLogger(HoursCube.class.getName());
+    // Each dimension gets 21 bits of the packed group key
+    private static final int DIMENSION_BITS = 21;
+    private static final int MAX_DICTIONARY_SIZE = 1 << DIMENSION_BITS;
+
+    /**
+     * Dimensions a query can group by.
+     */
+    public enum Dimension {
+        USER, PROJECT, WEEK
+    }
+
+    @Inject
+    private HoursRollupDAO hoursRollupDAO;
+
+    @Resource
+    private TransactionSynchronizationRegistry txRegistry;
+
+    private final int fetchSize = AppConfig.getInt("timesheets.analytics.fetchSize", Integer.MIN_VALUE);
+
+    private volatile Snapshot snapshot = new Builder().build(0);
+    private final ConcurrentLinkedQueue<Delta> pending = new ConcurrentLinkedQueue<>();
+    // Numbers deltas in the order they are applied
+    private final AtomicLong appliedDeltas = new AtomicLong();
+    // Held shared by commits from beforeCompletion until their deltas are applied, and exclusively
+    // by a reload while it opens its read view, so each delta is either in the view or numbered after it
+    private final StampedLock commits = new StampedLock();
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong failedReloads = new AtomicLong();
+    private final AtomicLong lastReloadMillis = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Initial hours cube load failed; will retry on schedule", e);
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot from the rollup table with one streaming scan, and drops the deltas its
+     * read view already includes.
+     */
+    @Schedule(hour = "*", minute = "*/5", persistent = false)
+    public void reload() {
+        long startedAt = System.nanoTime();
+        Builder builder = new Builder();
+        long appliedThrough;
+        try {
+            // Takes the connection first so commits waiting on the lock cannot starve the reload of one
+            hoursRollupDAO.pinConnection();
+            long stamp = commits.writeLock();
+            try {
+                hoursRollupDAO.openReadView();
+                appliedThrough = appliedDeltas.get();
+            } finally {
+                commits.unlockWrite(stamp);
+            }
+            hoursRollupDAO.scrollAll(fetchSize, builder);
+        } catch (RuntimeException e) {
+            failedReloads.incrementAndGet();
+            throw e;
+        }
+        snapshot = builder.build(appliedThrough);
+        pending.removeIf(d -> d.seq <= appliedThrough);
+        reloads.incrementAndGet();
+        lastReloadMillis.set((System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * Adds rollup deltas written in the current transaction once it commits; without a
+     * transaction they are added at once.
+     *
+     * @param deltas hours added per key, as passed to {@link HoursRollupDAO#applyDeltas}
+     */
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public void afterCommit(Map<HoursRollupKey, Hours> deltas) {
+        if (deltas.isEmpty()) return;
+        Map<HoursRollupKey, Hours> copy = Map.copyOf(deltas);
+        if (txRegistry.getTransactionKey() == null) {
+            apply(copy);
+            return;
+        }
+        txRegistry.registerInterposedSynchronization(new Synchronization() {
+            private long stamp;
+
+            @Override
+            public void beforeCompletion() {
+                stamp = commits.readLock();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == Status.STATUS_COMMITTED) apply(copy);
+                } finally {
+                    if (stamp != 0) commits.unlockRead(stamp);
+                }
+            }
+        });
+    }
+
+    void apply(Map<HoursRollupKey, Hours> deltas) {
+        deltas.forEach((k, v) -> pending.add(new Delta(k.userId(), k.projectCode(), fold(k.projectCode()),
+                (int) k.weekStart().toEpochDay(), v.hundredths(), appliedDeltas.incrementAndGet())));
+    }
+
+    /**
+     * Sums hours over the cells whose week starts within {@code [from, to]}.
+     *
+     * @param from        first week start, inclusive
+     * @param to          last week start, inclusive
+     * @param projectCode only this project if not null
+     * @param username    only this user if not null
+     * @param groupBy     dimensions to keep; the others are summed over and null in the result
+     * @return one row per group with non-zero hours, ordered by week, project, then username
+     */
+    public List<HoursRollupRow> query(LocalDate from, LocalDate to, String projectCode, String username,
+                                      Set<Dimension> groupBy) {
+        if (to.toEpochDay() - from.toEpochDay() >= MAX_DICTIONARY_SIZE) {
+            throw new IllegalArgumentException("Range too wide for the hours cube");
+        }
+        Snapshot s = snapshot;
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        int userFilter = -1;
+        if (username != null) {
+            userFilter = s.userIndexByName.getOrDefault(fold(username), -1);
+            if (userFilter < 0) return List.of();
+        }
+        String projectKey = projectCode == null ? null : fold(projectCode);
+        // A code missing from the snapshot gets an index no cell has
+        int projectFilter = projectKey == null ? -1 : s.projectIndex.getOrDefault(projectKey, MAX_DICTIONARY_SIZE);
+        Projects projects = new Projects(s);
+        boolean byUser = groupBy.contains(Dimension.USER);
+        boolean byProject = groupBy.contains(Dimension.PROJECT);
+        boolean byWeek = groupBy.contains(Dimension.WEEK);
+
+        LongSumTable sums = new LongSumTable();
+        for (int i = lowerBound(s.week, s.size, fromDay), n = lowerBound(s.week, s.size, toDay + 1L); i < n; i++) {
+            if (userFilter >= 0 && s.user[i] != userFilter) continue;
+            if (projectFilter >= 0 && s.project[i] != projectFilter) continue;
+            sums.add(pack(byUser ? s.user[i] : 0, byProject ? s.project[i] : 0, byWeek ? s.week[i] - fromDay : 0),
+                    s.hundredths[i]);
+        }
+        for (Delta d : pending) {
+            if (d.seq <= s.appliedThrough || d.epochDay < fromDay || d.epochDay > toDay) continue;
+            Integer user = s.userIndex.get(d.userId);
+            if (user == null || (userFilter >= 0 && user != userFilter)) continue;
+            if (projectKey != null && !projectKey.equals(d.projectKey)) continue;
+            int project = projects.indexOf(d.projectKey, d.projectCode);
+            sums.add(pack(byUser ? user : 0, byProject ? project : 0, byWeek ? d.epochDay - fromDay : 0), d.hundredths);
+        }
+
+        List<HoursRollupRow> rows = new ArrayList<>(sums.size);
+        sums.forEach((key, hundredths) -> {
+            if (hundredths == 0) return;
+            int mask = MAX_DICTIONARY_SIZE - 1;
+            rows.add(new HoursRollupRow(
+                    byUser ? s.users[(int) (key >>> (2 * DIMENSION_BITS))] : null,
+                    byProject ? projects.name((int) (key >>> DIMENSION_BITS) & mask) : null,
+                    byWeek ? LocalDate.ofEpochDay(fromDay + ((int) key & mask)) : null,
+                    Hours.ofHundredths(hundredths)));
+        });
+        rows.sort(Comparator.comparing(HoursRollupRow::weekStart, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(HoursRollupRow::projectCode, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(HoursRollupRow::username, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return rows;
+    }
+
+    /**
+     * Returns the snapshot size and reload counters.
+     */
+    public Map<String, Long> stats() {
+        Snapshot s = snapshot;
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("cells", (long) s.size);
+        stats.put("users", (long) s.users.length);
+        stats.put("projects", (long) s.projects.length);
+        stats.put("pendingDeltas", (long) pending.size());
+        stats.put("reloads", reloads.get());
+        stats.put("failedReloads", failedReloads.get());
+        stats.put("lastReloadMillis", lastReloadMillis.get());
+        return stats;
+    }
+
+    // Mirrors utf8mb4_unicode_ci closely enough for codes and names: drop accents, ignore case and trailing spaces
+    static String fold(String value) {
+        String s = value;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                s = Normalizer.normalize(s, Normalizer.Form.NFKD).replaceAll("\\p{M}+", "");
+                break;
+            }
+        }
+        int end = s.length();
+        while (end > 0 && s.charAt(end - 1) == ' ') end--;
+        return s.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static long pack(int user, int project, int weekOffset) {
+        return ((long) user << (2 * DIMENSION_BITS)) | ((long) project << DIMENSION_BITS) | weekOffset;
+    }
+
+    // First index whose week is not before value
+    private static int lowerBound(int[] a, int n, long value) {
+        int lo = 0, hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private record Delta(long userId, String projectCode, String projectKey, int epochDay, long hundredths, long seq) {
+    }
+
+    private static final class Snapshot {
+        // Deltas numbered up to this are in the snapshot
+        final long appliedThrough;
+        final String[] users;
+        final Map<Long, Integer> userIndex;
+        final Map<String, Integer> userIndexByName;
+        final String[] projects;
+        // Keyed by folded code
+        final Map<String, Integer> projectIndex;
+        final int size;
+        final int[] user;
+        final int[] project;
+        final int[] week;
+        final long[] hundredths;
+
+        Snapshot(long appliedThrough, String[] users, Map<Long, Integer> userIndex, Map<String, Integer> userIndexByName,
+                 String[] projects, Map<String, Integer> projectIndex, int size, int[] user, int[] project, int[] week,
+                 long[] hundredths) {
+            this.appliedThrough = appliedThrough;
+            this.users = users;
+            this.userIndex = userIndex;
+            this.userIndexByName = userIndexByName;
+            this.projects = projects;
+            this.projectIndex = projectIndex;
+            this.size = size;
+            this.user = user;
+            this.project = project;
+            this.week = week;
+            this.hundredths = hundredths;
+        }
+    }
+
+    // The snapshot's project dictionary plus codes first seen in pending deltas during one query
+    private static final class Projects {
+        private final Snapshot s;
+        private List<String> added;
+        private Map<String, Integer> addedIndex;
+
+        Projects(Snapshot s) {
+            this.s = s;
+        }
+
+        int indexOf(String key, String code) {
+            Integer i = s.projectIndex.get(key);
+            if (i != null) return i;
+            if (added == null) {
+                added = new ArrayList<>();
+                addedIndex = new HashMap<>();
+            }
+            return addedIndex.computeIfAbsent(key, k -> {
+                added.add(code);
+                return s.projects.length + added.size() - 1;
+            });
+        }
+
+        String name(int index) {
+            return index < s.projects.length ? s.projects[index] : added.get(index - s.projects.length);
+        }
+    }
+
+    // Collects scrolled rows into growing columns and dictionaries
+    private static final class Builder implements Consumer<HoursRollupCell> {
+        private final List<String> users = new ArrayList<>();
+        private final Map<Long, Integer> userIndex = new HashMap<>();
+        private final Map<String, Integer> userIndexByName = new HashMap<>();
+        private final List<String> projects = new ArrayList<>();
+        private final Map<String, Integer> projectIndex = new HashMap<>();
+        // Codes as stored, so each spelling is folded once
+        private final Map<String, Integer> projectIndexByCode = new HashMap<>();
+        private int size;
+        private int[] user = new int[1024];
+        private int[] project = new int[1024];
+        private int[] week = new int[1024];
+        private long[] hundredths = new long[1024];
+
+        @Override
+        public void accept(HoursRollupCell c) {
+            if (size == user.length) {
+                int capacity = size * 2;
+                user = Arrays.copyOf(user, capacity);
+                project = Arrays.copyOf(project, capacity);
+                week = Arrays.copyOf(week, capacity);
+                hundredths = Arrays.copyOf(hundredths, capacity);
+            }
+            user[size] = userIndex.computeIfAbsent(c.userId(), id -> {
+                int i = intern(users, c.username());
+                userIndexByName.put(fold(c.username()), i);
+                return i;
+            });
+            project[size] = projectIndexByCode.computeIfAbsent(c.projectCode(),
+                    code -> projectIndex.computeIfAbsent(fold(code), k -> intern(projects, code)));
+            week[size] = (int) c.weekStart().toEpochDay();
+            hundredths[size] = c.hours().hundredths();
+            size++;
+        }
+
+        private static int intern(List<String> dictionary, String value) {
+            if (dictionary.size() == MAX_DICTIONARY_SIZE) {
+                throw new IllegalStateException("Hours cube dictionary is full");
+            }
+            dictionary.add(value);
+            return dictionary.size() - 1;
+        }
+
+        Snapshot build(long appliedThrough) {
+            return new Snapshot(appliedThrough, users.toArray(String[]::new), userIndex, userIndexByName,
+                    projects.toArray(String[]::new), projectIndex, size, user, project, week, hundredths);
+        }
+    }
+
+    // Open-addressing sum table from packed group keys, which are never negative, to hundredths
+    private static final class LongSumTable {
+        private static final long EMPTY = -1L;
+        private long[] keys = filled(64);
+        private long[] sums = new long[64];
+        int size;
+
+        void add(long key, long value) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] != EMPTY) {
+                sums[i] += value;
+                return;
+            }
+            keys[i] = key;
+            sums[i] = value;
+            if (++size * 2 > keys.length) grow();
+        }
+
+        void forEach(KeySum action) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) action.accept(keys[i], sums[i]);
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldSums = sums;
+            keys = filled(oldKeys.length * 2);
+            sums = new long[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == EMPTY) continue;
+                int i = hash(oldKeys[j]) & mask;
+                while (keys[i] != EMPTY) i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                sums[i] = oldSums[j];
+            }
+        }
+
+        private static long[] filled(int length) {
+            long[] a = new long[length];
+            Arrays.fill(a, EMPTY);
+            return a;
+        }
+
+        private static int hash(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+
+        @FunctionalInterface
+        interface KeySum {
+            void accept(long key, long sum);
+        }
+    }
+}
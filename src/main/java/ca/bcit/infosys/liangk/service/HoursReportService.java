@@ -0,0 +1,114 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dao.HoursRollupDAO;
+import ca.bcit.infosys.liangk.dao.HoursRollupRow;
+import ca.bcit.infosys.liangk.exception.ValidationException;
+import jakarta.ejb.Stateless;
+import jakarta.inject.Inject;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Company-wide hours reports, read from the hours rollup rather than from timesheet entries, so
+ * a report costs an index range scan over the requested weeks regardless of how many entries
+ * exist. Dashboard breakdowns are answered from the in-memory copy of the rollup in
+ * {@link HoursCube}.
+ */
+@Stateless
+public class HoursReportService {
+
+    /** Widest range a single report may cover. */
+    public static final int MAX_RANGE_DAYS = 366;
+
+    @Inject
+    private HoursRollupDAO hoursRollupDAO;
+
+    @Inject
+    private HoursCube hoursCube;
+
+    /**
+     * Returns total hours per project and week, or per user, project and week.
+     *
+     * @param from        first week start, inclusive (yyyy-MM-dd)
+     * @param to          last week start, inclusive (yyyy-MM-dd)
+     * @param projectCode only this project if not blank
+     * @param groupBy     {@code project} (default) or {@code user}
+     * @return rows ordered by week and project
+     * @throws ValidationException if a parameter is missing or malformed, the range is reversed or
+     *                             wider than {@link #MAX_RANGE_DAYS}
+     */
+    public List<HoursRollupRow> hoursByProjectAndWeek(String from, String to, String projectCode, String groupBy) {
+        LocalDate start = parseBound("from", from);
+        LocalDate end = parseBound("to", to);
+        checkRange(start, end);
+        String project = trimToNull(projectCode);
+        String by = groupBy == null || groupBy.isBlank() ? "project" : groupBy.trim().toLowerCase(Locale.ROOT);
+        return switch (by) {
+            case "project" -> hoursRollupDAO.findProjectWeekTotals(start, end, project);
+            case "user" -> hoursRollupDAO.findUserProjectWeekTotals(start, end, project);
+            default -> throw new ValidationException("groupBy must be 'project' or 'user'");
+        };
+    }
+
+    /**
+     * Returns total hours from the in-memory {@link HoursCube}, grouped by any mix of user, project
+     * and week, e.g. {@code user,week} for a utilization heatmap. Writes made on other nodes show up
+     * after the cube's next reload.
+     *
+     * @param from        first week start, inclusive (yyyy-MM-dd)
+     * @param to          last week start, inclusive (yyyy-MM-dd)
+     * @param projectCode only this project if not blank
+     * @param username    only this user if not blank
+     * @param groupBy     comma-separated subset of {@code user}, {@code project} and {@code week};
+     *                    {@code project,week} if blank
+     * @return rows ordered by week, project, then username; dimensions not grouped by are null
+     * @throws ValidationException if a parameter is missing or malformed, the range is reversed or
+     *                             wider than {@link #MAX_RANGE_DAYS}
+     */
+    public List<HoursRollupRow> hoursBreakdown(String from, String to, String projectCode, String username,
+                                               String groupBy) {
+        LocalDate start = parseBound("from", from);
+        LocalDate end = parseBound("to", to);
+        checkRange(start, end);
+        Set<HoursCube.Dimension> dimensions = EnumSet.noneOf(HoursCube.Dimension.class);
+        if (groupBy == null || groupBy.isBlank()) {
+            dimensions.add(HoursCube.Dimension.PROJECT);
+            dimensions.add(HoursCube.Dimension.WEEK);
+        } else {
+            for (String part : groupBy.split(",")) {
+                String name = part.trim().toUpperCase(Locale.ROOT);
+                try {
+                    dimensions.add(HoursCube.Dimension.valueOf(name));
+                } catch (IllegalArgumentException e) {
+                    throw new ValidationException("groupBy may only list 'user', 'project' and 'week'");
+                }
+            }
+        }
+        return hoursCube.query(start, end, trimToNull(projectCode), trimToNull(username), dimensions);
+    }
+
+    private static void checkRange(LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) throw new ValidationException("to must not be before from");
+        if (ChronoUnit.DAYS.between(start, end) > MAX_RANGE_DAYS) {
+            throw new ValidationException("Range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+    }
+
+    private static String trimToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static LocalDate parseBound(String name, String value) {
+        if (value == null || value.isBlank()) throw new ValidationException(name + " is required");
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (Exception e) {
+            throw new ValidationException("Invalid " + name + " format, expected yyyy-MM-dd");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dao.HoursRollupKey;
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.TimesheetEntry;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Net changes to the hours rollup caused by one write. Adding a timesheet's entries before a
+ * change with a negative sign and after it with a positive sign leaves only the keys that moved,
+ * so the upsert touches as many rows as the write changed.
+ */
+final class HoursRollupDeltas {
+
+    private final Map<HoursRollupKey, Hours> deltas = new HashMap<>();
+
+    /**
+     * Adds (or, if {@code subtract}, removes) the hours of each entry under its project.
+     */
+    HoursRollupDeltas add(long userId, LocalDate weekStart, Collection<TimesheetEntry> entries, boolean subtract) {
+        for (TimesheetEntry e : entries) {
+            if (e == null || e.getHours() == null) continue;
+            add(userId, weekStart, e.getProjectCode(), subtract ? e.getHours().negate() : e.getHours());
+        }
+        return this;
+    }
+
+    /**
+     * Adds {@code hours}, which may be negative, to one key.
+     */
+    HoursRollupDeltas add(long userId, LocalDate weekStart, String projectCode, Hours hours) {
+        if (!hours.isZero()) {
+            deltas.merge(new HoursRollupKey(userId, projectCode, weekStart), hours, Hours::plus);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the keys whose net change is not zero.
+     */
+    Map<HoursRollupKey, Hours> nonZero() {
+        deltas.values().removeIf(Hours::isZero);
+        return deltas;
+    }
+}
@@ -0,0 +1,151 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dao.AuthTokenDAO;
+import ca.bcit.infosys.liangk.util.AppConfig;
+import ca.bcit.infosys.liangk.util.TokenHash;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.inject.Inject;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sliding expiration for opaque bearer tokens without a write per request.
+ * <p>
+ * Validation only records activity in memory via {@link #touch}. A token is queued for renewal
+ * once its expiry has fallen more than {@code timesheets.auth.sliding.renewIntervalSeconds}
+ * (default 300) behind a full lifetime, and at most once per interval on this node. A background
+ * task flushes the queue in chunks, each a single bulk UPDATE in its own transaction, setting
+ * expiry to a full lifetime from the flush. Sessions stop sliding once they would outlive
+ * {@code timesheets.auth.sliding.maxSessionHours} (default 24) from login. Signed tokens carry
+ * their expiry in the signature and do not slide.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class SessionRenewer {
+
+    private static final Logger LOGGER = Logger.getLogger(SessionRenewer.class.getName());
+    private static final int FLUSH_CHUNK_SIZE = 500;
+
+    @Inject
+    private AuthTokenDAO tokenDAO;
+
+    private final boolean enabled;
+    private final long renewIntervalMillis;
+    private final long maxSessionHours;
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    private final Map<String, Long> recentlyQueued = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong extended = new AtomicLong();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+
+    public SessionRenewer() {
+        this(AppConfig.getBoolean("timesheets.auth.sliding.enabled", true),
+                TimeUnit.SECONDS.toMillis(AppConfig.getLong("timesheets.auth.sliding.renewIntervalSeconds", 300L)),
+                AppConfig.getLong("timesheets.auth.sliding.maxSessionHours", 24L));
+    }
+
+    /**
+     * @param enabled             whether activity extends token expiry
+     * @param renewIntervalMillis minimum time between renewals of one token
+     * @param maxSessionHours     absolute session lifetime from login
+     */
+    public SessionRenewer(boolean enabled, long renewIntervalMillis, long maxSessionHours) {
+        this.enabled = enabled;
+        this.renewIntervalMillis = renewIntervalMillis;
+        this.maxSessionHours = maxSessionHours;
+    }
+
+    /**
+     * Records activity on a validated token, queueing a renewal if one is due. Never touches the
+     * database.
+     *
+     * @param token     opaque token value
+     * @param expiresAt the token's expiry as last read
+     */
+    public void touch(String token, LocalDateTime expiresAt) {
+        if (!enabled || token == null || expiresAt == null) return;
+        LocalDateTime renewBelow = LocalDateTime.now()
+                .plusHours(AuthService.TOKEN_TTL_HOURS)
+                .minusNanos(TimeUnit.MILLISECONDS.toNanos(renewIntervalMillis));
+        if (!expiresAt.isBefore(renewBelow)) return;
+
+        long now = System.currentTimeMillis();
+        Long last = recentlyQueued.get(token);
+        if (last != null && now - last < renewIntervalMillis) {
+            coalesced.increment();
+            return;
+        }
+        recentlyQueued.put(token, now);
+        pending.put(token, now);
+        queued.increment();
+    }
+
+    /**
+     * Writes queued renewals in chunks.
+     */
+    @Schedule(hour = "*", minute = "*", second = "*/30", persistent = false)
+    public void flush() {
+        if (!flushing.compareAndSet(false, true)) return;
+        long start = System.currentTimeMillis();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiresAt = now.plusHours(AuthService.TOKEN_TTL_HOURS);
+            LocalDateTime issuedAfter = expiresAt.minusHours(maxSessionHours);
+            List<byte[]> chunk = new ArrayList<>(FLUSH_CHUNK_SIZE);
+            Iterator<String> it = pending.keySet().iterator();
+            while (it.hasNext()) {
+                chunk.add(TokenHash.of(it.next()));
+                it.remove();
+                if (chunk.size() == FLUSH_CHUNK_SIZE) {
+                    extended.addAndGet(tokenDAO.extendExpiry(chunk, now, expiresAt, issuedAfter));
+                    chunk = new ArrayList<>(FLUSH_CHUNK_SIZE);
+                }
+            }
+            extended.addAndGet(tokenDAO.extendExpiry(chunk, now, expiresAt, issuedAfter));
+        } catch (RuntimeException e) {
+            // Dropped renewals are retried on the next touch once the interval has passed
+            LOGGER.log(Level.WARNING, "Session renewal flush failed", e);
+        } finally {
+            recentlyQueued.values().removeIf(queuedAt -> queuedAt < start - renewIntervalMillis);
+            flushes.incrementAndGet();
+            lastFlushMillis.set(System.currentTimeMillis() - start);
+            flushing.set(false);
+        }
+    }
+
+    /**
+     * Returns renewal counters.
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("pending", (long) pending.size());
+        stats.put("queued", queued.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("flushes", flushes.get());
+        stats.put("extended", extended.get());
+        stats.put("lastFlushMillis", lastFlushMillis.get());
+        return stats;
+    }
+}
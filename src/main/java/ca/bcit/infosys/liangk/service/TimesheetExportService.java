@@ -0,0 +1,198 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dao.TimesheetDAO;
+import ca.bcit.infosys.liangk.dao.TimesheetExportRow;
+import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.util.AppConfig;
+import jakarta.annotation.Resource;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import jakarta.transaction.Status;
+import jakarta.transaction.UserTransaction;
+
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams timesheets with their entries as NDJSON, one timesheet per line, in the shape
+ * {@link TimesheetImportReader} accepts, so an export can be re-imported.
+ * <p>
+ * Rows come from a forward-only scroll and are written as they arrive, so memory use does not
+ * depend on the number of timesheets. The scroll runs in one read-only transaction whose timeout
+ * is {@code timesheets.export.timeoutSeconds} (default 3600). The JDBC fetch size is
+ * {@code timesheets.export.fetchSize}; the default, {@link Integer#MIN_VALUE}, makes MySQL
+ * Connector/J stream row by row. A positive size only takes effect with {@code useCursorFetch=true}
+ * on the datasource URL; otherwise the driver buffers the whole result.
+ */
+@Stateless
+@TransactionManagement(TransactionManagementType.BEAN)
+public class TimesheetExportService {
+
+    private static final Logger LOGGER = Logger.getLogger(TimesheetExportService.class.getName());
+    private static final int FLUSH_EVERY_TIMESHEETS = 500;
+    private static final JsonGeneratorFactory JSON = Json.createGeneratorFactory(Map.of());
+
+    @Inject
+    private TimesheetDAO timesheetDAO;
+
+    @Resource
+    private UserTransaction userTransaction;
+
+    private final int fetchSize = AppConfig.getInt("timesheets.export.fetchSize", Integer.MIN_VALUE);
+    private final int timeoutSeconds = AppConfig.getInt("timesheets.export.timeoutSeconds", 3600);
+
+    /**
+     * Checks an export range before any output is produced.
+     *
+     * @param from first week start, inclusive (yyyy-MM-dd)
+     * @param to   last week start, inclusive (yyyy-MM-dd)
+     * @return parsed range
+     * @throws ValidationException if a bound is missing or malformed, or the range is reversed
+     */
+    public Range parseRange(String from, String to) {
+        LocalDate start = parseBound("from", from);
+        LocalDate end = parseBound("to", to);
+        if (end.isBefore(start)) throw new ValidationException("to must not be before from");
+        return new Range(start, end);
+    }
+
+    /**
+     * Writes every timesheet whose week starts within the range to {@code out}.
+     *
+     * @param range week starts to export
+     * @param out   destination; flushed but not closed
+     * @return number of timesheets written
+     * @throws UncheckedIOException if writing fails, e.g. the client disconnected
+     */
+    public long export(Range range, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        NdjsonSink sink = new NdjsonSink(writer);
+        try {
+            userTransaction.setTransactionTimeout(timeoutSeconds);
+            userTransaction.begin();
+            timesheetDAO.scrollForExport(range.from(), range.to(), fetchSize, sink);
+            userTransaction.commit();
+        } catch (UncheckedIOException e) {
+            rollbackQuietly();
+            throw e;
+        } catch (Exception e) {
+            rollbackQuietly();
+            throw new IllegalStateException("Timesheet export failed", e);
+        }
+        sink.finish();
+        return sink.timesheets;
+    }
+
+    private void rollbackQuietly() {
+        try {
+            if (userTransaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                userTransaction.rollback();
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Rollback of export transaction failed", e);
+        }
+    }
+
+    private static LocalDate parseBound(String name, String value) {
+        if (value == null || value.isBlank()) throw new ValidationException(name + " is required");
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (Exception e) {
+            throw new ValidationException("Invalid " + name + " format, expected yyyy-MM-dd");
+        }
+    }
+
+    /**
+     * Inclusive range of week start dates.
+     */
+    public record Range(LocalDate from, LocalDate to) {
+    }
+
+    // Folds consecutive rows of one timesheet into a single JSON line
+    private static final class NdjsonSink implements Consumer<TimesheetExportRow> {
+        private final Writer writer;
+        private final Writer lineWriter;
+        private JsonGenerator line;
+        private Long currentId;
+        long timesheets;
+
+        NdjsonSink(Writer writer) {
+            this.writer = writer;
+            // Each line gets its own generator; closing one must not close the response stream
+            this.lineWriter = new FilterWriter(writer) {
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public void accept(TimesheetExportRow row) {
+            if (!Objects.equals(row.timesheetId(), currentId)) {
+                endTimesheet();
+                currentId = row.timesheetId();
+                line = JSON.createGenerator(lineWriter);
+                line.writeStartObject()
+                        .write("id", row.timesheetId())
+                        .write("username", row.username())
+                        .write("weekStart", row.weekStart().toString())
+                        .write("status", row.status().name())
+                        .write("totalHours", row.totalHours().toBigDecimal())
+                        .writeStartArray("entries");
+            }
+            if (row.entryId() == null) return;
+            line.writeStartObject()
+                    .write("id", row.entryId())
+                    .write("workDate", row.workDate().toString())
+                    .write("projectCode", row.projectCode());
+            if (row.taskCode() != null) line.write("taskCode", row.taskCode());
+            line.write("hours", row.hours().toBigDecimal());
+            if (row.description() != null) line.write("description", row.description());
+            line.writeEnd();
+        }
+
+        void finish() {
+            endTimesheet();
+            flush();
+        }
+
+        private void endTimesheet() {
+            if (line == null) return;
+            line.writeEnd().writeEnd();
+            line.close();
+            line = null;
+            timesheets++;
+            try {
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write export", e);
+            }
+            if (timesheets % FLUSH_EVERY_TIMESHEETS == 0) flush();
+        }
+
+        private void flush() {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write export", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dto.TimesheetDTO;
+import ca.bcit.infosys.liangk.dto.TimesheetEntryDTO;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+import ca.bcit.infosys.liangk.exception.ValidationException;
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonException;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonReaderFactory;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads timesheets for bulk import one at a time from a stream, so the payload is never held in
+ * memory. Only the shape of the input is checked here; field rules are applied by the importer.
+ * <p>
+ * NDJSON ({@value #NDJSON}) carries one timesheet per line:
+ * {@code {"username":"alice","weekStart":"2025-01-06","status":"OPEN","entries":[{"workDate":...,
+ * "projectCode":...,"taskCode":...,"hours":7.5,"description":...}]}}.
+ * <p>
+ * CSV ({@value #CSV}) carries one entry per row under a header naming the columns
+ * {@code username, weekStart, status, workDate, projectCode, taskCode, hours, description} in any
+ * order; {@code status}, {@code taskCode} and {@code description} may be omitted. Consecutive rows
+ * with the same username and week form one timesheet, so rows must be grouped by timesheet. A row
+ * with empty entry columns contributes a timesheet without entries. A row that cannot be parsed
+ * between two rows of the same timesheet fails that whole timesheet; elsewhere it is reported on
+ * its own.
+ */
+public abstract class TimesheetImportReader {
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String CSV = "text/csv";
+
+    static final int MAX_LINE_CHARS = 1 << 20;
+    private static final String OVERSIZED_LINE = new String("<oversized>");
+
+    private final Reader in;
+    private long lineNumber;
+
+    TimesheetImportReader(InputStream in) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens a reader for the given media type.
+     *
+     * @param mediaType {@link #NDJSON} or {@link #CSV}, parameters ignored
+     * @param in        request body, read as UTF-8
+     * @throws ValidationException if the media type is not supported
+     */
+    public static TimesheetImportReader open(String mediaType, InputStream in) {
+        String type = mediaType == null ? "" : mediaType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        return switch (type) {
+            case NDJSON -> new NdjsonReader(in);
+            case CSV -> new CsvReader(in);
+            default -> throw new ValidationException("Unsupported import format, expected " + NDJSON + " or " + CSV);
+        };
+    }
+
+    /**
+     * Returns the next timesheet, or null at the end of the input.
+     *
+     * @throws UncheckedIOException if the stream fails
+     */
+    public abstract ImportRow next();
+
+    /**
+     * One timesheet read from the input.
+     *
+     * @param line      line the timesheet starts on (1-based)
+     * @param username  owner's username
+     * @param timesheet week, status and entries as given
+     * @param error     reason the input could not be read, or null
+     */
+    public record ImportRow(long line, String username, TimesheetDTO timesheet, String error) {
+        static ImportRow failed(long line, String error) {
+            return new ImportRow(line, null, null, error);
+        }
+    }
+
+    // Returns null at end of input; lines over MAX_LINE_CHARS are skipped and reported as OVERSIZED_LINE
+    String readLine() {
+        try {
+            StringBuilder sb = new StringBuilder();
+            boolean oversized = false;
+            int c;
+            while ((c = in.read()) != -1 && c != '\n') {
+                if (sb.length() < MAX_LINE_CHARS) {
+                    sb.append((char) c);
+                } else {
+                    oversized = true;
+                }
+            }
+            if (c == -1 && sb.isEmpty() && !oversized) return null;
+            lineNumber++;
+            if (oversized) return OVERSIZED_LINE;
+            int len = sb.length();
+            if (len > 0 && sb.charAt(len - 1) == '\r') sb.setLength(len - 1);
+            return sb.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read import stream", e);
+        }
+    }
+
+    long lineNumber() {
+        return lineNumber;
+    }
+
+    static boolean isOversized(String line) {
+        return line == OVERSIZED_LINE;
+    }
+
+    static String oversizedMessage() {
+        return "Line exceeds " + MAX_LINE_CHARS + " characters";
+    }
+
+    static TimesheetStatus parseStatus(String s) {
+        if (s == null || s.isBlank()) return null;
+        try {
+            return TimesheetStatus.valueOf(s.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid status '" + s.trim() + "'");
+        }
+    }
+
+    private static final class NdjsonReader extends TimesheetImportReader {
+
+        // Json.createReader looks the provider up again on every call
+        private static final JsonReaderFactory JSON = Json.createReaderFactory(Map.of());
+
+        NdjsonReader(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public ImportRow next() {
+            String line;
+            while ((line = readLine()) != null) {
+                if (isOversized(line)) return ImportRow.failed(lineNumber(), oversizedMessage());
+                if (!line.isBlank()) return parse(lineNumber(), line);
+            }
+            return null;
+        }
+
+        private static ImportRow parse(long lineNo, String line) {
+            JsonObject obj;
+            try (JsonReader r = JSON.createReader(new StringReader(line))) {
+                obj = r.readObject();
+            } catch (JsonException e) {
+                return ImportRow.failed(lineNo, "Malformed JSON object");
+            }
+            try {
+                TimesheetDTO dto = new TimesheetDTO();
+                dto.setWeekStart(string(obj, "weekStart"));
+                dto.setStatus(parseStatus(string(obj, "status")));
+                JsonValue entries = obj.get("entries");
+                if (entries != null && entries.getValueType() != JsonValue.ValueType.NULL) {
+                    if (entries.getValueType() != JsonValue.ValueType.ARRAY) {
+                        throw new ValidationException("entries must be an array");
+                    }
+                    for (JsonValue v : (JsonArray) entries) {
+                        if (v.getValueType() != JsonValue.ValueType.OBJECT) {
+                            throw new ValidationException("Each entry must be an object");
+                        }
+                        dto.getEntries().add(entry((JsonObject) v));
+                    }
+                }
+                return new ImportRow(lineNo, string(obj, "username"), dto, null);
+            } catch (ValidationException e) {
+                return ImportRow.failed(lineNo, e.getMessage());
+            }
+        }
+
+        private static TimesheetEntryDTO entry(JsonObject obj) {
+            TimesheetEntryDTO e = new TimesheetEntryDTO();
+            e.setWorkDate(string(obj, "workDate"));
+            e.setProjectCode(string(obj, "projectCode"));
+            e.setTaskCode(string(obj, "taskCode"));
+            e.setDescription(string(obj, "description"));
+            JsonValue hours = obj.get("hours");
+            if (hours instanceof JsonNumber n) {
+                e.setHours(n.bigDecimalValue());
+            } else if (hours instanceof JsonString s) {
+                e.setHours(parseHours(s.getString()));
+            } else if (hours != null && hours.getValueType() != JsonValue.ValueType.NULL) {
+                throw new ValidationException("Entry hours must be a number");
+            }
+            return e;
+        }
+
+        private static String string(JsonObject obj, String name) {
+            JsonValue v = obj.get(name);
+            if (v == null || v.getValueType() == JsonValue.ValueType.NULL) return null;
+            if (v instanceof JsonString s) return s.getString();
+            throw new ValidationException(name + " must be a string");
+        }
+    }
+
+    private static final class CsvReader extends TimesheetImportReader {
+
+        private static final List<String> REQUIRED = List.of("username", "weekstart", "workdate", "projectcode", "hours");
+
+        private Map<String, Integer> columns;
+        private String[] pending;
+        private long pendingLine;
+        private String pendingError;
+        private final Deque<ImportRow> malformed = new ArrayDeque<>();
+
+        CsvReader(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public ImportRow next() {
+            if (!malformed.isEmpty()) return malformed.poll();
+            if (columns == null && !readHeader()) return null;
+            if (pending == null && !advance()) return null;
+            if (pendingError != null) {
+                ImportRow failed = ImportRow.failed(pendingLine, pendingError);
+                pending = null;
+                pendingError = null;
+                return failed;
+            }
+
+            long startLine = pendingLine;
+            String username = field(pending, "username");
+            String weekStart = field(pending, "weekstart");
+            TimesheetDTO dto = new TimesheetDTO();
+            dto.setWeekStart(weekStart);
+            String error = null;
+            do {
+                if (pendingError != null) {
+                    // Held back until a later row shows whether it fell inside this timesheet
+                    malformed.add(ImportRow.failed(pendingLine, pendingError));
+                } else {
+                    if (error == null && !malformed.isEmpty()) {
+                        ImportRow first = malformed.peek();
+                        error = first.error() + " (line " + first.line() + ")";
+                    }
+                    malformed.clear();
+                    if (error == null) error = addRow(dto, pending);
+                }
+                pending = null;
+                pendingError = null;
+            } while (advance() && (pendingError != null
+                    || (Objects.equals(field(pending, "username"), username)
+                    && Objects.equals(field(pending, "weekstart"), weekStart))));
+            // Rows left in malformed trail the timesheet and are returned before the pending row
+            return error == null
+                    ? new ImportRow(startLine, username, dto, null)
+                    : ImportRow.failed(startLine, error);
+        }
+
+        // Folds one row into the timesheet; returns an error message instead of throwing
+        private String addRow(TimesheetDTO dto, String[] row) {
+            try {
+                TimesheetStatus status = parseStatus(field(row, "status"));
+                if (status != null) {
+                    if (dto.getStatus() != null && dto.getStatus() != status) {
+                        throw new ValidationException("Conflicting status within timesheet");
+                    }
+                    dto.setStatus(status);
+                }
+                String workDate = field(row, "workdate");
+                String projectCode = field(row, "projectcode");
+                String hours = field(row, "hours");
+                if (workDate == null && projectCode == null && hours == null) return null;
+                TimesheetEntryDTO e = new TimesheetEntryDTO();
+                e.setWorkDate(workDate);
+                e.setProjectCode(projectCode);
+                e.setTaskCode(field(row, "taskcode"));
+                e.setHours(parseHours(hours));
+                e.setDescription(field(row, "description"));
+                dto.getEntries().add(e);
+                return null;
+            } catch (ValidationException e) {
+                return e.getMessage() + " (line " + pendingLine + ")";
+            }
+        }
+
+        private boolean readHeader() {
+            String line;
+            do {
+                line = readLine();
+                if (line == null) return false;
+            } while (line.isBlank());
+            String[] names;
+            try {
+                names = isOversized(line) ? null : parseLine(line.replace("\uFEFF", ""));
+            } catch (ValidationException e) {
+                names = null;
+            }
+            if (names == null) throw new ValidationException("Malformed CSV header");
+            columns = new HashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                columns.put(names[i].trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (String required : REQUIRED) {
+                if (!columns.containsKey(required)) {
+                    throw new ValidationException("CSV header is missing column " + required);
+                }
+            }
+            return true;
+        }
+
+        // Loads the next non-blank row into pending; false at end of input
+        private boolean advance() {
+            String line;
+            do {
+                line = readLine();
+                if (line == null) return false;
+            } while (line.isBlank());
+            pendingLine = lineNumber();
+            pendingError = null;
+            pending = new String[0];
+            if (isOversized(line)) {
+                pendingError = oversizedMessage();
+                return true;
+            }
+            try {
+                pending = parseLine(line);
+            } catch (ValidationException e) {
+                pendingError = e.getMessage();
+            }
+            return true;
+        }
+
+        private String field(String[] row, String name) {
+            Integer i = columns.get(name);
+            if (i == null || i >= row.length) return null;
+            String v = row[i];
+            return v.isBlank() ? null : v;
+        }
+
+        // RFC 4180 fields on a single line: quoted fields may contain commas and doubled quotes
+        static String[] parseLine(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder cur = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        cur.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cur.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"' && cur.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(cur.toString());
+                    cur.setLength(0);
+                } else {
+                    cur.append(c);
+                }
+            }
+            if (quoted) throw new ValidationException("Unterminated quoted field");
+            fields.add(cur.toString());
+            return fields.toArray(new String[0]);
+        }
+    }
+
+    private static BigDecimal parseHours(String s) {
+        if (s == null || s.isBlank()) return null;
+        try {
+            return new BigDecimal(s.trim());
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid entry hours '" + s.trim() + "'");
+        }
+    }
+}
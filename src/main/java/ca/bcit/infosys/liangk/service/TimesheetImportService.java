@@ -0,0 +1,201 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dao.HoursRollupDAO;
+import ca.bcit.infosys.liangk.dao.HoursRollupKey;
+import ca.bcit.infosys.liangk.dao.TimesheetBulkWriter;
+import ca.bcit.infosys.liangk.dao.TimesheetDAO;
+import ca.bcit.infosys.liangk.dao.UserDAO;
+import ca.bcit.infosys.liangk.dto.ImportReport;
+import ca.bcit.infosys.liangk.dto.TimesheetDTO;
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.Timesheet;
+import ca.bcit.infosys.liangk.entity.TimesheetEntry;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.service.TimesheetImportReader.ImportRow;
+import ca.bcit.infosys.liangk.util.AppConfig;
+import jakarta.annotation.Resource;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.UserTransaction;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bulk import of timesheets for data migration.
+ * <p>
+ * Rows are read from a {@link TimesheetImportReader} and committed in chunks of
+ * {@code timesheets.import.chunkSize} timesheets (default 500), each chunk in its own transaction,
+ * so memory use does not grow with the payload and a failure loses at most one chunk. Rows are
+ * validated with the same {@link TimesheetValidator} rules as {@link TimesheetService#createTimesheet},
+ * and a row's failure message lists all of its violations. Per chunk, owners are
+ * resolved with one query and the one-timesheet-per-user-per-week rule is checked against the
+ * database with one query, plus an in-memory check for duplicates within the import. Accepted
+ * rows are written through a stateless session in JDBC batches, and the chunk's hours are added
+ * to the hours rollup in the same transaction and to the {@link HoursCube} once it commits.
+ * <p>
+ * If a chunk fails to commit (e.g. a timesheet for the same week was created concurrently) it is
+ * rolled back, each of its rows is reported as failed and the import continues with the next chunk.
+ */
+@Stateless
+@TransactionManagement(TransactionManagementType.BEAN)
+public class TimesheetImportService {
+
+    private static final Logger LOGGER = Logger.getLogger(TimesheetImportService.class.getName());
+    private static final int JDBC_BATCH_SIZE = 50;
+
+    @Inject
+    private TimesheetDAO timesheetDAO;
+
+    @Inject
+    private UserDAO userDAO;
+
+    @Inject
+    private HoursRollupDAO hoursRollupDAO;
+
+    @Inject
+    private HoursCube hoursCube;
+
+    @Resource
+    private UserTransaction userTransaction;
+
+    private final int chunkSize = Math.max(1, AppConfig.getInt("timesheets.import.chunkSize", 500));
+
+    /**
+     * Imports every timesheet the reader yields.
+     *
+     * @param reader source of rows
+     * @return counts and per-row errors
+     * @throws java.io.UncheckedIOException if the input stream fails; chunks already committed remain
+     */
+    public ImportReport importTimesheets(TimesheetImportReader reader) {
+        ImportReport report = new ImportReport();
+        List<Candidate> chunk = new ArrayList<>(chunkSize);
+        ImportRow row;
+        while ((row = reader.next()) != null) {
+            Candidate c = validate(row, report);
+            if (c == null) continue;
+            chunk.add(c);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        importChunk(chunk, report);
+        return report;
+    }
+
+    private static Candidate validate(ImportRow row, ImportReport report) {
+        if (row.error() != null) {
+            report.addFailure(row.line(), row.error());
+            return null;
+        }
+        try {
+            if (row.username() == null || row.username().isBlank()) {
+                throw new ValidationException("username is required");
+            }
+            TimesheetDTO dto = row.timesheet();
+            TimesheetValidator.Checked checked = TimesheetValidator.DEFAULT.validate(dto, null);
+            Timesheet ts = new Timesheet();
+            ts.setWeekStart(checked.weekStart());
+            ts.setStatus(dto.getStatus() == null ? TimesheetStatus.OPEN : dto.getStatus());
+            ts.setEntries(new ArrayList<>());
+            if (checked.entries() != null) {
+                for (TimesheetEntry e : checked.entries()) {
+                    if (e != null) ts.addEntry(e);
+                }
+            }
+            ts.recalcTotalHours();
+            return new Candidate(row.line(), row.username().trim(), ts);
+        } catch (ValidationException e) {
+            report.addFailure(row.line(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void importChunk(List<Candidate> chunk, ImportReport report) {
+        if (chunk.isEmpty()) return;
+        // Rejections are reported once the chunk's outcome is known
+        Map<Candidate, String> rejected = new LinkedHashMap<>();
+        try {
+            userTransaction.begin();
+            try (TimesheetBulkWriter writer = timesheetDAO.openBulkWriter(JDBC_BATCH_SIZE)) {
+                Set<String> names = new HashSet<>();
+                Set<LocalDate> weeks = new HashSet<>();
+                for (Candidate c : chunk) {
+                    names.add(c.username());
+                    weeks.add(c.timesheet().getWeekStart());
+                }
+                // The username column compares case-insensitively, so match on a folded key
+                Map<String, Long> userIds = new HashMap<>();
+                userDAO.findIdsByUsernames(names).forEach((name, id) -> userIds.put(key(name), id));
+                Map<Long, Set<LocalDate>> taken = timesheetDAO.findExistingWeeks(userIds.values(), weeks);
+
+                List<Timesheet> inserts = new ArrayList<>(chunk.size());
+                HoursRollupDeltas rollup = new HoursRollupDeltas();
+                for (Candidate c : chunk) {
+                    Long userId = userIds.get(key(c.username()));
+                    LocalDate week = c.timesheet().getWeekStart();
+                    if (userId == null) {
+                        rejected.put(c, "Unknown user '" + c.username() + "'");
+                    } else if (!taken.computeIfAbsent(userId, k -> new HashSet<>()).add(week)) {
+                        rejected.put(c, "Timesheet already exists for week start " + week);
+                    } else {
+                        c.timesheet().setOwner(userDAO.getReference(userId));
+                        inserts.add(c.timesheet());
+                        rollup.add(userId, week, c.timesheet().getEntries(), false);
+                    }
+                }
+                writer.insertAll(inserts);
+                Map<HoursRollupKey, Hours> deltas = rollup.nonZero();
+                hoursRollupDAO.applyDeltas(deltas);
+                hoursCube.afterCommit(deltas);
+                userTransaction.commit();
+                report.addImported(inserts.size());
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Import chunk starting at line " + chunk.get(0).line() + " rolled back", e);
+            rollbackQuietly();
+            String message = "Not imported: its chunk was rolled back (" + rootMessage(e) + ")";
+            for (Candidate c : chunk) {
+                rejected.putIfAbsent(c, message);
+            }
+        }
+        rejected.forEach((c, message) -> report.addFailure(c.line(), message));
+    }
+
+    private void rollbackQuietly() {
+        try {
+            if (userTransaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                userTransaction.rollback();
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Rollback of import chunk failed", e);
+        }
+    }
+
+    private static String key(String username) {
+        return username.stripTrailing().toLowerCase(Locale.ROOT);
+    }
+
+    private static String rootMessage(Throwable t) {
+        while (t.getCause() != null) t = t.getCause();
+        return t.getMessage() == null ? t.getClass().getSimpleName() : t.getMessage();
+    }
+
+    private record Candidate(long line, String username, Timesheet timesheet) {
+    }
+}
@@ -1,41 +1,80 @@
 package ca.bcit.infosys.liangk.service;
 
+import ca.bcit.infosys.liangk.dao.HoursRollupDAO;
+import ca.bcit.infosys.liangk.dao.HoursRollupKey;
 import ca.bcit.infosys.liangk.dao.TimesheetDAO;
+import ca.bcit.infosys.liangk.dao.TimesheetHeader;
+import ca.bcit.infosys.liangk.dao.TimesheetKey;
+import ca.bcit.infosys.liangk.dao.TimesheetListRow;
+import ca.bcit.infosys.liangk.dao.TimesheetSearchFilter;
+import ca.bcit.infosys.liangk.dao.TimesheetSearchRow;
+import ca.bcit.infosys.liangk.dao.TimesheetVersion;
+import ca.bcit.infosys.liangk.dao.UserDAO;
 import ca.bcit.infosys.liangk.dto.TimesheetDTO;
 import ca.bcit.infosys.liangk.dto.TimesheetEntryDTO;
+import ca.bcit.infosys.liangk.entity.Hours;
 import ca.bcit.infosys.liangk.entity.Timesheet;
 import ca.bcit.infosys.liangk.entity.TimesheetEntry;
 import ca.bcit.infosys.liangk.entity.TimesheetStatus;
-import ca.bcit.infosys.liangk.entity.User;
 import ca.bcit.infosys.liangk.entity.UserRole;
+import ca.bcit.infosys.liangk.exception.ConflictException;
 import ca.bcit.infosys.liangk.exception.ForbiddenException;
 import ca.bcit.infosys.liangk.exception.NotFoundException;
+import ca.bcit.infosys.liangk.exception.PreconditionFailedException;
 import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.security.AuthPrincipal;
+import ca.bcit.infosys.liangk.util.Page;
 import jakarta.ejb.Stateless;
 import jakarta.inject.Inject;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Business logic for managing timesheets and their entries.
  * <p>
  * This service enforces access control (owner or admin), uniqueness of one timesheet per
- * user/week, and validation of entry hours and dates.
+ * user/week, and validation of entries through {@link TimesheetValidator}, which reports every
+ * problem in a payload at once. Every write also applies its net change in hours per project to
+ * the hours rollup, in the same transaction, and to the {@link HoursCube} once it commits.
  */
 @Stateless
 public class TimesheetService {
 
-    private static final int WEEK_LAST_DAY_OFFSET = 6; // weekStart + 6 = inclusive week end
-    private static final BigDecimal MIN_HOURS_PER_ENTRY = new BigDecimal("0.00");
-    private static final BigDecimal MAX_HOURS_PER_ENTRY = new BigDecimal("24.00");
+    private static final Logger LOGGER = Logger.getLogger(TimesheetService.class.getName());
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int MAX_BULK_DELETE = 1000;
 
     @Inject
     private TimesheetDAO timesheetDAO;
 
+    @Inject
+    private UserDAO userDAO;
+
+    @Inject
+    private EntryWriteMetrics entryWriteMetrics;
+
+    @Inject
+    private HoursRollupDAO hoursRollupDAO;
+
+    @Inject
+    private HoursCube hoursCube;
+
+    private TimesheetValidator validator = TimesheetValidator.DEFAULT;
+
     /**
      * Lists timesheets for the current user, optionally filtered by a specific week start.
      *
@@ -44,19 +83,163 @@ public class TimesheetService {
      * @return list of matching timesheets (0..n)
      * @throws ValidationException if currentUser is null
      */
-    public List<Timesheet> listTimesheets(User currentUser, Optional<LocalDate> weekStart) {
+    public List<Timesheet> listTimesheets(AuthPrincipal currentUser, Optional<LocalDate> weekStart) {
         requireUser(currentUser);
         if (weekStart != null && weekStart.isPresent()) {
-            Timesheet ts = timesheetDAO.findByUserAndWeek(currentUser.getId(), weekStart.get());
+            Timesheet ts = timesheetDAO.findByUserAndWeek(currentUser.userId(), weekStart.get());
             List<Timesheet> list = new ArrayList<>();
             if (ts != null) list.add(ts);
             return list;
         }
-        return timesheetDAO.findByUser(currentUser.getId());
+        return timesheetDAO.findByUser(currentUser.userId());
+    }
+
+    /**
+     * Lists one page of the current user's timesheets, newest week first. Page keys are sought
+     * by {@code (weekStart, id)} and the entries fetched separately, so no more than one page
+     * is ever loaded.
+     *
+     * @param currentUser the authenticated user
+     * @param limit       page size, 1 to {@link #MAX_PAGE_SIZE}
+     * @param after       cursor returned with the previous page, or null for the first page
+     * @return the page and the cursor of the next one, if any
+     * @throws ValidationException if currentUser is null, the limit is out of range or the cursor is invalid
+     */
+    public Page<Timesheet> listTimesheetsPage(AuthPrincipal currentUser, int limit, String after) {
+        Page<Long> ids = findPageIds(currentUser, limit, after);
+        return new Page<>(timesheetDAO.findByIdsWithEntries(ids.items()), ids.nextCursor());
+    }
+
+    /**
+     * Lists the current user's timesheets as flat timesheet/entry rows, newest week first,
+     * optionally limited to one week. Rows are written to the response directly, so no
+     * entities or DTOs are built.
+     *
+     * @param currentUser the authenticated user
+     * @param weekStart   optional week start date to filter on
+     * @return rows, those of one timesheet adjacent
+     * @throws ValidationException if currentUser is null
+     */
+    public List<TimesheetListRow> listTimesheetRows(AuthPrincipal currentUser, Optional<LocalDate> weekStart) {
+        requireUser(currentUser);
+        return timesheetDAO.findListRowsByUser(currentUser.userId(),
+                weekStart == null ? null : weekStart.orElse(null));
+    }
+
+    /**
+     * Row-based variant of {@link #listTimesheetsPage}, with the same paging rules.
+     *
+     * @param currentUser the authenticated user
+     * @param limit       page size, 1 to {@link #MAX_PAGE_SIZE}
+     * @param after       cursor returned with the previous page, or null for the first page
+     * @return the page's rows and the cursor of the next page, if any
+     * @throws ValidationException if currentUser is null, the limit is out of range or the cursor is invalid
+     */
+    public Page<TimesheetListRow> listTimesheetRowsPage(AuthPrincipal currentUser, int limit, String after) {
+        Page<Long> ids = findPageIds(currentUser, limit, after);
+        return new Page<>(timesheetDAO.findListRowsByIds(ids.items()), ids.nextCursor());
+    }
+
+    /**
+     * Reads the ids and versions of the timesheets {@link #listTimesheetRows} would return, without
+     * their entries, so a list ETag can be checked cheaply.
+     *
+     * @param currentUser the authenticated user
+     * @param weekStart   optional week start date to filter on
+     * @return one row per timesheet, in list order
+     * @throws ValidationException if currentUser is null
+     */
+    public List<TimesheetVersion> listTimesheetVersions(AuthPrincipal currentUser, Optional<LocalDate> weekStart) {
+        requireUser(currentUser);
+        return timesheetDAO.findVersionsByUser(currentUser.userId(),
+                weekStart == null ? null : weekStart.orElse(null));
     }
 
     /**
-     * Retrieves a timesheet by id, enforcing that the requester is the owner or an admin.
+     * Version-only variant of {@link #listTimesheetRowsPage}, with the same paging rules.
+     *
+     * @param currentUser the authenticated user
+     * @param limit       page size, 1 to {@link #MAX_PAGE_SIZE}
+     * @param after       cursor returned with the previous page, or null for the first page
+     * @return the page's ids and versions and the cursor of the next page, if any
+     * @throws ValidationException if currentUser is null, the limit is out of range or the cursor is invalid
+     */
+    public Page<TimesheetVersion> listTimesheetVersionsPage(AuthPrincipal currentUser, int limit, String after) {
+        Page<Long> ids = findPageIds(currentUser, limit, after);
+        return new Page<>(timesheetDAO.findVersionsByIds(ids.items()), ids.nextCursor());
+    }
+
+    private Page<Long> findPageIds(AuthPrincipal currentUser, int limit, String after) {
+        requireUser(currentUser);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        TimesheetKey afterKey = (after == null || after.isBlank()) ? null : TimesheetKey.fromCursor(after);
+        // Fetch one extra key to learn whether another page follows
+        List<TimesheetKey> keys = timesheetDAO.findPageKeysByUser(currentUser.userId(), afterKey, limit + 1);
+        String next = null;
+        if (keys.size() > limit) {
+            keys = keys.subList(0, limit);
+            next = keys.get(limit - 1).toCursor();
+        }
+        return new Page<>(keys.stream().map(TimesheetKey::id).toList(), next);
+    }
+
+    /**
+     * Searches the timesheets of all users, newest week first, with the owner's display fields.
+     * Every criterion is optional; pages are sought by {@code (weekStart, id)} as in
+     * {@link #listTimesheetsPage}.
+     *
+     * @param currentUser the authenticated user; must be an admin
+     * @param status      OPEN, SUBMITTED or APPROVED, or blank for any
+     * @param from        first week start, inclusive (yyyy-MM-dd), or blank
+     * @param to          last week start, inclusive (yyyy-MM-dd), or blank
+     * @param username    owner username, or blank for any
+     * @param projectCode project at least one entry is booked to, or blank for any
+     * @param limit       page size, 1 to {@link #MAX_PAGE_SIZE}
+     * @param after       cursor returned with the previous page, or null for the first page
+     * @return the page and the cursor of the next one, if any
+     * @throws ValidationException if currentUser is null, a criterion is malformed, the range is
+     *                             reversed, the limit is out of range or the cursor is invalid
+     * @throws ForbiddenException  if the user is not an admin
+     */
+    public Page<TimesheetSearchRow> searchTimesheets(AuthPrincipal currentUser, String status, String from, String to,
+                                                     String username, String projectCode, int limit, String after) {
+        requireUser(currentUser);
+        if (currentUser.role() != UserRole.ADMIN) throw new ForbiddenException("Admin privileges required");
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        TimesheetStatus st = null;
+        if (status != null && !status.isBlank()) {
+            try {
+                st = TimesheetStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Invalid status '" + status.trim() + "'");
+            }
+        }
+        LocalDate start = parseOptionalDate("from", from);
+        LocalDate end = parseOptionalDate("to", to);
+        if (start != null && end != null && end.isBefore(start)) {
+            throw new ValidationException("to must not be before from");
+        }
+        TimesheetSearchFilter filter = new TimesheetSearchFilter(st, start, end, trimToNull(username), trimToNull(projectCode));
+        TimesheetKey afterKey = (after == null || after.isBlank()) ? null : TimesheetKey.fromCursor(after);
+        // Fetch one extra row to learn whether another page follows
+        List<TimesheetSearchRow> rows = timesheetDAO.search(filter, afterKey, limit + 1);
+        String next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            TimesheetSearchRow last = rows.get(limit - 1);
+            next = new TimesheetKey(last.weekStart(), last.id()).toCursor();
+        }
+        return new Page<>(rows, next);
+    }
+
+    /**
+     * Retrieves a timesheet by id, enforcing that the requester is the owner or an admin. For
+     * non-admins the owner is part of the query, so another user's timesheet and its entries are
+     * never loaded; only on a miss is the owner probed to choose between 404 and 403.
      *
      * @param currentUser the authenticated user
      * @param id          the timesheet id
@@ -65,14 +248,30 @@ public class TimesheetService {
      * @throws NotFoundException   if the timesheet does not exist
      * @throws ForbiddenException  if the user is not permitted to view the timesheet
      */
-    public Timesheet getTimesheet(User currentUser, long id) {
+    public Timesheet getTimesheet(AuthPrincipal currentUser, long id) {
         requireUser(currentUser);
-        Timesheet t = timesheetDAO.findById(id);
-        if (t == null) throw new NotFoundException("Timesheet not found: id=" + id);
-        if (!isOwnerOrAdmin(currentUser, t)) {
-            throw new ForbiddenException("Not allowed to access this timesheet");
+        boolean admin = currentUser.role() == UserRole.ADMIN;
+        Timesheet t = timesheetDAO.findById(id, admin ? null : currentUser.userId());
+        if (t != null) return t;
+        if (admin || timesheetDAO.findOwnerId(id) == null) {
+            throw new NotFoundException("Timesheet not found: id=" + id);
         }
-        return t;
+        throw new ForbiddenException("Not allowed to access this timesheet");
+    }
+
+    /**
+     * Reads a timesheet's header columns, including its version, without loading its entries,
+     * enforcing that the requester is the owner or an admin.
+     *
+     * @param currentUser the authenticated user
+     * @param id          the timesheet id
+     * @return the header
+     * @throws ValidationException if currentUser is null
+     * @throws NotFoundException   if the timesheet does not exist
+     * @throws ForbiddenException  if the user is not permitted to view the timesheet
+     */
+    public TimesheetHeader getTimesheetHeader(AuthPrincipal currentUser, long id) {
+        return requireAccessibleHeader(currentUser, id);
     }
 
     /**
@@ -84,32 +283,37 @@ public class TimesheetService {
      * @return the created timesheet
      * @throws ValidationException if payload invalid or uniqueness violated
      */
-    public Timesheet createTimesheet(User currentUser, TimesheetDTO dto) {
+    public Timesheet createTimesheet(AuthPrincipal currentUser, TimesheetDTO dto) {
         requireUser(currentUser);
         if (dto == null) throw new ValidationException("Timesheet payload is required");
-        LocalDate week = parseWeekStart(dto.getWeekStart());
+        TimesheetValidator.Checked checked = validator.validate(dto, null);
+        LocalDate week = checked.weekStart();
         // Ensure not existing for same week
-        if (timesheetDAO.findByUserAndWeek(currentUser.getId(), week) != null) {
+        if (timesheetDAO.findByUserAndWeek(currentUser.userId(), week) != null) {
             throw new ValidationException("Timesheet already exists for week start " + week);
         }
         Timesheet ts = new Timesheet();
-        ts.setOwner(currentUser);
+        ts.setOwner(userDAO.getReference(currentUser.userId()));
         ts.setWeekStart(week);
         ts.setStatus(dto.getStatus() == null ? TimesheetStatus.OPEN : dto.getStatus());
         ts.setEntries(new ArrayList<>());
 
-        if (dto.getEntries() != null) {
-            for (TimesheetEntryDTO e : dto.getEntries()) {
-                ts.addEntry(buildEntryFromDTO(e, ts));
+        if (checked.entries() != null) {
+            for (TimesheetEntry e : checked.entries()) {
+                if (e != null) ts.addEntry(e);
             }
         }
         ts.recalcTotalHours();
-        return timesheetDAO.create(ts);
+        Timesheet created = timesheetDAO.create(ts);
+        applyRollup(new HoursRollupDeltas().add(currentUser.userId(), week, ts.getEntries(), false));
+        return created;
     }
 
     /**
      * Updates an existing timesheet. Week start can change if uniqueness is preserved.
-     * Entries can be fully replaced by providing a new list.
+     * When an entry list is provided it becomes the new set of entries: entries are matched to
+     * existing rows by id, so unchanged rows are left alone, changed rows are updated in place,
+     * rows without an id are inserted and existing rows missing from the list are deleted.
      *
      * @param currentUser the authenticated user
      * @param id          the timesheet id to update
@@ -118,42 +322,61 @@ public class TimesheetService {
      * @throws ValidationException on invalid input or uniqueness violations
      * @throws NotFoundException   if the timesheet does not exist
      * @throws ForbiddenException  if user lacks permission
+     * @throws ConflictException   if the timesheet is approved
+     */
+    public Timesheet updateTimesheet(AuthPrincipal currentUser, long id, TimesheetDTO dto) {
+        return updateTimesheet(currentUser, id, dto, null);
+    }
+
+    /**
+     * Conditional variant of {@link #updateTimesheet(AuthPrincipal, long, TimesheetDTO)}. The
+     * version is compared with the one loaded here and checked again by the optimistic lock when
+     * the change is written, so a concurrent change in between also fails.
+     *
+     * @param expectedVersion version the client last saw, or null to update unconditionally
+     * @throws PreconditionFailedException if the timesheet is no longer at {@code expectedVersion}
+     * @throws ConflictException           if the timesheet is approved
      */
-    public Timesheet updateTimesheet(User currentUser, long id, TimesheetDTO dto) {
+    public Timesheet updateTimesheet(AuthPrincipal currentUser, long id, TimesheetDTO dto, Long expectedVersion) {
         requireUser(currentUser);
         if (dto == null) throw new ValidationException("Timesheet payload is required");
         Timesheet ts = getTimesheet(currentUser, id);
+        requireVersion(ts, expectedVersion);
+        requireEditable(id, ts.getStatus());
+        long ownerId = ts.getOwner().getId();
+        // Entries are changed in place below, so take the old side of the rollup delta now
+        HoursRollupDeltas rollup = new HoursRollupDeltas().add(ownerId, ts.getWeekStart(), ts.getEntries(), true);
 
         // Only owner or admin can update; already enforced by getTimesheet
-        if (dto.getWeekStart() != null) {
-            LocalDate newWeek = parseWeekStart(dto.getWeekStart());
-            if (!newWeek.equals(ts.getWeekStart())) {
-                // Check uniqueness for new week
-                Timesheet existing = timesheetDAO.findByUserAndWeek(ts.getOwner().getId(), newWeek);
-                if (existing != null && !existing.getId().equals(ts.getId())) {
-                    throw new ValidationException("Another timesheet already exists for week start " + newWeek);
-                }
-                ts.setWeekStart(newWeek);
+        TimesheetValidator.Checked checked = validator.validate(dto, ts.getWeekStart());
+        LocalDate newWeek = checked.weekStart();
+        if (!newWeek.equals(ts.getWeekStart())) {
+            // Check uniqueness for new week
+            Timesheet existing = timesheetDAO.findByUserAndWeek(ts.getOwner().getId(), newWeek);
+            if (existing != null && !existing.getId().equals(ts.getId())) {
+                throw new ValidationException("Another timesheet already exists for week start " + newWeek);
             }
+            ts.setWeekStart(newWeek);
         }
         if (dto.getStatus() != null) {
             ts.setStatus(dto.getStatus());
         }
 
-        if (dto.getEntries() != null) {
-            // Rebuild entries list from DTO
-            ts.getEntries().clear();
-            for (TimesheetEntryDTO e : dto.getEntries()) {
-                ts.addEntry(buildEntryFromDTO(e, ts));
-            }
+        if (dto.getEntries() != null && reconcileEntries(ts, dto.getEntries(), checked.entries())) {
+            // Entry changes alone do not dirty the timesheet row; touch it so its version moves
+            ts.setUpdatedAt(LocalDateTime.now());
         }
 
         ts.recalcTotalHours();
-        return timesheetDAO.update(ts);
+        Timesheet updated = timesheetDAO.update(ts);
+        applyRollup(rollup.add(ownerId, ts.getWeekStart(), ts.getEntries(), false));
+        return updated;
     }
 
     /**
-     * Deletes a timesheet after verifying access rights.
+     * Deletes a timesheet after verifying access rights. Neither the timesheet nor its entries are
+     * loaded: the row is locked, its hours are summed for the rollup and it is removed with one
+     * DELETE, the entries following through the database cascade.
      *
      * @param currentUser the authenticated user
      * @param id          the timesheet id to delete
@@ -161,72 +384,317 @@ public class TimesheetService {
      * @throws NotFoundException   if the timesheet does not exist
      * @throws ForbiddenException  if user lacks permission
      */
-    public void deleteTimesheet(User currentUser, long id) {
+    public void deleteTimesheet(AuthPrincipal currentUser, long id) {
+        deleteTimesheet(currentUser, id, null);
+    }
+
+    /**
+     * Conditional variant of {@link #deleteTimesheet(AuthPrincipal, long)}.
+     *
+     * @param expectedVersion version the client last saw, or null to delete unconditionally
+     * @throws PreconditionFailedException if the timesheet is no longer at {@code expectedVersion}
+     */
+    public void deleteTimesheet(AuthPrincipal currentUser, long id, Long expectedVersion) {
+        TimesheetHeader header = lockAccessibleHeader(currentUser, id);
+        requireVersion(id, header.version(), expectedVersion);
+        deleteLocked(List.of(id));
+    }
+
+    /**
+     * Deletes the given timesheets of any user, or those of one user whose week starts within a
+     * range, the same way as {@link #deleteTimesheet}. Ids that do not exist are skipped.
+     *
+     * @param currentUser the authenticated user; must be an admin
+     * @param ids         timesheet ids, at most {@link #MAX_BULK_DELETE}; empty to select by user
+     * @param username    owner whose timesheets to delete, if no ids are given
+     * @param from        first week start, inclusive (yyyy-MM-dd); required with username
+     * @param to          last week start, inclusive (yyyy-MM-dd); required with username
+     * @return number of timesheets deleted
+     * @throws ValidationException if currentUser is null, neither or both selections are given,
+     *                             too many ids are given or the range is missing or malformed
+     * @throws ForbiddenException  if the user is not an admin
+     * @throws NotFoundException   if the username does not exist
+     */
+    public int deleteTimesheets(AuthPrincipal currentUser, List<Long> ids, String username, String from, String to) {
         requireUser(currentUser);
-        Timesheet ts = getTimesheet(currentUser, id);
-        // getTimesheet enforces owner/admin access
-        timesheetDAO.delete(ts.getId());
+        if (currentUser.role() != UserRole.ADMIN) throw new ForbiddenException("Admin privileges required");
+        boolean byIds = ids != null && !ids.isEmpty();
+        String user = trimToNull(username);
+        if (byIds == (user != null)) {
+            throw new ValidationException("Pass either ids or a username with from and to");
+        }
+        List<Long> selected;
+        if (byIds) {
+            if (ids.size() > MAX_BULK_DELETE) {
+                throw new ValidationException("At most " + MAX_BULK_DELETE + " ids may be deleted at once");
+            }
+            selected = ids;
+        } else {
+            LocalDate start = parseOptionalDate("from", from);
+            LocalDate end = parseOptionalDate("to", to);
+            if (start == null || end == null) throw new ValidationException("from and to are required with username");
+            if (end.isBefore(start)) throw new ValidationException("to must not be before from");
+            Long userId = userDAO.findIdsByUsernames(Set.of(user)).values().stream().findFirst()
+                    .orElseThrow(() -> new NotFoundException("User not found: " + user));
+            selected = timesheetDAO.findIdsByUserAndWeekRange(userId, start, end);
+        }
+        List<Long> locked = timesheetDAO.lockHeaders(selected).stream().map(TimesheetHeader::id).toList();
+        return deleteLocked(locked);
+    }
+
+    /**
+     * Adds one entry to a timesheet. Only the new row is written and the total adjusted by its
+     * hours; the other entries are not loaded. The timesheet row is locked first, so concurrent
+     * entry writes to the same timesheet check the caps against each other's committed hours.
+     *
+     * @param currentUser the authenticated user
+     * @param timesheetId the timesheet id
+     * @param dto         the entry to add
+     * @return the created entry
+     * @throws ValidationException on invalid input
+     * @throws NotFoundException   if the timesheet does not exist
+     * @throws ForbiddenException  if user lacks permission
+     * @throws ConflictException   if the timesheet is approved
+     */
+    public TimesheetEntry addEntry(AuthPrincipal currentUser, long timesheetId, TimesheetEntryDTO dto) {
+        TimesheetHeader header = lockAccessibleHeader(currentUser, timesheetId);
+        requireEditable(timesheetId, header.status());
+        if (dto == null) throw new ValidationException("Entry payload is required");
+        TimesheetEntry entry = validator.validateEntry(dto, header.weekStart());
+        validator.checkCaps(entry, timesheetDAO.sumEntryHoursOnDay(timesheetId, entry.getWorkDate(), null),
+                header.totalHours());
+        TimesheetEntry created = timesheetDAO.createEntry(timesheetId, entry);
+        timesheetDAO.adjustTotalHours(timesheetId, created.getHours());
+        applyRollup(new HoursRollupDeltas()
+                .add(header.ownerId(), header.weekStart(), created.getProjectCode(), created.getHours()));
+        entryWriteMetrics.record(1, 0, 0, 0);
+        return created;
+    }
+
+    /**
+     * Applies the non-null fields of {@code patch} to one entry and adjusts the total by the
+     * change in hours. Entries carry no version of their own; the timesheet row lock serializes
+     * concurrent patches, so each computes its delta from the previous one's result.
+     *
+     * @param currentUser the authenticated user
+     * @param timesheetId the timesheet id
+     * @param entryId     the entry id
+     * @param patch       fields to change
+     * @return the updated entry
+     * @throws ValidationException on invalid input
+     * @throws NotFoundException   if the timesheet or entry does not exist
+     * @throws ForbiddenException  if user lacks permission
+     * @throws ConflictException   if the timesheet is approved
+     */
+    public TimesheetEntry patchEntry(AuthPrincipal currentUser, long timesheetId, long entryId, TimesheetEntryDTO patch) {
+        TimesheetHeader header = lockAccessibleHeader(currentUser, timesheetId);
+        requireEditable(timesheetId, header.status());
+        if (patch == null) throw new ValidationException("Entry payload is required");
+        TimesheetEntry current = requireEntry(timesheetId, entryId);
+
+        TimesheetEntryDTO merged = new TimesheetEntryDTO();
+        merged.setWorkDate(patch.getWorkDate() != null ? patch.getWorkDate() : String.valueOf(current.getWorkDate()));
+        merged.setProjectCode(patch.getProjectCode() != null ? patch.getProjectCode() : current.getProjectCode());
+        merged.setTaskCode(patch.getTaskCode() != null ? patch.getTaskCode() : current.getTaskCode());
+        merged.setHours(patch.getHours() != null ? patch.getHours() : current.getHours().toBigDecimal());
+        merged.setDescription(patch.getDescription() != null ? patch.getDescription() : current.getDescription());
+        TimesheetEntry wanted = validator.validateEntry(merged, header.weekStart());
+
+        Hours delta = wanted.getHours().minus(current.getHours());
+        HoursRollupDeltas rollup = new HoursRollupDeltas()
+                .add(header.ownerId(), header.weekStart(), current.getProjectCode(), current.getHours().negate())
+                .add(header.ownerId(), header.weekStart(), wanted.getProjectCode(), wanted.getHours());
+        if (delta.hundredths() > 0 || !wanted.getWorkDate().equals(current.getWorkDate())) {
+            validator.checkCaps(wanted, timesheetDAO.sumEntryHoursOnDay(timesheetId, wanted.getWorkDate(), entryId),
+                    header.totalHours().minus(current.getHours()));
+        }
+        if (!copyEntryFields(wanted, current)) {
+            entryWriteMetrics.record(0, 0, 0, 1);
+            return current;
+        }
+        TimesheetEntry updated = timesheetDAO.updateEntry(current);
+        // Called even for a zero delta, as it also moves the timesheet's version
+        timesheetDAO.adjustTotalHours(timesheetId, delta);
+        applyRollup(rollup);
+        entryWriteMetrics.record(0, 1, 0, 0);
+        return updated;
+    }
+
+    /**
+     * Deletes one entry and subtracts its hours from the total, under the timesheet row lock.
+     *
+     * @param currentUser the authenticated user
+     * @param timesheetId the timesheet id
+     * @param entryId     the entry id
+     * @throws NotFoundException  if the timesheet or entry does not exist
+     * @throws ForbiddenException if user lacks permission
+     * @throws ConflictException  if the timesheet is approved
+     */
+    public void deleteEntry(AuthPrincipal currentUser, long timesheetId, long entryId) {
+        TimesheetHeader header = lockAccessibleHeader(currentUser, timesheetId);
+        requireEditable(timesheetId, header.status());
+        TimesheetEntry current = requireEntry(timesheetId, entryId);
+        timesheetDAO.deleteEntry(current);
+        timesheetDAO.adjustTotalHours(timesheetId, current.getHours().negate());
+        applyRollup(new HoursRollupDeltas()
+                .add(header.ownerId(), header.weekStart(), current.getProjectCode(), current.getHours().negate()));
+        entryWriteMetrics.record(0, 0, 1, 0);
     }
 
     // ===== Helpers =====
-    private static void requireUser(User u) {
-        if (u == null) throw new ValidationException("Current user required");
+    private TimesheetHeader requireAccessibleHeader(AuthPrincipal currentUser, long timesheetId) {
+        requireUser(currentUser);
+        return requireAccess(currentUser, timesheetId, timesheetDAO.findHeader(timesheetId));
+    }
+
+    // Locks the timesheet row before anything else in the transaction is read, see TimesheetDAO.lockHeaders
+    private TimesheetHeader lockAccessibleHeader(AuthPrincipal currentUser, long timesheetId) {
+        requireUser(currentUser);
+        List<TimesheetHeader> locked = timesheetDAO.lockHeaders(List.of(timesheetId));
+        return requireAccess(currentUser, timesheetId, locked.isEmpty() ? null : locked.get(0));
+    }
+
+    private static TimesheetHeader requireAccess(AuthPrincipal currentUser, long timesheetId, TimesheetHeader header) {
+        if (header == null) throw new NotFoundException("Timesheet not found: id=" + timesheetId);
+        if (currentUser.role() != UserRole.ADMIN && !Objects.equals(header.ownerId(), currentUser.userId())) {
+            throw new ForbiddenException("Not allowed to access this timesheet");
+        }
+        return header;
+    }
+
+    // Writes the rollup deltas in this transaction and hands them to the cube for after the commit
+    private void applyRollup(HoursRollupDeltas rollup) {
+        Map<HoursRollupKey, Hours> deltas = rollup.nonZero();
+        hoursRollupDAO.applyDeltas(deltas);
+        hoursCube.afterCommit(deltas);
+    }
+
+    // Approved timesheets are final, which is what lets reads of them be cached for long
+    private static void requireEditable(long id, TimesheetStatus status) {
+        if (status == TimesheetStatus.APPROVED) {
+            throw new ConflictException("Timesheet " + id + " is approved and can no longer be changed");
+        }
+    }
+
+    private static void requireVersion(Timesheet ts, Long expectedVersion) {
+        requireVersion(ts.getId(), ts.getVersion(), expectedVersion);
+    }
+
+    private static void requireVersion(Long id, long version, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != version) {
+            throw new PreconditionFailedException("Timesheet " + id + " has changed since it was read");
+        }
     }
 
-    private static boolean isOwnerOrAdmin(User current, Timesheet t) {
-        if (current == null || t == null) return false;
-        if (current.getRole() == UserRole.ADMIN) return true;
-        return t.getOwner() != null && t.getOwner().getId() != null && t.getOwner().getId().equals(current.getId());
+    // Removes already locked timesheets from the rollup and deletes them with one statement; their
+    // entries go with them through the foreign key cascade, without being loaded
+    private int deleteLocked(List<Long> ids) {
+        if (ids.isEmpty()) return 0;
+        HoursRollupDeltas rollup = new HoursRollupDeltas();
+        timesheetDAO.sumHoursByRollupKey(ids)
+                .forEach((k, hours) -> rollup.add(k.userId(), k.weekStart(), k.projectCode(), hours.negate()));
+        applyRollup(rollup);
+        return timesheetDAO.deleteByIds(ids);
     }
 
-    private static LocalDate parseWeekStart(String s) {
-        if (s == null || s.isBlank()) throw new ValidationException("weekStart is required");
-        try {
-            return LocalDate.parse(s);
-        } catch (Exception e) {
-            throw new ValidationException("Invalid weekStart format, expected yyyy-MM-dd");
+    private TimesheetEntry requireEntry(long timesheetId, long entryId) {
+        TimesheetEntry entry = timesheetDAO.findEntry(timesheetId, entryId);
+        if (entry == null) {
+            throw new NotFoundException("Entry not found: id=" + entryId + " on timesheet " + timesheetId);
         }
+        return entry;
     }
 
-    private static TimesheetEntry buildEntryFromDTO(TimesheetEntryDTO dto, Timesheet parent) {
-        if (dto == null) return null;
-        TimesheetEntry e = new TimesheetEntry();
-        // workDate
-        if (dto.getWorkDate() == null || dto.getWorkDate().isBlank()) {
-            throw new ValidationException("Entry workDate is required");
+    // built holds the validated entry for each incoming DTO, in the same order; returns whether any row changed
+    private boolean reconcileEntries(Timesheet ts, List<TimesheetEntryDTO> incoming, List<TimesheetEntry> built) {
+        Map<Long, TimesheetEntry> existingById = new HashMap<>();
+        for (TimesheetEntry e : ts.getEntries()) {
+            if (e.getId() != null) existingById.put(e.getId(), e);
         }
-        LocalDate workDateParsed;
-        try {
-            workDateParsed = LocalDate.parse(dto.getWorkDate());
-            e.setWorkDate(workDateParsed);
-        } catch (Exception ex) {
-            throw new ValidationException("Invalid entry workDate format, expected yyyy-MM-dd");
+        Set<Long> kept = new HashSet<>();
+        List<TimesheetEntry> added = new ArrayList<>();
+        int updated = 0;
+        int unchanged = 0;
+        for (int i = 0; i < incoming.size(); i++) {
+            TimesheetEntryDTO dto = incoming.get(i);
+            TimesheetEntry wanted = built.get(i);
+            if (wanted == null) continue;
+            if (dto.getId() == null) {
+                added.add(wanted);
+                continue;
+            }
+            TimesheetEntry current = existingById.get(dto.getId());
+            if (current == null) {
+                throw new ValidationException("Entry id " + dto.getId() + " does not belong to this timesheet");
+            }
+            if (!kept.add(dto.getId())) {
+                throw new ValidationException("Entry id " + dto.getId() + " appears more than once");
+            }
+            if (copyEntryFields(wanted, current)) {
+                updated++;
+            } else {
+                unchanged++;
+            }
         }
-        // Ensure workDate within the same week as timesheet
-        if (parent != null && parent.getWeekStart() != null) {
-            LocalDate start = parent.getWeekStart();
-            LocalDate end = start.plusDays(WEEK_LAST_DAY_OFFSET);
-            if (workDateParsed.isBefore(start) || workDateParsed.isAfter(end)) {
-                throw new ValidationException("Entry workDate must fall within the timesheet week (" + start + " to " + end + ")");
+        int deleted = 0;
+        Iterator<TimesheetEntry> it = ts.getEntries().iterator();
+        while (it.hasNext()) {
+            TimesheetEntry e = it.next();
+            if (e.getId() == null || !kept.contains(e.getId())) {
+                it.remove(); // orphanRemoval deletes the row
+                e.setTimesheet(null);
+                deleted++;
             }
         }
-        // project code
-        if (dto.getProjectCode() == null || dto.getProjectCode().trim().isEmpty()) {
-            throw new ValidationException("Entry projectCode is required");
+        for (TimesheetEntry e : added) {
+            ts.addEntry(e);
+        }
+        entryWriteMetrics.record(added.size(), updated, deleted, unchanged);
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Reconciled entries of timesheet " + ts.getId() + ": " + added.size() + " inserted, "
+                    + updated + " updated, " + deleted + " deleted, " + unchanged + " unchanged");
+        }
+        return !added.isEmpty() || updated > 0 || deleted > 0;
+    }
+
+    // Copies only differing fields so Hibernate's dirty check skips untouched rows; returns whether any changed
+    private static boolean copyEntryFields(TimesheetEntry from, TimesheetEntry to) {
+        boolean changed = false;
+        if (!Objects.equals(from.getWorkDate(), to.getWorkDate())) {
+            to.setWorkDate(from.getWorkDate());
+            changed = true;
         }
-        e.setProjectCode(dto.getProjectCode().trim());
-        e.setTaskCode(dto.getTaskCode());
-        // hours
-        if (dto.getHours() == null) {
-            throw new ValidationException("Entry hours is required");
+        if (!Objects.equals(from.getProjectCode(), to.getProjectCode())) {
+            to.setProjectCode(from.getProjectCode());
+            changed = true;
         }
-        BigDecimal hours = dto.getHours();
-        if (hours.compareTo(MIN_HOURS_PER_ENTRY) < 0 || hours.compareTo(MAX_HOURS_PER_ENTRY) > 0) {
-            throw new ValidationException("Entry hours must be between 0.00 and 24.00");
+        if (!Objects.equals(from.getTaskCode(), to.getTaskCode())) {
+            to.setTaskCode(from.getTaskCode());
+            changed = true;
         }
-        e.setHours(hours);
-        e.setDescription(dto.getDescription());
-        e.setTimesheet(parent);
-        return e;
+        if (!Objects.equals(from.getHours(), to.getHours())) {
+            to.setHours(from.getHours());
+            changed = true;
+        }
+        if (!Objects.equals(from.getDescription(), to.getDescription())) {
+            to.setDescription(from.getDescription());
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static LocalDate parseOptionalDate(String name, String value) {
+        if (value == null || value.isBlank()) return null;
+        LocalDate date = TimesheetValidator.parseDate(value.trim());
+        if (date == null) throw new ValidationException("Invalid " + name + " format, expected yyyy-MM-dd");
+        return date;
+    }
+
+    private static String trimToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static void requireUser(AuthPrincipal u) {
+        if (u == null) throw new ValidationException("Current user required");
     }
 }
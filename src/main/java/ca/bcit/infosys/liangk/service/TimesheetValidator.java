@@ -0,0 +1,276 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dto.TimesheetDTO;
+import ca.bcit.infosys.liangk.dto.TimesheetEntryDTO;
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.TimesheetEntry;
+import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.exception.Violation;
+import ca.bcit.infosys.liangk.util.AppConfig;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks timesheet payloads in a single pass and reports every violation at once, building the
+ * entries on the way so valid input is not parsed twice.
+ * <p>
+ * Entry rules, in order: workDate is present, yyyy-MM-dd and within the timesheet week; projectCode
+ * is present; hours are present and, once rounded to two decimals, between 0.00 and 24.00.
+ * Timesheet rules: the entries of one day total at most 24.00 hours and the week at most
+ * {@code timesheets.validation.maxWeekHours} (default 168). The rules and limits are fixed when the
+ * validator is created. Dates are parsed without exceptions, day totals accumulate in a seven-slot
+ * array of hundredths, and nothing is allocated for a rule that passes.
+ */
+final class TimesheetValidator {
+
+    static final TimesheetValidator DEFAULT =
+            new TimesheetValidator(AppConfig.getLong("timesheets.validation.maxWeekHours", 168L) * 100);
+
+    private static final int DAYS_PER_WEEK = 7;
+    private static final long MIN_HUNDREDTHS_PER_ENTRY = 0L;     // 0.00 h
+    private static final long MAX_HUNDREDTHS_PER_ENTRY = 2_400L; // 24.00 h
+    private static final long MAX_HUNDREDTHS_PER_DAY = 2_400L;   // 24.00 h
+    // More integer digits than this cannot fit a long count of hundredths, so skip the conversion
+    private static final int MAX_INTEGER_DIGITS = 15;
+
+    @FunctionalInterface
+    private interface EntryRule {
+        void check(EntryCheck c);
+    }
+
+    private static final EntryRule[] ENTRY_RULES = {
+            TimesheetValidator::checkWorkDate,
+            TimesheetValidator::checkProjectCode,
+            TimesheetValidator::checkHours
+    };
+
+    private final long maxHundredthsPerWeek;
+
+    TimesheetValidator(long maxHundredthsPerWeek) {
+        this.maxHundredthsPerWeek = maxHundredthsPerWeek;
+    }
+
+    /**
+     * Validates a whole timesheet payload.
+     *
+     * @param dto         the payload
+     * @param currentWeek week start to use when the payload has none, or null if it is required
+     * @return the week start and, if the payload has entries, the built entries in payload order
+     *         (null where the payload had a null element)
+     * @throws ValidationException listing every violation found
+     */
+    Checked validate(TimesheetDTO dto, LocalDate currentWeek) {
+        List<Violation> violations = new ArrayList<>(0);
+        LocalDate week = currentWeek;
+        if (dto.getWeekStart() != null || currentWeek == null) {
+            week = parseWeekStart(dto.getWeekStart(), violations);
+        }
+        List<TimesheetEntryDTO> dtos = dto.getEntries();
+        if (dtos == null) {
+            throwIfAny(violations);
+            return new Checked(week, null);
+        }
+
+        List<TimesheetEntry> entries = new ArrayList<>(dtos.size());
+        long[] dayTotals = new long[DAYS_PER_WEEK];
+        long weekTotal = 0;
+        EntryCheck c = new EntryCheck(week, violations);
+        for (int i = 0; i < dtos.size(); i++) {
+            TimesheetEntryDTO e = dtos.get(i);
+            if (e == null) {
+                entries.add(null);
+                continue;
+            }
+            TimesheetEntry built = c.run(e, i);
+            entries.add(built);
+            if (built != null && week != null) {
+                dayTotals[(int) (built.getWorkDate().toEpochDay() - week.toEpochDay())] += built.getHours().hundredths();
+                weekTotal += built.getHours().hundredths();
+            }
+        }
+        if (week != null) {
+            for (int d = 0; d < DAYS_PER_WEEK; d++) {
+                if (dayTotals[d] > MAX_HUNDREDTHS_PER_DAY) {
+                    violations.add(dayViolation(week.plusDays(d), dayTotals[d]));
+                }
+            }
+            if (weekTotal > maxHundredthsPerWeek) violations.add(weekViolation(weekTotal));
+        }
+        throwIfAny(violations);
+        return new Checked(week, entries);
+    }
+
+    /**
+     * Validates one entry on its own.
+     *
+     * @param dto       the entry
+     * @param weekStart week of the timesheet it belongs to
+     * @return the built entry
+     * @throws ValidationException listing every violation of the entry rules
+     */
+    TimesheetEntry validateEntry(TimesheetEntryDTO dto, LocalDate weekStart) {
+        List<Violation> violations = new ArrayList<>(0);
+        TimesheetEntry entry = new EntryCheck(weekStart, violations).run(dto, -1);
+        throwIfAny(violations);
+        return entry;
+    }
+
+    /**
+     * Applies the day and week caps to one entry added to a timesheet whose other entries are not
+     * loaded.
+     *
+     * @param entry        the entry, already validated
+     * @param otherOnDay   hours of the timesheet's other entries on the entry's work date
+     * @param otherInWeek  hours of the timesheet's other entries in the week
+     * @throws ValidationException if either total would exceed its cap
+     */
+    void checkCaps(TimesheetEntry entry, Hours otherOnDay, Hours otherInWeek) {
+        List<Violation> violations = new ArrayList<>(0);
+        long day = Math.addExact(otherOnDay.hundredths(), entry.getHours().hundredths());
+        long week = Math.addExact(otherInWeek.hundredths(), entry.getHours().hundredths());
+        if (day > MAX_HUNDREDTHS_PER_DAY) violations.add(dayViolation(entry.getWorkDate(), day));
+        if (week > maxHundredthsPerWeek) violations.add(weekViolation(week));
+        throwIfAny(violations);
+    }
+
+    private static LocalDate parseWeekStart(String s, List<Violation> violations) {
+        if (s == null || s.isBlank()) {
+            violations.add(new Violation("weekStart", "weekStart is required"));
+            return null;
+        }
+        LocalDate week = parseDate(s);
+        if (week == null) violations.add(new Violation("weekStart", "Invalid weekStart format, expected yyyy-MM-dd"));
+        return week;
+    }
+
+    private static void checkWorkDate(EntryCheck c) {
+        String s = c.dto.getWorkDate();
+        if (s == null || s.isBlank()) {
+            c.reject("workDate", "Entry workDate is required");
+            return;
+        }
+        LocalDate date = parseDate(s);
+        if (date == null) {
+            c.reject("workDate", "Invalid entry workDate format, expected yyyy-MM-dd");
+            return;
+        }
+        if (c.weekStart != null && (date.isBefore(c.weekStart) || date.isAfter(c.weekEnd))) {
+            c.reject("workDate", "Entry workDate must fall within the timesheet week (" + c.weekStart + " to " + c.weekEnd + ")");
+            return;
+        }
+        c.workDate = date;
+    }
+
+    private static void checkProjectCode(EntryCheck c) {
+        String code = c.dto.getProjectCode();
+        if (code == null || code.isBlank()) c.reject("projectCode", "Entry projectCode is required");
+    }
+
+    private static void checkHours(EntryCheck c) {
+        BigDecimal value = c.dto.getHours();
+        if (value == null) {
+            c.reject("hours", "Entry hours is required");
+            return;
+        }
+        // Rounded to the column's two decimals first, so the stored value is what gets checked
+        Hours hours = value.precision() - value.scale() > MAX_INTEGER_DIGITS ? null : Hours.of(value);
+        if (hours == null || hours.hundredths() < MIN_HUNDREDTHS_PER_ENTRY || hours.hundredths() > MAX_HUNDREDTHS_PER_ENTRY) {
+            c.reject("hours", "Entry hours must be between 0.00 and 24.00");
+            return;
+        }
+        c.hours = hours;
+    }
+
+    private static Violation dayViolation(LocalDate day, long hundredths) {
+        return new Violation("entries", "Entries on " + day + " total " + Hours.ofHundredths(hundredths)
+                + " hours, more than " + Hours.ofHundredths(MAX_HUNDREDTHS_PER_DAY));
+    }
+
+    private Violation weekViolation(long hundredths) {
+        return new Violation("entries", "Entries total " + Hours.ofHundredths(hundredths)
+                + " hours, more than the weekly limit of " + Hours.ofHundredths(maxHundredthsPerWeek));
+    }
+
+    private static void throwIfAny(List<Violation> violations) {
+        if (!violations.isEmpty()) throw new ValidationException(violations);
+    }
+
+    /**
+     * Strict yyyy-MM-dd parse that returns null instead of throwing.
+     */
+    static LocalDate parseDate(String s) {
+        if (s.length() != 10 || s.charAt(4) != '-' || s.charAt(7) != '-') return null;
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 7);
+        int day = digits(s, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1) return null;
+        if (day > Month.of(month).length(Year.isLeap(year))) return null;
+        return LocalDate.of(year, month, day);
+    }
+
+    private static int digits(String s, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') return -1;
+            n = n * 10 + (ch - '0');
+        }
+        return n;
+    }
+
+    /**
+     * Outcome of {@link #validate}.
+     *
+     * @param weekStart week start of the timesheet
+     * @param entries   built entries in payload order, or null if the payload had no entry list
+     */
+    record Checked(LocalDate weekStart, List<TimesheetEntry> entries) {
+    }
+
+    // Per-entry state, reused across the entries of one payload
+    private static final class EntryCheck {
+        final LocalDate weekStart;
+        final LocalDate weekEnd;
+        final List<Violation> violations;
+        TimesheetEntryDTO dto;
+        int index;
+        boolean failed;
+        LocalDate workDate;
+        Hours hours;
+
+        EntryCheck(LocalDate weekStart, List<Violation> violations) {
+            this.weekStart = weekStart;
+            this.weekEnd = weekStart == null ? null : weekStart.plusDays(DAYS_PER_WEEK - 1);
+            this.violations = violations;
+        }
+
+        TimesheetEntry run(TimesheetEntryDTO dto, int index) {
+            this.dto = dto;
+            this.index = index;
+            this.failed = false;
+            this.workDate = null;
+            this.hours = null;
+            for (EntryRule rule : ENTRY_RULES) {
+                rule.check(this);
+            }
+            if (failed) return null;
+            TimesheetEntry e = new TimesheetEntry();
+            e.setWorkDate(workDate);
+            e.setProjectCode(dto.getProjectCode().trim());
+            e.setTaskCode(dto.getTaskCode());
+            e.setHours(hours);
+            e.setDescription(dto.getDescription());
+            return e;
+        }
+
+        void reject(String field, String message) {
+            failed = true;
+            violations.add(new Violation(index < 0 ? field : "entries[" + index + "]." + field, message));
+        }
+    }
+}
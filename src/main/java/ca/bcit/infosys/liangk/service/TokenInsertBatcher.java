@@ -0,0 +1,112 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.entity.AuthToken;
+import ca.bcit.infosys.liangk.util.AppConfig;
+import ca.bcit.infosys.liangk.util.GroupCommitter;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import jakarta.transaction.Status;
+import jakarta.transaction.UserTransaction;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Optional group-commit path for new {@code auth_tokens} rows.
+ * <p>
+ * When {@code timesheets.auth.groupCommit.enabled=true}, concurrent logins hand their token to this
+ * bean, which gathers them for up to {@code timesheets.auth.groupCommit.maxWaitMillis} (default 5)
+ * or {@code timesheets.auth.groupCommit.maxBatch} rows (default 64) and inserts them as one JDBC
+ * batch in one transaction. Each caller returns only once that transaction has committed. The
+ * bean manages its own transactions, so the caller's transaction is suspended while it waits.
+ * For MySQL, {@code rewriteBatchedStatements=true} on the datasource URL turns the batch into a
+ * single multi-row INSERT.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionManagement(TransactionManagementType.BEAN)
+public class TokenInsertBatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(TokenInsertBatcher.class.getName());
+    private static final String INSERT_SQL =
+            "INSERT INTO auth_tokens (token_hash, user_id, issued_at, expires_at, active) VALUES (?, ?, ?, ?, ?)";
+
+    @Resource(lookup = "java:jboss/datasources/TimesheetsDS")
+    private DataSource dataSource;
+
+    @Resource
+    private UserTransaction userTransaction;
+
+    private final boolean enabled;
+    private final GroupCommitter<AuthToken> committer;
+
+    public TokenInsertBatcher() {
+        this(AppConfig.getBoolean("timesheets.auth.groupCommit.enabled", false),
+                AppConfig.getLong("timesheets.auth.groupCommit.maxWaitMillis", 5L),
+                AppConfig.getInt("timesheets.auth.groupCommit.maxBatch", 64));
+    }
+
+    public TokenInsertBatcher(boolean enabled, long maxWaitMillis, int maxBatch) {
+        this.enabled = enabled;
+        this.committer = new GroupCommitter<>(this::writeBatch, maxWaitMillis, maxBatch);
+    }
+
+    /**
+     * Returns whether logins should route token inserts through this batcher.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Inserts the token as part of the next group commit and waits until it is durable.
+     *
+     * @param token new token with hash, user, timestamps and active flag set
+     * @throws IllegalStateException if the batch insert failed
+     */
+    public void insert(AuthToken token) {
+        committer.submit(token);
+    }
+
+    /**
+     * Returns batch counters.
+     */
+    public Map<String, Long> stats() {
+        return committer.stats();
+    }
+
+    private void writeBatch(List<AuthToken> tokens) throws Exception {
+        userTransaction.begin();
+        try {
+            try (Connection c = dataSource.getConnection();
+                 PreparedStatement ps = c.prepareStatement(INSERT_SQL)) {
+                for (AuthToken t : tokens) {
+                    ps.setBytes(1, t.getTokenHash());
+                    ps.setLong(2, t.getUser().getId());
+                    ps.setTimestamp(3, Timestamp.valueOf(t.getIssuedAt()));
+                    ps.setTimestamp(4, Timestamp.valueOf(t.getExpiresAt()));
+                    ps.setBoolean(5, t.isActive());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            userTransaction.commit();
+        } catch (Exception e) {
+            if (userTransaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                userTransaction.rollback();
+            }
+            LOGGER.log(Level.WARNING, "Group commit of " + tokens.size() + " auth tokens failed", e);
+            throw e;
+        }
+    }
+}
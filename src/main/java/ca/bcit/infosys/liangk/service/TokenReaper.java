@@ -0,0 +1,96 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dao.AuthTokenDAO;
+import ca.bcit.infosys.liangk.security.SignedTokenCodec;
+import ca.bcit.infosys.liangk.util.AppConfig;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.inject.Inject;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background job that deletes expired and inactive rows from {@code auth_tokens}, and expired
+ * deleted-user revocations from {@code revoked_users}.
+ * <p>
+ * Rows are deleted in small chunks, each in its own transaction, with a pause between chunks so the
+ * reaper never holds locks long enough to stall interactive traffic. In signed-token mode inactive
+ * rows are the revocation list, so they are kept until they expire.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class TokenReaper {
+
+    private static final Logger LOGGER = Logger.getLogger(TokenReaper.class.getName());
+    private static final int CHUNK_SIZE = AppConfig.getInt("timesheets.auth.reaper.chunkSize", 500);
+    private static final long PAUSE_MILLIS = AppConfig.getLong("timesheets.auth.reaper.pauseMillis", 200L);
+    private static final int MAX_CHUNKS_PER_RUN = AppConfig.getInt("timesheets.auth.reaper.maxChunksPerRun", 200);
+
+    @Inject
+    private AuthTokenDAO tokenDAO;
+
+    @Inject
+    private SignedTokenCodec signedTokenCodec;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong deletedTotal = new AtomicLong();
+    private final AtomicLong lastRunDeleted = new AtomicLong();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    /**
+     * Deletes reapable tokens chunk by chunk until none remain or the per-run budget is spent.
+     */
+    @Schedule(hour = "*", minute = "*/10", persistent = false)
+    public void reap() {
+        if (!running.compareAndSet(false, true)) return;
+        long start = System.currentTimeMillis();
+        int deleted = 0;
+        try {
+            boolean includeInactive = !signedTokenCodec.isEnabled();
+            for (int chunk = 0; chunk < MAX_CHUNKS_PER_RUN; chunk++) {
+                int n = tokenDAO.deleteExpiredChunk(LocalDateTime.now(), includeInactive, CHUNK_SIZE);
+                deleted += n;
+                if (n < CHUNK_SIZE) break;
+                Thread.sleep(PAUSE_MILLIS);
+            }
+            tokenDAO.deleteExpiredUserRevocations(LocalDateTime.now());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Token reaper run failed", e);
+        } finally {
+            runs.incrementAndGet();
+            deletedTotal.addAndGet(deleted);
+            lastRunDeleted.set(deleted);
+            lastRunMillis.set(System.currentTimeMillis() - start);
+            running.set(false);
+        }
+        if (deleted > 0) {
+            LOGGER.info("Token reaper deleted " + deleted + " auth tokens");
+        }
+    }
+
+    /**
+     * Returns reaper counters.
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("runs", runs.get());
+        stats.put("deletedTotal", deletedTotal.get());
+        stats.put("lastRunDeleted", lastRunDeleted.get());
+        stats.put("lastRunMillis", lastRunMillis.get());
+        return stats;
+    }
+}
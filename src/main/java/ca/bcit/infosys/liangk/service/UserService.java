@@ -4,8 +4,10 @@ import ca.bcit.infosys.liangk.dao.UserDAO;
 import ca.bcit.infosys.liangk.dto.CreateUserRequest;
 import ca.bcit.infosys.liangk.dto.UpdateUserRequest;
 import ca.bcit.infosys.liangk.entity.User;
+import ca.bcit.infosys.liangk.entity.UserRole;
 import ca.bcit.infosys.liangk.exception.NotFoundException;
 import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.security.UsernameFilter;
 import ca.bcit.infosys.liangk.util.Mapper;
 import jakarta.ejb.Stateless;
 import jakarta.inject.Inject;
@@ -22,6 +24,12 @@ public class UserService {
     @Inject
     private UserDAO userDAO;
 
+    @Inject
+    private AuthService authService;
+
+    @Inject
+    private UsernameFilter usernameFilter;
+
     /**
      * Creates a new user after validating input and uniqueness constraints.
      *
@@ -59,6 +67,7 @@ public class UserService {
         User u = Mapper.buildUserFromCreate(req);
         // Store plaintext password directly
         u.setPassword(req.getPassword());
+        usernameFilter.add(u.getUsername());
         return userDAO.create(u);
     }
 
@@ -123,6 +132,9 @@ public class UserService {
             throw new ValidationException("Last name must not be blank");
         }
 
+        UserRole previousRole = existing.getRole();
+        boolean previouslyActive = existing.isActive();
+
         // Apply other fields
         Mapper.applyUpdateToUser(existing, req);
 
@@ -134,7 +146,17 @@ public class UserService {
             existing.setPassword(req.getPassword());
         }
 
-        return userDAO.update(existing);
+        usernameFilter.add(existing.getUsername());
+
+        User updated = userDAO.update(existing);
+        // Cached token principals snapshot role/active/username, so drop them on any change;
+        // both calls repeat the invalidation after commit
+        if (existing.getRole() != previousRole || existing.isActive() != previouslyActive) {
+            authService.onUserAccessChanged(existing.getId(), existing.isActive());
+        } else {
+            authService.invalidateCachedUser(existing.getId());
+        }
+        return updated;
     }
 
     /**
@@ -146,7 +168,9 @@ public class UserService {
     public void deleteUser(long id) {
         // ensure exists
         getById(id);
+        authService.onUserDeleted(id);
         userDAO.delete(id);
+        // The name stays in the username filter until the next rebuild; login still finds no user
     }
 
     // ===== Helpers =====
@@ -0,0 +1,71 @@
+package ca.bcit.infosys.liangk.util;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Minimal configuration lookup for tunables. A key such as {@code timesheets.auth.cache.maxEntries}
+ * is read from the JVM system property of the same name first, then from the environment variable
+ * {@code TIMESHEETS_AUTH_CACHE_MAXENTRIES}; otherwise the supplied default is used.
+ */
+public final class AppConfig {
+
+    private static final Logger LOGGER = Logger.getLogger(AppConfig.class.getName());
+
+    private AppConfig() {}
+
+    /**
+     * Returns the configured string value for the key, or the default if unset or blank.
+     *
+     * @param key configuration key
+     * @param def default value
+     * @return configured or default value
+     */
+    public static String getString(String key, String def) {
+        String v = System.getProperty(key);
+        if (v == null) {
+            v = System.getenv(toEnvName(key));
+        }
+        return (v == null || v.isBlank()) ? def : v.trim();
+    }
+
+    /**
+     * Returns the configured int value for the key, or the default if unset or unparsable.
+     */
+    public static int getInt(String key, int def) {
+        String v = getString(key, null);
+        if (v == null) return def;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Ignoring invalid integer for " + key + ": " + v);
+            return def;
+        }
+    }
+
+    /**
+     * Returns the configured long value for the key, or the default if unset or unparsable.
+     */
+    public static long getLong(String key, long def) {
+        String v = getString(key, null);
+        if (v == null) return def;
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Ignoring invalid long for " + key + ": " + v);
+            return def;
+        }
+    }
+
+    /**
+     * Returns the configured boolean value for the key, or the default if unset.
+     */
+    public static boolean getBoolean(String key, boolean def) {
+        String v = getString(key, null);
+        return v == null ? def : Boolean.parseBoolean(v);
+    }
+
+    private static String toEnvName(String key) {
+        return key.replace('.', '_').replace('-', '_').toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,90 @@
+package ca.bcit.infosys.liangk.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings. {@link #mightContain} never returns false for a string
+ * that was added; it may return true for one that was not, at roughly the configured rate.
+ * Strings cannot be removed; rebuild the filter instead.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Sizes a filter for the expected number of strings and target false-positive probability.
+     *
+     * @param expectedInsertions expected number of distinct strings
+     * @param falsePositiveRate  target false-positive probability, e.g. 0.01
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1L, expectedInsertions);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(Long.SIZE, ((m + Long.SIZE - 1) / Long.SIZE) * Long.SIZE);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (bitCount / Long.SIZE));
+    }
+
+    /**
+     * Adds the string to the filter.
+     */
+    public void put(String value) {
+        long h1 = hash(value, 0x9E3779B97F4A7C15L);
+        long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long cur;
+            while (((cur = bits.get(word)) & mask) == 0) {
+                if (bits.compareAndSet(word, cur, cur | mask)) break;
+            }
+        }
+    }
+
+    /**
+     * Returns false only if the string has definitely not been added.
+     */
+    public boolean mightContain(String value) {
+        long h1 = hash(value, 0x9E3779B97F4A7C15L);
+        long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the size of the bit array.
+     */
+    public long bitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Returns the number of hash functions per string.
+     */
+    public int hashCount() {
+        return hashCount;
+    }
+
+    // FNV-1a over the UTF-8 bytes, seeded and finished with the MurmurHash3 64-bit mixer
+    private static long hash(String value, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
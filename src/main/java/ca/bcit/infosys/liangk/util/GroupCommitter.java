@@ -0,0 +1,143 @@
+package ca.bcit.infosys.liangk.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects items submitted by concurrent callers into batches and writes each batch once.
+ * <p>
+ * The first caller to arrive at an empty batch becomes its leader: it waits up to the configured
+ * window (or until the batch is full), takes everything queued so far and hands it to the
+ * {@link BatchWriter}. Every other caller in that batch simply waits. {@link #submit} returns only
+ * after the batch holding the item has been written, and rethrows the writer's failure otherwise.
+ *
+ * @param <T> item type
+ */
+public final class GroupCommitter<T> {
+
+    /**
+     * Writes one batch of items durably; must either persist all of them or throw.
+     */
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+        void write(List<T> items) throws Exception;
+    }
+
+    private final BatchWriter<T> writer;
+    private final long maxWaitNanos;
+    private final int maxBatchSize;
+
+    private final Object lock = new Object();
+    private List<Pending<T>> open = new ArrayList<>();
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong items = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    /**
+     * @param writer        writes a collected batch
+     * @param maxWaitMillis how long a leader waits for followers before writing
+     * @param maxBatchSize  batch size at which the leader writes without waiting further
+     */
+    public GroupCommitter(BatchWriter<T> writer, long maxWaitMillis, int maxBatchSize) {
+        this.writer = writer;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, maxWaitMillis));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Queues the item and blocks until the batch containing it has been written.
+     *
+     * @param item item to write
+     * @throws IllegalStateException if the batch could not be written
+     */
+    public void submit(T item) {
+        Pending<T> pending = new Pending<>(item);
+        boolean leader;
+        synchronized (lock) {
+            open.add(pending);
+            leader = open.size() == 1;
+            if (open.size() >= maxBatchSize) {
+                lock.notifyAll();
+            }
+        }
+        if (leader) {
+            flush(collect());
+        }
+        try {
+            pending.done.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Group commit failed", e.getCause());
+        }
+    }
+
+    /**
+     * Returns batch counters.
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        long batchCount = batches.get();
+        stats.put("batches", batchCount);
+        stats.put("items", items.get());
+        stats.put("failedBatches", failedBatches.get());
+        stats.put("largestBatch", largestBatch.get());
+        stats.put("avgBatchSize", batchCount == 0 ? 0L : items.get() / batchCount);
+        return stats;
+    }
+
+    private List<Pending<T>> collect() {
+        synchronized (lock) {
+            long deadline = System.nanoTime() + maxWaitNanos;
+            try {
+                while (open.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                }
+            } catch (InterruptedException e) {
+                // Write what we have rather than strand the followers
+                Thread.currentThread().interrupt();
+            }
+            List<Pending<T>> batch = open;
+            open = new ArrayList<>();
+            return batch;
+        }
+    }
+
+    private void flush(List<Pending<T>> batch) {
+        List<T> values = new ArrayList<>(batch.size());
+        for (Pending<T> p : batch) {
+            values.add(p.item);
+        }
+        batches.incrementAndGet();
+        items.addAndGet(batch.size());
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+        try {
+            writer.write(values);
+            for (Pending<T> p : batch) {
+                p.done.complete(null);
+            }
+        } catch (Throwable t) {
+            failedBatches.incrementAndGet();
+            for (Pending<T> p : batch) {
+                p.done.completeExceptionally(t);
+            }
+        }
+    }
+
+    private static final class Pending<T> {
+        final T item;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(T item) {
+            this.item = item;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package ca.bcit.infosys.liangk.util;
 
+import ca.bcit.infosys.liangk.dao.HoursRollupRow;
+import ca.bcit.infosys.liangk.dao.TimesheetSearchRow;
 import ca.bcit.infosys.liangk.dto.*;
 import ca.bcit.infosys.liangk.entity.*;
 
@@ -49,11 +51,46 @@ public final class Mapper {
         dto.setWorkDate(e.getWorkDate() == null ? null : e.getWorkDate().format(ISO_DATE));
         dto.setProjectCode(e.getProjectCode());
         dto.setTaskCode(e.getTaskCode());
-        dto.setHours(e.getHours());
+        dto.setHours(e.getHours() == null ? null : e.getHours().toBigDecimal());
         dto.setDescription(e.getDescription());
         return dto;
     }
 
+    /**
+     * Maps a row of the hours rollup to its report DTO.
+     *
+     * @param r rollup row
+     * @return HoursTotalDTO or null if input is null
+     */
+    public static HoursTotalDTO toHoursTotalDTO(HoursRollupRow r) {
+        if (r == null) return null;
+        HoursTotalDTO dto = new HoursTotalDTO();
+        dto.setUsername(r.username());
+        dto.setProjectCode(r.projectCode());
+        dto.setWeekStart(r.weekStart() == null ? null : r.weekStart().format(ISO_DATE));
+        dto.setHours(r.hours() == null ? null : r.hours().toBigDecimal());
+        return dto;
+    }
+
+    /**
+     * Maps an admin search row to a timesheet summary.
+     *
+     * @param r search row
+     * @return corresponding TimesheetSummaryDTO or null if input is null
+     */
+    public static TimesheetSummaryDTO toTimesheetSummaryDTO(TimesheetSearchRow r) {
+        if (r == null) return null;
+        TimesheetSummaryDTO dto = new TimesheetSummaryDTO();
+        dto.setId(r.id());
+        dto.setWeekStart(r.weekStart() == null ? null : r.weekStart().format(ISO_DATE));
+        dto.setStatus(r.status());
+        dto.setTotalHours(r.totalHours() == null ? null : r.totalHours().toBigDecimal());
+        dto.setUsername(r.username());
+        dto.setFirstName(r.firstName());
+        dto.setLastName(r.lastName());
+        return dto;
+    }
+
     /**
      * Maps a Timesheet entity to its DTO representation including its entries.
      *
@@ -66,7 +103,7 @@ public final class Mapper {
         dto.setId(t.getId());
         dto.setWeekStart(t.getWeekStart() == null ? null : t.getWeekStart().format(ISO_DATE));
         dto.setStatus(t.getStatus());
-        dto.setTotalHours(t.getTotalHours());
+        dto.setTotalHours(t.getTotalHours() == null ? null : t.getTotalHours().toBigDecimal());
         List<TimesheetEntryDTO> entryDTOs = new ArrayList<>();
         if (t.getEntries() != null) {
             for (TimesheetEntry e : t.getEntries()) {
@@ -0,0 +1,13 @@
+package ca.bcit.infosys.liangk.util;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * @param items      items on this page, in listing order
+ * @param nextCursor opaque cursor for the following page, or null if this is the last page
+ * @param <T>        item type
+ */
+public record Page<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,32 @@
+package ca.bcit.infosys.liangk.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes the SHA-256 digest under which bearer tokens are stored in {@code auth_tokens}.
+ * Matches MySQL's {@code UNHEX(SHA2(token, 256))}, which the schema migration relies on.
+ */
+public final class TokenHash {
+
+    public static final int LENGTH = 32;
+    private static final String ALGORITHM = "SHA-256";
+
+    private TokenHash() {}
+
+    /**
+     * Returns the 32-byte SHA-256 digest of the token string.
+     *
+     * @param token raw token value
+     * @return digest bytes, or null if token is null
+     */
+    public static byte[] of(String token) {
+        if (token == null) return null;
+        try {
+            return MessageDigest.getInstance(ALGORITHM).digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
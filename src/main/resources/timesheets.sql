@@ -34,21 +34,27 @@ CREATE TABLE users (
 DEFAULT CHARSET = utf8mb4
 COLLATE = utf8mb4_unicode_ci;
 
+-- Lets the username filter confirm that no user changed since it was built
+CREATE INDEX idx_users_updated_at
+    ON users (updated_at);
+
 -- ============================================================================
 -- TABLE: auth_tokens
 -- Notes:
 --   - Stores login tokens issued to users.
 --   - Tokens are short-lived and must be validated on each request.
+--   - Only the SHA-256 digest of a token is stored (UNHEX(SHA2(token, 256))),
+--     as a compact BINARY(32) primary key.
 -- ============================================================================
 
 CREATE TABLE auth_tokens (
-                             token       VARCHAR(64)      NOT NULL,
+                             token_hash  BINARY(32)    NOT NULL,
                              user_id     INT UNSIGNED  NOT NULL,
                              issued_at   DATETIME      NOT NULL DEFAULT CURRENT_TIMESTAMP,
                              expires_at  DATETIME      NOT NULL,
                              active      TINYINT(1)    NOT NULL DEFAULT 1,
 
-                             CONSTRAINT pk_auth_tokens PRIMARY KEY (token),
+                             CONSTRAINT pk_auth_tokens PRIMARY KEY (token_hash),
 
                              CONSTRAINT fk_auth_tokens_user
                                  FOREIGN KEY (user_id)
@@ -63,6 +69,43 @@ COLLATE = utf8mb4_unicode_ci;
 CREATE INDEX idx_auth_tokens_user_id
     ON auth_tokens (user_id);
 
+-- Supports the expired-token reaper (range scan on expires_at)
+CREATE INDEX idx_auth_tokens_expires_at
+    ON auth_tokens (expires_at);
+
+-- Migration for databases created with the old VARCHAR(64) token key
+-- (run before deploying; existing sessions stay valid):
+-- ALTER TABLE auth_tokens ADD COLUMN token_hash BINARY(32) NULL FIRST;
+-- UPDATE auth_tokens SET token_hash = UNHEX(SHA2(token, 256));
+-- ALTER TABLE auth_tokens
+--   DROP PRIMARY KEY,
+--   DROP COLUMN token,
+--   MODIFY token_hash BINARY(32) NOT NULL,
+--   ADD CONSTRAINT pk_auth_tokens PRIMARY KEY (token_hash);
+
+-- ============================================================================
+-- TABLE: revoked_users
+-- Notes:
+--   - Deleted users whose signed tokens may still be presented.
+--   - Written before the user delete cascades away their auth_tokens rows,
+--     so every replica's revocation list keeps rejecting them until expires_at.
+--   - No FK to users: the row must outlive the user.
+-- ============================================================================
+
+CREATE TABLE revoked_users (
+                               user_id     INT UNSIGNED  NOT NULL,
+                               expires_at  DATETIME      NOT NULL,
+
+                               CONSTRAINT pk_revoked_users PRIMARY KEY (user_id)
+)
+    ENGINE = InnoDB
+DEFAULT CHARSET = utf8mb4
+COLLATE = utf8mb4_unicode_ci;
+
+-- Supports the reaper purge of expired revocations
+CREATE INDEX idx_revoked_users_expires_at
+    ON revoked_users (expires_at);
+
 -- ============================================================================
 -- TABLE: timesheets
 -- Notes:
@@ -76,6 +119,7 @@ CREATE TABLE timesheets (
                             week_start   DATE         NOT NULL,     -- e.g., Monday of the week
                             status       ENUM('OPEN','SUBMITTED','APPROVED') NOT NULL DEFAULT 'OPEN',
                             total_hours  DECIMAL(5,2) NOT NULL DEFAULT 0.00,
+                            version      INT UNSIGNED NOT NULL DEFAULT 0, -- optimistic lock, bumped on every change
                             created_at   DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
                             updated_at   DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP
                                 ON UPDATE CURRENT_TIMESTAMP,
@@ -95,6 +139,11 @@ CREATE TABLE timesheets (
 DEFAULT CHARSET = utf8mb4
 COLLATE = utf8mb4_unicode_ci;
 
+-- Admin search by status within a week range; carries the id for the (week_start DESC, id DESC)
+-- keyset order. Week ranges alone use idx_timesheets_week_start below.
+CREATE INDEX idx_timesheets_status_week
+    ON timesheets (status, week_start);
+
 CREATE INDEX idx_timesheets_user_id
     ON timesheets (user_id);
 
@@ -140,11 +189,78 @@ CREATE INDEX idx_entries_timesheet_id
 CREATE INDEX idx_entries_work_date
     ON timesheet_entries (work_date);
 
+-- Admin search by project: finds the timesheets with an entry for a project
+CREATE INDEX idx_entries_project_timesheet
+    ON timesheet_entries (project_code, timesheet_id);
+
 -- Optional CHECKs (MySQL 8+)
 -- ALTER TABLE timesheet_entries
 --   ADD CONSTRAINT chk_entries_hours
 --   CHECK (hours >= 0.00 AND hours <= 24.00);
 
+-- ============================================================================
+-- TABLE: id_sequences
+-- Notes:
+--   - Pooled id allocator for timesheets and timesheet_entries (JPA @TableGenerator).
+--     Each server reserves 50 ids per round trip, which lets Hibernate batch INSERTs
+--     (not possible with AUTO_INCREMENT ids).
+--   - next_val is the upper bound of the last reserved block; seed it with
+--     MAX(id) + 50 so the first block starts right after the existing rows.
+-- ============================================================================
+CREATE TABLE id_sequences (
+                              seq_name  VARCHAR(64)     NOT NULL,
+                              next_val  BIGINT UNSIGNED NOT NULL,
+
+                              CONSTRAINT pk_id_sequences PRIMARY KEY (seq_name)
+)
+    ENGINE = InnoDB
+DEFAULT CHARSET = utf8mb4
+COLLATE = utf8mb4_unicode_ci;
+
+INSERT INTO id_sequences (seq_name, next_val)
+SELECT 'timesheets', COALESCE(MAX(id), 0) + 50 FROM timesheets;
+INSERT INTO id_sequences (seq_name, next_val)
+SELECT 'timesheet_entries', COALESCE(MAX(id), 0) + 50 FROM timesheet_entries;
+
+-- ============================================================================
+-- TABLE: timesheet_hours_rollup
+-- Notes:
+--   - Total entry hours per (user, project_code, week_start), for reports that would
+--     otherwise scan timesheet_entries.
+--   - Maintained by the application in the same transaction as each timesheet or entry
+--     write, as INSERT ... ON DUPLICATE KEY UPDATE hours = hours + delta. Rows whose
+--     hours return to zero are kept and skipped by reports.
+--   - Seeded from the existing entries below.
+-- ============================================================================
+CREATE TABLE timesheet_hours_rollup (
+                                        user_id       INT UNSIGNED NOT NULL,
+                                        project_code  VARCHAR(50)  NOT NULL,
+                                        week_start    DATE         NOT NULL,
+                                        hours         DECIMAL(6,2) NOT NULL DEFAULT 0.00,
+
+                                        CONSTRAINT pk_timesheet_hours_rollup
+                                            PRIMARY KEY (user_id, project_code, week_start),
+
+                                        CONSTRAINT fk_rollup_user
+                                            FOREIGN KEY (user_id)
+                                                REFERENCES users (id)
+                                                ON DELETE CASCADE
+                                                ON UPDATE CASCADE
+)
+    ENGINE = InnoDB
+DEFAULT CHARSET = utf8mb4
+COLLATE = utf8mb4_unicode_ci;
+
+-- Company-wide reports select a week range, optionally one project
+CREATE INDEX idx_rollup_week_project
+    ON timesheet_hours_rollup (week_start, project_code);
+
+INSERT INTO timesheet_hours_rollup (user_id, project_code, week_start, hours)
+SELECT t.user_id, e.project_code, t.week_start, SUM(e.hours)
+FROM timesheets t
+         JOIN timesheet_entries e ON e.timesheet_id = t.id
+GROUP BY t.user_id, e.project_code, t.week_start;
+
 -- ============================================================================
 -- INITIAL DATA (optional but helpful for testing)
 -- Creates a default admin user with a placeholder password hash.
@@ -0,0 +1,39 @@
+package ca.bcit.infosys.liangk.entity;
+
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HoursTest {
+
+    @Test
+    void roundsHalfUpToHundredths() {
+        assertEquals(750, Hours.parse("7.5").hundredths());
+        assertEquals(13, Hours.parse("0.125").hundredths());
+        assertEquals(-13, Hours.parse("-0.125").hundredths());
+        assertEquals(new BigDecimal("7.50"), Hours.parse("7.5").toBigDecimal());
+        assertEquals("0.00", Hours.ZERO.toString());
+        assertNull(Hours.of(null));
+    }
+
+    @Test
+    void arithmeticIsExact() {
+        assertEquals(Hours.parse("1.25"), Hours.parse("2.00").minus(Hours.parse("0.75")));
+        assertEquals(Hours.parse("-3.00"), Hours.parse("3").negate());
+        Hours max = Hours.ofHundredths(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.plus(Hours.ofHundredths(1)));
+        assertThrows(ArithmeticException.class, () -> Hours.parse("1e30"));
+    }
+
+    @Test
+    void jsonUsesTheDecimalForm() throws Exception {
+        try (Jsonb jsonb = JsonbBuilder.create()) {
+            assertEquals("7.50", jsonb.toJson(Hours.parse("7.5")));
+            assertEquals(Hours.parse("7.25"), jsonb.fromJson("7.25", Hours.class));
+        }
+    }
+}
@@ -2,7 +2,6 @@ package ca.bcit.infosys.liangk.entity;
 
 import org.junit.jupiter.api.Test;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,12 +16,12 @@ public class TimesheetRecalcTotalHoursTest {
         TimesheetEntry e1 = new TimesheetEntry();
         e1.setWorkDate(LocalDate.of(2025, 1, 6));
         e1.setProjectCode("P1");
-        e1.setHours(new BigDecimal("1.25"));
+        e1.setHours(Hours.parse("1.25"));
 
         TimesheetEntry e2 = new TimesheetEntry();
         e2.setWorkDate(LocalDate.of(2025, 1, 7));
         e2.setProjectCode("P2");
-        e2.setHours(new BigDecimal("2.75"));
+        e2.setHours(Hours.parse("2.75"));
 
         TimesheetEntry e3 = new TimesheetEntry();
         e3.setWorkDate(LocalDate.of(2025, 1, 8));
@@ -33,7 +32,7 @@ public class TimesheetRecalcTotalHoursTest {
         t.addEntry(e2);
         t.addEntry(e3);
 
-        assertEquals(new BigDecimal("4.00"), t.getTotalHours());
+        assertEquals(Hours.parse("4.00"), t.getTotalHours());
     }
 
     @Test
@@ -41,7 +40,7 @@ public class TimesheetRecalcTotalHoursTest {
         Timesheet t = new Timesheet();
         t.setWeekStart(LocalDate.of(2025, 1, 6));
         t.recalcTotalHours();
-        assertEquals(new BigDecimal("0"), t.getTotalHours());
+        assertEquals(Hours.ZERO, t.getTotalHours());
     }
 
     @Test
@@ -52,18 +51,18 @@ public class TimesheetRecalcTotalHoursTest {
         TimesheetEntry e1 = new TimesheetEntry();
         e1.setWorkDate(LocalDate.of(2025, 1, 6));
         e1.setProjectCode("P1");
-        e1.setHours(new BigDecimal("4.50"));
+        e1.setHours(Hours.parse("4.50"));
 
         TimesheetEntry e2 = new TimesheetEntry();
         e2.setWorkDate(LocalDate.of(2025, 1, 7));
         e2.setProjectCode("P1");
-        e2.setHours(new BigDecimal("1.25"));
+        e2.setHours(Hours.parse("1.25"));
 
         t.addEntry(e1);
         t.addEntry(e2);
-        assertEquals(new BigDecimal("5.75"), t.getTotalHours());
+        assertEquals(Hours.parse("5.75"), t.getTotalHours());
 
         t.removeEntry(e2);
-        assertEquals(new BigDecimal("4.50"), t.getTotalHours());
+        assertEquals(Hours.parse("4.50"), t.getTotalHours());
     }
 }
@@ -0,0 +1,37 @@
+package ca.bcit.infosys.liangk.rest;
+
+import ca.bcit.infosys.liangk.dao.TimesheetListRow;
+import ca.bcit.infosys.liangk.dao.TimesheetVersion;
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ETagsTest {
+
+    @Test
+    void listTagFromRowsMatchesTagFromVersions() {
+        List<TimesheetListRow> rows = List.of(row(2L, 5L, 10L), row(2L, 5L, 11L), row(1L, 0L, null));
+        assertEquals(ETags.ofVersions(List.of(new TimesheetVersion(2L, 5L, null), new TimesheetVersion(1L, 0L, null))),
+                ETags.ofRows(rows));
+        assertEquals(ETags.ofVersions(List.of()), ETags.ofRows(List.of()));
+    }
+
+    @Test
+    void listTagChangesWithAnyVersionOrMembership() {
+        var base = ETags.ofVersions(List.of(new TimesheetVersion(2L, 5L, null), new TimesheetVersion(1L, 0L, null)));
+        assertNotEquals(base, ETags.ofVersions(List.of(new TimesheetVersion(2L, 6L, null), new TimesheetVersion(1L, 0L, null))));
+        assertNotEquals(base, ETags.ofVersions(List.of(new TimesheetVersion(2L, 5L, null))));
+        assertNotEquals(base, ETags.ofVersions(List.of(new TimesheetVersion(1L, 0L, null), new TimesheetVersion(2L, 5L, null))));
+        assertEquals("7", ETags.of(7L));
+    }
+
+    private static TimesheetListRow row(Long id, long version, Long entryId) {
+        return new TimesheetListRow(id, LocalDate.of(2025, 1, 6), TimesheetStatus.OPEN, Hours.ZERO, version,
+                null, entryId, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,48 @@
+package ca.bcit.infosys.liangk.rest;
+
+import ca.bcit.infosys.liangk.dao.TimesheetListRow;
+import ca.bcit.infosys.liangk.dao.TimesheetVersion;
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LastModifiedTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 1, 6, 9, 30, 15, 500_000_000);
+
+    @Test
+    void truncatesToTheSecondOnceThatSecondHasPassed() {
+        assertEquals(date(T.withNano(0)), LastModified.of(T, T.plusSeconds(1)));
+        // Another change within the same second would carry the same date
+        assertNull(LastModified.of(T, T.plusNanos(400_000_000)));
+        assertNull(LastModified.of(null, T));
+    }
+
+    @Test
+    void listValueIsTheLatestChangeFromRowsOrVersions() {
+        LocalDateTime earlier = LocalDateTime.of(2025, 1, 6, 9, 0);
+        LocalDateTime later = LocalDateTime.of(2025, 1, 7, 9, 0);
+        List<TimesheetListRow> rows = List.of(row(2L, later, 10L), row(2L, later, 11L), row(1L, earlier, null));
+        assertEquals(date(later), LastModified.ofRows(rows));
+        assertEquals(LastModified.ofRows(rows), LastModified.ofVersions(
+                List.of(new TimesheetVersion(2L, 0L, later), new TimesheetVersion(1L, 0L, earlier))));
+        assertNull(LastModified.ofRows(List.of()));
+    }
+
+    private static Date date(LocalDateTime t) {
+        return Date.from(t.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static TimesheetListRow row(Long id, LocalDateTime updatedAt, Long entryId) {
+        return new TimesheetListRow(id, LocalDate.of(2025, 1, 6), TimesheetStatus.OPEN, Hours.ZERO, 0L,
+                updatedAt, entryId, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,85 @@
+package ca.bcit.infosys.liangk.rest;
+
+import ca.bcit.infosys.liangk.dao.TimesheetListRow;
+import ca.bcit.infosys.liangk.dto.TimesheetDTO;
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.Timesheet;
+import ca.bcit.infosys.liangk.entity.TimesheetEntry;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+import ca.bcit.infosys.liangk.util.Mapper;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.ws.rs.core.MediaType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimesheetListJsonWriterTest {
+
+    @Test
+    void matchesJsonbOutputOfTheDtoPath() throws Exception {
+        Timesheet first = timesheet(7L, "2025-01-13", TimesheetStatus.SUBMITTED);
+        first.addEntry(entry(70L, "2025-01-13", "P1", "T1", "7.50", "Design \"review\", ünïcode"));
+        first.addEntry(entry(71L, "2025-01-14", "P2", null, "0.25", null));
+        Timesheet empty = timesheet(3L, "2025-01-06", TimesheetStatus.OPEN);
+        List<Timesheet> timesheets = List.of(first, empty);
+
+        List<TimesheetListRow> rows = new ArrayList<>();
+        for (Timesheet t : timesheets) {
+            if (t.getEntries().isEmpty()) {
+                rows.add(new TimesheetListRow(t.getId(), t.getWeekStart(), t.getStatus(), t.getTotalHours(), t.getVersion(), t.getUpdatedAt(),
+                        null, null, null, null, null, null));
+            }
+            for (TimesheetEntry e : t.getEntries()) {
+                rows.add(new TimesheetListRow(t.getId(), t.getWeekStart(), t.getStatus(), t.getTotalHours(), t.getVersion(), t.getUpdatedAt(),
+                        e.getId(), e.getWorkDate(), e.getProjectCode(), e.getTaskCode(), e.getHours(), e.getDescription()));
+            }
+        }
+
+        String expected;
+        try (Jsonb jsonb = JsonbBuilder.create()) {
+            List<TimesheetDTO> dtos = timesheets.stream().map(Mapper::toTimesheetDTO).toList();
+            expected = jsonb.toJson(dtos);
+        }
+        assertEquals(expected, write(rows));
+    }
+
+    @Test
+    void writesEmptyArrayForNoRows() throws Exception {
+        assertEquals("[]", write(List.of()));
+    }
+
+    private static String write(List<TimesheetListRow> rows) throws Exception {
+        TimesheetListJsonWriter writer = new TimesheetListJsonWriter();
+        assertTrue(writer.isWriteable(TimesheetListJson.class, null, null, MediaType.APPLICATION_JSON_TYPE));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(new TimesheetListJson(rows), TimesheetListJson.class, null, null,
+                MediaType.APPLICATION_JSON_TYPE, null, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Timesheet timesheet(long id, String week, TimesheetStatus status) {
+        Timesheet t = new Timesheet();
+        t.setId(id);
+        t.setWeekStart(LocalDate.parse(week));
+        t.setStatus(status);
+        return t;
+    }
+
+    private static TimesheetEntry entry(long id, String date, String project, String task, String hours, String description) {
+        TimesheetEntry e = new TimesheetEntry();
+        e.setId(id);
+        e.setWorkDate(LocalDate.parse(date));
+        e.setProjectCode(project);
+        e.setTaskCode(task);
+        e.setHours(Hours.parse(hours));
+        e.setDescription(description);
+        return e;
+    }
+}
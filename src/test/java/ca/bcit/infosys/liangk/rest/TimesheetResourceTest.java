@@ -2,12 +2,14 @@ package ca.bcit.infosys.liangk.rest;
 
 import ca.bcit.infosys.liangk.dto.TimesheetDTO;
 import ca.bcit.infosys.liangk.dto.TimesheetEntryDTO;
+import ca.bcit.infosys.liangk.entity.Hours;
 import ca.bcit.infosys.liangk.entity.Timesheet;
 import ca.bcit.infosys.liangk.entity.TimesheetEntry;
 import ca.bcit.infosys.liangk.entity.TimesheetStatus;
 import ca.bcit.infosys.liangk.entity.User;
 import ca.bcit.infosys.liangk.entity.UserRole;
 import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.security.AuthPrincipal;
 import ca.bcit.infosys.liangk.security.CurrentUserHolder;
 import ca.bcit.infosys.liangk.service.TimesheetService;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +17,7 @@ import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,8 +33,7 @@ public class TimesheetResourceTest {
         resource = new TimesheetResource();
         service = new FakeTimesheetService();
         holder = new CurrentUserHolder();
-        User u = new User(); u.setId(1L); u.setUsername("jdoe"); u.setRole(UserRole.USER);
-        holder.setUser(u);
+        holder.setPrincipal(new AuthPrincipal(1L, "jdoe", UserRole.USER, true, LocalDateTime.now().plusHours(1)));
         setField(resource, "timesheetService", service);
         setField(resource, "currentUserHolder", holder);
     }
@@ -46,7 +48,7 @@ public class TimesheetResourceTest {
         e.setProjectCode("P1");
         e.setHours(new BigDecimal("2.00"));
         req.setEntries(List.of(e));
-        service.createTimesheet(holder.getUser(), req);
+        service.createTimesheet(holder.getPrincipal(), req);
 
         var list = resource.list(null);
         assertEquals(1, list.size());
@@ -57,7 +59,7 @@ public class TimesheetResourceTest {
     void get_returnsDTOForExisting() {
         TimesheetDTO req = new TimesheetDTO();
         req.setWeekStart("2025-01-06");
-        Timesheet t = service.createTimesheet(holder.getUser(), req);
+        Timesheet t = service.createTimesheet(holder.getPrincipal(), req);
         TimesheetDTO dto = resource.get(t.getId());
         assertEquals("2025-01-06", dto.getWeekStart());
     }
@@ -66,7 +68,7 @@ public class TimesheetResourceTest {
     void create_withInvalidWeek_throwsValidationException() {
         TimesheetDTO req = new TimesheetDTO();
         req.setWeekStart("bad-date");
-        assertThrows(ValidationException.class, () -> service.createTimesheet(holder.getUser(), req));
+        assertThrows(ValidationException.class, () -> service.createTimesheet(holder.getPrincipal(), req));
     }
 
     // ===== Helpers =====
@@ -86,12 +88,14 @@ public class TimesheetResourceTest {
         private final Map<Long, Timesheet> storage = new HashMap<>();
         private long seq = 1L;
         @Override
-        public Timesheet createTimesheet(User currentUser, TimesheetDTO dto) {
+        public Timesheet createTimesheet(AuthPrincipal currentUser, TimesheetDTO dto) {
             if (dto.getWeekStart() == null) throw new ValidationException("weekStart is required");
             LocalDate week = parseDate(dto.getWeekStart());
             Timesheet t = new Timesheet();
             t.setId(seq++);
-            t.setOwner(currentUser);
+            User owner = new User();
+            owner.setId(currentUser.userId());
+            t.setOwner(owner);
             t.setWeekStart(week);
             t.setStatus(dto.getStatus() == null ? TimesheetStatus.OPEN : dto.getStatus());
             List<TimesheetEntry> entries = new ArrayList<>();
@@ -100,7 +104,7 @@ public class TimesheetResourceTest {
                     TimesheetEntry entry = new TimesheetEntry();
                     entry.setWorkDate(parseDate(e.getWorkDate()));
                     entry.setProjectCode(e.getProjectCode());
-                    entry.setHours(e.getHours());
+                    entry.setHours(Hours.of(e.getHours()));
                     entry.setTimesheet(t);
                     entries.add(entry);
                 }
@@ -111,13 +115,13 @@ public class TimesheetResourceTest {
             return t;
         }
         @Override
-        public Timesheet getTimesheet(User currentUser, long id) {
+        public Timesheet getTimesheet(AuthPrincipal currentUser, long id) {
             Timesheet t = storage.get(id);
             if (t == null) throw new ca.bcit.infosys.liangk.exception.NotFoundException("Timesheet not found: id=" + id);
             return t;
         }
         @Override
-        public java.util.List<Timesheet> listTimesheets(User currentUser, Optional<LocalDate> weekStart) {
+        public java.util.List<Timesheet> listTimesheets(AuthPrincipal currentUser, Optional<LocalDate> weekStart) {
             return storage.values().stream().sorted(Comparator.comparing(Timesheet::getId)).toList();
         }
         private static LocalDate parseDate(String s) {
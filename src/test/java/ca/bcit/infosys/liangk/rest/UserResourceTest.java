@@ -7,6 +7,7 @@ import ca.bcit.infosys.liangk.entity.User;
 import ca.bcit.infosys.liangk.entity.UserRole;
 import ca.bcit.infosys.liangk.exception.ForbiddenException;
 import ca.bcit.infosys.liangk.service.UserService;
+import ca.bcit.infosys.liangk.security.AuthPrincipal;
 import ca.bcit.infosys.liangk.security.CurrentUserHolder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import jakarta.ws.rs.core.Response;
 
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -36,37 +38,37 @@ public class UserResourceTest {
 
     @Test
     void listUsers_userRole_forbidden() {
-        holder.setUser(buildUser(1L, UserRole.USER));
+        holder.setPrincipal(buildUser(1L, UserRole.USER));
         assertThrows(ForbiddenException.class, () -> resource.listUsers());
     }
 
     @Test
     void getUser_userRole_forbidden() {
-        holder.setUser(buildUser(1L, UserRole.USER));
+        holder.setPrincipal(buildUser(1L, UserRole.USER));
         assertThrows(ForbiddenException.class, () -> resource.getUser(1L));
     }
 
     @Test
     void createUser_userRole_forbidden() {
-        holder.setUser(buildUser(1L, UserRole.USER));
+        holder.setPrincipal(buildUser(1L, UserRole.USER));
         assertThrows(ForbiddenException.class, () -> resource.createUser(new CreateUserRequest(), new FakeUriInfo()));
     }
 
     @Test
     void updateUser_userRole_forbidden() {
-        holder.setUser(buildUser(1L, UserRole.USER));
+        holder.setPrincipal(buildUser(1L, UserRole.USER));
         assertThrows(ForbiddenException.class, () -> resource.updateUser(1L, new UpdateUserRequest()));
     }
 
     @Test
     void deleteUser_userRole_forbidden() {
-        holder.setUser(buildUser(1L, UserRole.USER));
+        holder.setPrincipal(buildUser(1L, UserRole.USER));
         assertThrows(ForbiddenException.class, () -> resource.deleteUser(1L));
     }
 
     @Test
     void admin_canListAndGetAndCreateUpdateDelete() {
-        holder.setUser(buildUser(99L, UserRole.ADMIN));
+        holder.setPrincipal(buildUser(99L, UserRole.ADMIN));
 
         // Setup fake service data
         User u1 = new User(); u1.setId(1L); u1.setUsername("a"); u1.setFirstName("A"); u1.setLastName("A"); u1.setEmployeeNumber(1); u1.setRole(UserRole.USER); u1.setActive(true);
@@ -102,12 +104,8 @@ public class UserResourceTest {
     }
 
     // ===== Helpers & fakes =====
-    private static User buildUser(Long id, UserRole role) {
-        User u = new User();
-        u.setId(id);
-        u.setRole(role);
-        return u;
-        
+    private static AuthPrincipal buildUser(Long id, UserRole role) {
+        return new AuthPrincipal(id, "user" + id, role, true, LocalDateTime.now().plusHours(1));
     }
 
     private static void setField(Object target, String field, Object value) {
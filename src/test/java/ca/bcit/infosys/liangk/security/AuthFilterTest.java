@@ -1,6 +1,5 @@
 package ca.bcit.infosys.liangk.security;
 
-import ca.bcit.infosys.liangk.entity.User;
 import ca.bcit.infosys.liangk.entity.UserRole;
 import ca.bcit.infosys.liangk.exception.UnauthorizedException;
 import ca.bcit.infosys.liangk.service.AuthService;
@@ -12,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,14 +35,14 @@ public class AuthFilterTest {
     void optionsBypass_noAuthRequired() throws IOException {
         FakeRequestContext ctx = new FakeRequestContext("OPTIONS", "/timesheets", null);
         filter.filter(ctx); // should not throw
-        assertNull(holder.getUser());
+        assertNull(holder.getPrincipal());
     }
 
     @Test
     void loginPathBypass_noAuthRequired() throws IOException {
         FakeRequestContext ctx = new FakeRequestContext("POST", "/auth/login", null);
         filter.filter(ctx); // should not throw
-        assertNull(holder.getUser());
+        assertNull(holder.getPrincipal());
     }
 
     @Test
@@ -73,15 +73,12 @@ public class AuthFilterTest {
         headers.put(HttpHeaders.AUTHORIZATION, "Bearer abc123");
         FakeRequestContext ctx = new FakeRequestContext("GET", "/timesheets", headers);
 
-        User u = new User();
-        u.setId(10L);
-        u.setUsername("jdoe");
-        u.setRole(UserRole.USER);
+        AuthPrincipal u = new AuthPrincipal(10L, "jdoe", UserRole.USER, true, LocalDateTime.now().plusHours(1));
         authService.userToReturn = u;
 
         filter.filter(ctx);
 
-        assertEquals(u, holder.getUser());
+        assertEquals(u, holder.getPrincipal());
         assertEquals(u, ctx.getProperty(AuthFilter.REQ_PROP_CURRENT_USER));
         assertEquals("abc123", authService.lastValidatedToken);
     }
@@ -98,10 +95,10 @@ public class AuthFilterTest {
     }
 
     private static class FakeAuthService extends AuthService {
-        User userToReturn;
+        AuthPrincipal userToReturn;
         String lastValidatedToken;
         @Override
-        public User validateToken(String tokenString) {
+        public AuthPrincipal validateToken(String tokenString) {
             this.lastValidatedToken = tokenString;
             if (userToReturn == null) throw new UnauthorizedException("Invalid token");
             return userToReturn;
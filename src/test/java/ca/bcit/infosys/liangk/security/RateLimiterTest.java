@@ -0,0 +1,64 @@
+package ca.bcit.infosys.liangk.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    void allowsBurstThenThrottlesUntilRefill() {
+        RateLimiter limiter = limiter(Map.of(RateLimiter.ROUTE_LOGIN, new RateLimiter.Limit(3, 60)), 16);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0L, limiter.tryAcquire(RateLimiter.ROUTE_LOGIN, "10.0.0.1"));
+        }
+        long wait = limiter.tryAcquire(RateLimiter.ROUTE_LOGIN, "10.0.0.1");
+        assertEquals(TimeUnit.SECONDS.toNanos(1), wait); // 60/min refills one token per second
+
+        // Other callers have their own bucket
+        assertEquals(0L, limiter.tryAcquire(RateLimiter.ROUTE_LOGIN, "10.0.0.2"));
+
+        clock.addAndGet(wait);
+        assertEquals(0L, limiter.tryAcquire(RateLimiter.ROUTE_LOGIN, "10.0.0.1"));
+        assertEquals(1L, limiter.stats().get("throttled"));
+    }
+
+    @Test
+    void unknownRoutesUseDefaultAndDisabledLimitsNeverThrottle() {
+        RateLimiter limiter = limiter(Map.of(
+                RateLimiter.ROUTE_DEFAULT, new RateLimiter.Limit(1, 1),
+                RateLimiter.ROUTE_ADMIN, new RateLimiter.Limit(0, 0)), 16);
+
+        assertEquals(0L, limiter.tryAcquire("reports", "7"));
+        assertTrue(limiter.tryAcquire("reports", "7") > 0);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0L, limiter.tryAcquire(RateLimiter.ROUTE_ADMIN, "7"));
+        }
+    }
+
+    @Test
+    void evictsIdleBucketsAndCapsStripeSize() {
+        RateLimiter limiter = limiter(Map.of(RateLimiter.ROUTE_DEFAULT, new RateLimiter.Limit(2, 60)), 1);
+
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire(RateLimiter.ROUTE_DEFAULT, "caller" + i);
+        }
+        assertTrue(limiter.stats().get("buckets") <= 64); // one bucket per stripe at most
+        assertTrue(limiter.stats().get("capacityEvictions") > 0);
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(1)); // every bucket is full again
+        limiter.tryAcquire(RateLimiter.ROUTE_DEFAULT, "caller0");
+        assertTrue(limiter.stats().get("idleEvictions") > 0);
+    }
+
+    private RateLimiter limiter(Map<String, RateLimiter.Limit> limits, int maxBucketsPerStripe) {
+        return new RateLimiter(true, limits, maxBucketsPerStripe, clock::get);
+    }
+}
@@ -0,0 +1,45 @@
+package ca.bcit.infosys.liangk.security;
+
+import ca.bcit.infosys.liangk.entity.UserRole;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SignedTokenCodecTest {
+
+    private static final String TOKEN_ID = "00112233445566778899aabbccddeeff00112233445566778899aabbccddeeff";
+
+    @Test
+    void encodeDecode_roundTripsClaims() {
+        SignedTokenCodec codec = new SignedTokenCodec(true, "secret");
+        String token = codec.encode(new SignedTokenCodec.Claims(TOKEN_ID, 42L, UserRole.ADMIN, 1_900_000_000L));
+
+        SignedTokenCodec.Claims claims = codec.decode(token);
+        assertNotNull(claims);
+        assertEquals(TOKEN_ID, claims.tokenId());
+        assertEquals(42L, claims.userId());
+        assertEquals(UserRole.ADMIN, claims.role());
+        assertEquals(1_900_000_000L, claims.expiresAtEpochSecond());
+    }
+
+    @Test
+    void tamperedPayload_rejected() {
+        SignedTokenCodec codec = new SignedTokenCodec(true, "secret");
+        String token = codec.encode(new SignedTokenCodec.Claims(TOKEN_ID, 42L, UserRole.USER, 1_900_000_000L));
+        String elevated = token.replace(".USER.", ".ADMIN.");
+        assertNull(codec.decode(elevated));
+    }
+
+    @Test
+    void differentKey_rejected() {
+        String token = new SignedTokenCodec(true, "one")
+                .encode(new SignedTokenCodec.Claims(TOKEN_ID, 1L, UserRole.USER, 1_900_000_000L));
+        assertNull(new SignedTokenCodec(true, "two").decode(token));
+    }
+
+    @Test
+    void opaqueTokensAreNotMistakenForSigned() {
+        assertFalse(SignedTokenCodec.looksSigned(TOKEN_ID));
+        assertNull(new SignedTokenCodec(true, "secret").decode(TOKEN_ID));
+    }
+}
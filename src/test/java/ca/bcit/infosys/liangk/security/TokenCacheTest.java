@@ -0,0 +1,68 @@
+package ca.bcit.infosys.liangk.security;
+
+import ca.bcit.infosys.liangk.entity.UserRole;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenCacheTest {
+
+    @Test
+    void hitAndMissAreCounted() {
+        TokenCache cache = new TokenCache(10, 60_000);
+        assertNull(cache.get("a"));
+        cache.put("a", principal(1L, LocalDateTime.now().plusHours(1)));
+        assertNotNull(cache.get("a"));
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        TokenCache cache = new TokenCache(2, 60_000);
+        cache.put("a", principal(1L, LocalDateTime.now().plusHours(1)));
+        cache.put("b", principal(2L, LocalDateTime.now().plusHours(1)));
+        cache.get("a"); // touch a so b becomes eldest
+        cache.put("c", principal(3L, LocalDateTime.now().plusHours(1)));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    void entryNeverOutlivesTokenExpiry() {
+        TokenCache cache = new TokenCache(10, 60_000);
+        cache.put("expired", principal(1L, LocalDateTime.now().minusSeconds(1)));
+        assertNull(cache.get("expired"));
+    }
+
+    @Test
+    void invalidateUserDropsAllTokensOfThatUser() {
+        TokenCache cache = new TokenCache(10, 60_000);
+        cache.put("a", principal(1L, LocalDateTime.now().plusHours(1)));
+        cache.put("b", principal(1L, LocalDateTime.now().plusHours(1)));
+        cache.put("c", principal(2L, LocalDateTime.now().plusHours(1)));
+
+        cache.invalidateUser(1L);
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(2L, cache.stats().get("invalidations"));
+    }
+
+    @Test
+    void zeroSizeDisablesCaching() {
+        TokenCache cache = new TokenCache(0, 60_000);
+        cache.put("a", principal(1L, LocalDateTime.now().plusHours(1)));
+        assertNull(cache.get("a"));
+    }
+
+    private static AuthPrincipal principal(Long userId, LocalDateTime expiresAt) {
+        return new AuthPrincipal(userId, "user" + userId, UserRole.USER, true, expiresAt);
+    }
+}
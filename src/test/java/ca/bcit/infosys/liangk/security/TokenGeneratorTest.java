@@ -0,0 +1,36 @@
+package ca.bcit.infosys.liangk.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenGeneratorTest {
+
+    @Test
+    void tokensAreUniqueHexOfExpectedLength() {
+        TokenGenerator generator = new TokenGenerator(16, null);
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            String token = generator.nextToken();
+            assertTrue(token.matches("[0-9a-f]{64}"), token);
+            assertTrue(seen.add(token));
+        }
+    }
+
+    @Test
+    void poolIsRefilledBelowLowWaterMark() {
+        TokenGenerator generator = new TokenGenerator(16, null);
+        generator.nextToken(); // empty pool -> inline fallback, then synchronous refill
+        assertEquals(1L, generator.stats().get("fallbacks"));
+        assertEquals(16L, generator.stats().get("poolDepth"));
+
+        for (int i = 0; i < 13; i++) {
+            generator.nextToken();
+        }
+        assertEquals(1L, generator.stats().get("fallbacks"));
+        assertEquals(2L, generator.stats().get("refills"));
+    }
+}
@@ -0,0 +1,81 @@
+package ca.bcit.infosys.liangk.security;
+
+import ca.bcit.infosys.liangk.dao.UserDAO;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UsernameFilterTest {
+
+    @Test
+    void screensUnknownNamesUsingDatabaseCollationRules() throws Exception {
+        UsernameFilter filter = filterOver(List.of("jdoe", "admin"));
+
+        assertFalse(filter.isDefinitelyAbsent("jdoe"));
+        assertFalse(filter.isDefinitelyAbsent("JDoe "));   // case and trailing space ignored by the column
+        assertFalse(filter.isDefinitelyAbsent("jdöe"));    // accent-insensitive
+        assertTrue(filter.isDefinitelyAbsent("nobody"));
+
+        filter.add("newhire");
+        assertFalse(filter.isDefinitelyAbsent("newhire"));
+        assertEquals(1L, filter.stats().get("rejected"));
+    }
+
+    @Test
+    void doesNotRejectNamesWhileUsersChangedElsewhere() throws Exception {
+        AtomicBoolean changed = new AtomicBoolean();
+        UsernameFilter filter = filterOver(List.of("jdoe"), changed);
+
+        assertTrue(filter.isDefinitelyAbsent("nobody"));
+        assertEquals(1L, filter.stats().get("changeProbes"));
+        assertTrue(filter.isDefinitelyAbsent("nobody2")); // within the recheck interval: no probe
+        assertEquals(1L, filter.stats().get("changeProbes"));
+
+        // Another node creates a user; once the probe sees it, misses go to the database
+        changed.set(true);
+        Thread.sleep(1_100);
+        assertFalse(filter.isDefinitelyAbsent("hiredelsewhere"));
+        assertFalse(filter.isDefinitelyAbsent("nobody"));
+        assertEquals(2L, filter.stats().get("changeProbes"));
+        assertEquals(2L, filter.stats().get("staleMisses"));
+
+        changed.set(false);
+        filter.rebuild();
+        assertTrue(filter.isDefinitelyAbsent("nobody"));
+    }
+
+    @Test
+    void passesEverythingThroughWhenNotLoaded() {
+        UsernameFilter filter = new UsernameFilter();
+        assertFalse(filter.isDefinitelyAbsent("nobody"));
+        assertEquals(1L, filter.stats().get("bypassed"));
+    }
+
+    @Test
+    void staysOffWhenAStoredNameCannotBeFolded() throws Exception {
+        UsernameFilter filter = filterOver(List.of("jdoe", "straße"));
+        assertFalse(filter.isDefinitelyAbsent("nobody"));
+        assertEquals(0L, filter.stats().get("loaded"));
+    }
+
+    private static UsernameFilter filterOver(List<String> names) throws Exception {
+        return filterOver(names, new AtomicBoolean());
+    }
+
+    private static UsernameFilter filterOver(List<String> names, AtomicBoolean changed) throws Exception {
+        UsernameFilter filter = new UsernameFilter();
+        Field f = UsernameFilter.class.getDeclaredField("userDAO");
+        f.setAccessible(true);
+        f.set(filter, new UserDAO() {
+            @Override public List<String> findAllUsernames() { return names; }
+            @Override public boolean existsUpdatedSince(LocalDateTime since) { return changed.get(); }
+        });
+        filter.rebuild();
+        return filter;
+    }
+}
@@ -8,11 +8,25 @@ import ca.bcit.infosys.liangk.entity.AuthToken;
 import ca.bcit.infosys.liangk.entity.User;
 import ca.bcit.infosys.liangk.exception.UnauthorizedException;
 import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.security.AuthPrincipal;
+import ca.bcit.infosys.liangk.security.NegativeTokenCache;
+import ca.bcit.infosys.liangk.security.SignedTokenCodec;
+import ca.bcit.infosys.liangk.security.TokenCache;
+import ca.bcit.infosys.liangk.security.TokenGenerator;
+import ca.bcit.infosys.liangk.security.TokenRevocationList;
+import ca.bcit.infosys.liangk.security.UsernameFilter;
+import ca.bcit.infosys.liangk.util.TokenHash;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +44,16 @@ public class AuthServiceTest {
         tokenDAO = new FakeAuthTokenDAO();
         setField(service, "userDAO", userDAO);
         setField(service, "tokenDAO", tokenDAO);
+        setField(service, "tokenCache", new TokenCache());
+        setField(service, "signedTokenCodec", new SignedTokenCodec(false, null));
+        setField(service, "revocationList", new TokenRevocationList());
+        setField(service, "tokenGenerator", new TokenGenerator(8, null));
+        setField(service, "tokenInsertBatcher", new TokenInsertBatcher(false, 0L, 1));
+        setField(service, "negativeTokenCache", new NegativeTokenCache());
+        setField(service, "usernameFilter", new UsernameFilter());
+        setField(service, "sessionRenewer", new SessionRenewer(false, 0L, 0L));
+        setField(service, "txRegistry", Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TransactionSynchronizationRegistry.class}, (proxy, method, args) -> null));
     }
 
     @Test
@@ -53,6 +77,31 @@ public class AuthServiceTest {
         assertTrue(stored.getExpiresAt().isAfter(stored.getIssuedAt()));
     }
 
+    @Test
+    void login_deactivatesOldestTokensBeyondCap() {
+        User user = userWithPassword("jdoe", "secret");
+        userDAO.user = user;
+        java.util.List<AuthToken> existing = new java.util.ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            AuthToken t = new AuthToken();
+            t.setToken("old" + i);
+            t.setUser(user);
+            t.setIssuedAt(LocalDateTime.now().minusMinutes(10 - i));
+            t.setExpiresAt(LocalDateTime.now().plusHours(1));
+            t.setActive(true);
+            existing.add(t);
+        }
+        tokenDAO.activeForUser = existing;
+
+        LoginRequest req = new LoginRequest();
+        req.setUsername("jdoe");
+        req.setPassword("secret");
+        service.login(req);
+
+        assertFalse(existing.get(0).isActive());
+        assertTrue(existing.stream().skip(1).allMatch(AuthToken::isActive));
+    }
+
     @Test
     void login_rejectsInvalidPassword() {
         User user = userWithPassword("jdoe", "secret");
@@ -90,15 +139,34 @@ public class AuthServiceTest {
         ok.setActive(true);
         tokenDAO.token = ok;
 
-        User validated = service.validateToken("tok2");
-        assertEquals(user, validated);
+        AuthPrincipal validated = service.validateToken("tok2");
+        assertEquals(user.getId(), validated.userId());
+        assertEquals("jdoe", validated.username());
 
-        // Inactive token rejected
-        ok.setActive(false);
-        tokenDAO.token = ok;
+        // Token revoked through logout is rejected even though it was cached
+        service.logout("tok2");
+        assertFalse(ok.isActive());
         assertThrows(UnauthorizedException.class, () -> service.validateToken("tok2"));
     }
 
+    @Test
+    void validateToken_servesRepeatLookupsFromCache() {
+        User user = userWithPassword("jdoe", "secret");
+        AuthToken ok = new AuthToken();
+        ok.setToken("tok3");
+        ok.setUser(user);
+        ok.setIssuedAt(LocalDateTime.now());
+        ok.setExpiresAt(LocalDateTime.now().plusHours(1));
+        ok.setActive(true);
+        tokenDAO.token = ok;
+
+        service.validateToken("tok3");
+        tokenDAO.token = null; // a second DB lookup would now fail
+        AuthPrincipal cached = service.validateToken("tok3");
+        assertEquals(user.getId(), cached.userId());
+        assertEquals("jdoe", cached.username());
+    }
+
     @Test
     void logout_deactivatesTokenIfActive() {
         User user = new User();
@@ -114,6 +182,119 @@ public class AuthServiceTest {
         assertFalse(tokenDAO.token.isActive());
     }
 
+    @Test
+    void logout_dropsTokenCachedAgainBeforeTheDeactivationCommits() throws Exception {
+        List<Synchronization> registered = new ArrayList<>();
+        setField(service, "txRegistry", Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TransactionSynchronizationRegistry.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getTransactionKey" -> "tx";
+                    case "registerInterposedSynchronization" -> registered.add((Synchronization) args[0]);
+                    default -> null;
+                }));
+        TokenCache cache = new TokenCache();
+        setField(service, "tokenCache", cache);
+        User user = userWithPassword("jdoe", "secret");
+        AuthToken t = new AuthToken();
+        t.setToken("tok");
+        t.setUser(user);
+        t.setIssuedAt(LocalDateTime.now());
+        t.setExpiresAt(LocalDateTime.now().plusHours(1));
+        t.setActive(true);
+        tokenDAO.token = t;
+
+        service.logout("tok");
+        // A concurrent lookup still reading the committed, active row caches the token again
+        cache.put("tok", new AuthPrincipal(user.getId(), "jdoe", user.getRole(), true, t.getExpiresAt()));
+        registered.forEach(s -> s.afterCompletion(Status.STATUS_COMMITTED));
+
+        assertThrows(UnauthorizedException.class, () -> service.validateToken("tok"));
+    }
+
+    @Test
+    void signedMode_tokenValidatesWithoutLookupAndLogoutRevokes() throws Exception {
+        setField(service, "signedTokenCodec", new SignedTokenCodec(true, "test-secret"));
+        User user = userWithPassword("jdoe", "secret");
+        user.setRole(ca.bcit.infosys.liangk.entity.UserRole.USER);
+        userDAO.user = user;
+
+        LoginRequest req = new LoginRequest();
+        req.setUsername("jdoe");
+        req.setPassword("secret");
+        LoginResponse resp = service.login(req);
+        assertTrue(SignedTokenCodec.looksSigned(resp.getToken()));
+
+        tokenDAO.token = null; // validation must not need the auth_tokens row
+        AuthPrincipal validated = service.validateToken(resp.getToken());
+        assertEquals(user.getId(), validated.userId());
+        assertEquals(user.getRole(), validated.role());
+
+        tokenDAO.token = tokenDAO.lastCreated;
+        service.logout(resp.getToken());
+        assertFalse(tokenDAO.lastCreated.isActive());
+        assertThrows(UnauthorizedException.class, () -> service.validateToken(resp.getToken()));
+    }
+
+    @Test
+    void signedMode_deletedUserStaysRevokedOnOtherReplicas() throws Exception {
+        SignedTokenCodec codec = new SignedTokenCodec(true, "test-secret");
+        setField(service, "signedTokenCodec", codec);
+        User user = userWithPassword("jdoe", "secret");
+        user.setRole(ca.bcit.infosys.liangk.entity.UserRole.USER);
+        userDAO.user = user;
+
+        LoginRequest req = new LoginRequest();
+        req.setUsername("jdoe");
+        req.setPassword("secret");
+        LoginResponse resp = service.login(req);
+
+        service.onUserDeleted(user.getId());
+        assertThrows(UnauthorizedException.class, () -> service.validateToken(resp.getToken()));
+        assertTrue(tokenDAO.revokedUsers.get(user.getId()).isAfter(LocalDateTime.now().plusHours(7)));
+
+        // A replica that never saw the delete learns of it from the persisted revocation
+        TokenRevocationList otherNode = new TokenRevocationList();
+        setField(otherNode, "tokenDAO", tokenDAO);
+        setField(otherNode, "userDAO", userDAO);
+        setField(otherNode, "signedTokenCodec", codec);
+        otherNode.reload();
+        assertTrue(otherNode.isRevoked(TokenHash.of("other"), user.getId()));
+        assertFalse(otherNode.isRevoked(TokenHash.of("other"), 2L));
+    }
+
+    @Test
+    void validateToken_replaysRecentRejectionWithoutLookup() {
+        assertThrows(UnauthorizedException.class, () -> service.validateToken("unknown"));
+
+        // A row appearing now must not be consulted while the rejection is remembered
+        User user = userWithPassword("jdoe", "secret");
+        AuthToken t = new AuthToken();
+        t.setToken("unknown");
+        t.setUser(user);
+        t.setExpiresAt(LocalDateTime.now().plusHours(1));
+        t.setActive(true);
+        tokenDAO.token = t;
+        UnauthorizedException e = assertThrows(UnauthorizedException.class, () -> service.validateToken("unknown"));
+        assertEquals("Invalid or inactive token", e.getMessage());
+    }
+
+    @Test
+    void login_groupCommitEnabled_insertsThroughBatcher() throws Exception {
+        java.util.List<AuthToken> batched = new java.util.ArrayList<>();
+        setField(service, "tokenInsertBatcher", new TokenInsertBatcher(true, 0L, 1) {
+            @Override public void insert(AuthToken token) { batched.add(token); }
+        });
+        userDAO.user = userWithPassword("jdoe", "secret");
+
+        LoginRequest req = new LoginRequest();
+        req.setUsername("jdoe");
+        req.setPassword("secret");
+        LoginResponse resp = service.login(req);
+
+        assertNull(tokenDAO.lastCreated);
+        assertEquals(1, batched.size());
+        assertEquals(resp.getToken(), batched.get(0).getToken());
+    }
+
     // Helpers
     private static User userWithPassword(String username, String plain) {
         User u = new User();
@@ -134,13 +315,31 @@ public class AuthServiceTest {
     private static class FakeUserDAO extends UserDAO {
         User user;
         @Override public User findByUsername(String username) { return Objects.equals(user==null?null:user.getUsername(), username) ? user : null; }
+        @Override public java.util.List<Long> findInactiveUserIds() { return java.util.List.of(); }
     }
 
     private static class FakeAuthTokenDAO extends AuthTokenDAO {
         AuthToken token;
         AuthToken lastCreated;
         @Override public AuthToken findByToken(String t) { return token != null && java.util.Objects.equals(token.getToken(), t) ? token : null; }
+        @Override public AuthPrincipal findActivePrincipal(String t) {
+            AuthToken a = findByToken(t);
+            if (a == null || !a.isActive()) return null;
+            User u = a.getUser();
+            return new AuthPrincipal(u.getId(), u.getUsername(), u.getRole(), u.isActive(), a.getExpiresAt());
+        }
         @Override public AuthToken create(AuthToken a) { this.lastCreated = a; this.token = a; return a; }
         @Override public AuthToken update(AuthToken a) { this.token = a; return a; }
+        java.util.List<AuthToken> activeForUser;
+        @Override public java.util.List<AuthToken> findActiveTokensForUser(long userId) {
+            if (activeForUser != null) return activeForUser;
+            return token != null && token.isActive() ? java.util.List.of(token) : java.util.List.of();
+        }
+        final java.util.Map<Long, LocalDateTime> revokedUsers = new java.util.HashMap<>();
+        @Override public void revokeDeletedUser(long userId, LocalDateTime floor) { revokedUsers.put(userId, floor); }
+        @Override public java.util.List<Long> findRevokedUserIds(LocalDateTime now) {
+            return revokedUsers.entrySet().stream().filter(e -> e.getValue().isAfter(now)).map(java.util.Map.Entry::getKey).toList();
+        }
+        @Override public java.util.List<byte[]> findRevokedTokenHashes(LocalDateTime now) { return java.util.List.of(); }
     }
 }
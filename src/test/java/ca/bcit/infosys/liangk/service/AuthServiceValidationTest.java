@@ -7,6 +7,12 @@ import ca.bcit.infosys.liangk.entity.AuthToken;
 import ca.bcit.infosys.liangk.entity.User;
 import ca.bcit.infosys.liangk.exception.UnauthorizedException;
 import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.security.NegativeTokenCache;
+import ca.bcit.infosys.liangk.security.SignedTokenCodec;
+import ca.bcit.infosys.liangk.security.TokenCache;
+import ca.bcit.infosys.liangk.security.TokenGenerator;
+import ca.bcit.infosys.liangk.security.TokenRevocationList;
+import ca.bcit.infosys.liangk.security.UsernameFilter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -28,6 +34,14 @@ public class AuthServiceValidationTest {
         tokenDAO = new FakeAuthTokenDAO();
         setField(service, "userDAO", userDAO);
         setField(service, "tokenDAO", tokenDAO);
+        setField(service, "tokenCache", new TokenCache());
+        setField(service, "signedTokenCodec", new SignedTokenCodec(false, null));
+        setField(service, "revocationList", new TokenRevocationList());
+        setField(service, "tokenGenerator", new TokenGenerator(8, null));
+        setField(service, "tokenInsertBatcher", new TokenInsertBatcher(false, 0L, 1));
+        setField(service, "negativeTokenCache", new NegativeTokenCache());
+        setField(service, "usernameFilter", new UsernameFilter());
+        setField(service, "sessionRenewer", new SessionRenewer(false, 0L, 0L));
     }
 
     @Test
@@ -96,5 +110,8 @@ public class AuthServiceValidationTest {
         @Override public AuthToken findByToken(String t) { return token != null && Objects.equals(token.getToken(), t) ? token : null; }
         @Override public AuthToken create(AuthToken a) { this.token = a; return a; }
         @Override public AuthToken update(AuthToken a) { this.token = a; return a; }
+        @Override public java.util.List<AuthToken> findActiveTokensForUser(long userId) {
+            return token != null && token.isActive() ? java.util.List.of(token) : java.util.List.of();
+        }
     }
 }
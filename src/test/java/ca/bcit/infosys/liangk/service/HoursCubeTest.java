@@ -0,0 +1,154 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dao.HoursRollupCell;
+import ca.bcit.infosys.liangk.dao.HoursRollupDAO;
+import ca.bcit.infosys.liangk.dao.HoursRollupKey;
+import ca.bcit.infosys.liangk.dao.HoursRollupRow;
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.service.HoursCube.Dimension;
+import org.junit.jupiter.api.BeforeEach;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HoursCubeTest {
+
+    private static final LocalDate W1 = LocalDate.of(2025, 1, 6);
+    private static final LocalDate W2 = W1.plusWeeks(1);
+    private static final LocalDate W3 = W1.plusWeeks(2);
+
+    private HoursCube cube;
+    private FakeHoursRollupDAO dao;
+
+    @BeforeEach
+    void setup() throws Exception {
+        cube = new HoursCube();
+        dao = new FakeHoursRollupDAO();
+        dao.cells.add(cell(1, "alice", "A", W1, "8.00"));
+        dao.cells.add(cell(2, "bob", "A", W1, "2.50"));
+        dao.cells.add(cell(1, "alice", "B", W2, "4.00"));
+        dao.cells.add(cell(2, "bob", "A", W2, "1.00"));
+        dao.cells.add(cell(2, "bob", "B", W3, "6.00"));
+        setField(cube, "hoursRollupDAO", dao);
+        cube.reload();
+    }
+
+    @Test
+    void groupsAndFiltersTheWeekRange() {
+        assertEquals(List.of(row(null, "A", W1, "10.50"), row(null, "A", W2, "1.00"), row(null, "B", W2, "4.00")),
+                cube.query(W1, W2, null, null, EnumSet.of(Dimension.PROJECT, Dimension.WEEK)));
+        assertEquals(List.of(row("alice", null, null, "12.00"), row("bob", null, null, "9.50")),
+                cube.query(W1, W3, null, null, EnumSet.of(Dimension.USER)));
+        assertEquals(List.of(row("bob", null, W1, "2.50"), row("bob", null, W2, "1.00")),
+                cube.query(W1, W3, "A", "BOB", EnumSet.of(Dimension.USER, Dimension.WEEK)));
+        assertEquals(List.of(row(null, null, null, "21.50")), cube.query(W1, W3, null, null, EnumSet.noneOf(Dimension.class)));
+        assertEquals(List.of(), cube.query(W1, W3, null, "carol", EnumSet.of(Dimension.USER)));
+        assertEquals(List.of(), cube.query(W1, W3, "Z", null, EnumSet.of(Dimension.PROJECT)));
+    }
+
+    @Test
+    void committedDeltasCountUntilAReloadPicksThemUp() {
+        cube.apply(Map.of(new HoursRollupKey(1, "A", W1), Hours.parse("-8.00"),
+                new HoursRollupKey(1, "C", W3), Hours.parse("3.00"),
+                new HoursRollupKey(99, "A", W3), Hours.parse("5.00")));
+        // User 99 is not in the snapshot yet, so only the reload shows their hours
+        assertEquals(List.of(row(null, "A", null, "3.50"), row(null, "B", null, "10.00"), row(null, "C", null, "3.00")),
+                cube.query(W1, W3, null, null, EnumSet.of(Dimension.PROJECT)));
+        assertEquals(3L, cube.stats().get("pendingDeltas"));
+
+        dao.cells.remove(0);
+        dao.cells.add(cell(1, "alice", "C", W3, "3.00"));
+        dao.cells.add(cell(99, "carol", "A", W3, "5.00"));
+        cube.reload();
+        assertEquals(0L, cube.stats().get("pendingDeltas"));
+        assertEquals(List.of(row(null, "A", null, "8.50"), row(null, "B", null, "10.00"), row(null, "C", null, "3.00")),
+                cube.query(W1, W3, null, null, EnumSet.of(Dimension.PROJECT)));
+    }
+
+    @Test
+    void projectCodesAndUsernamesMatchIgnoringCaseAndAccents() {
+        cube.apply(Map.of(new HoursRollupKey(1, "a", W1), Hours.parse("1.00"),
+                new HoursRollupKey(2, "Ç", W2), Hours.parse("2.00")));
+        cube.apply(Map.of(new HoursRollupKey(2, "c", W3), Hours.parse("0.50")));
+        assertEquals(List.of(row(null, "A", null, "12.50"), row(null, "B", null, "10.00"), row(null, "Ç", null, "2.50")),
+                cube.query(W1, W3, null, null, EnumSet.of(Dimension.PROJECT)));
+        assertEquals(List.of(row("alice", "A", null, "9.00")),
+                cube.query(W1, W3, "a", "Alice", EnumSet.of(Dimension.USER, Dimension.PROJECT)));
+        assertEquals(List.of(row("bob", "Ç", null, "2.50")),
+                cube.query(W1, W3, "C ", "BÖB", EnumSet.of(Dimension.USER, Dimension.PROJECT)));
+    }
+
+    @Test
+    void aDeltaCommittingWhileAReloadStartsIsCountedOnce() throws Exception {
+        List<Synchronization> registered = new ArrayList<>();
+        setField(cube, "txRegistry", Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TransactionSynchronizationRegistry.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getTransactionKey" -> "tx";
+                    case "registerInterposedSynchronization" -> registered.add((Synchronization) args[0]);
+                    default -> null;
+                }));
+        cube.afterCommit(Map.of(new HoursRollupKey(1, "A", W1), Hours.parse("1.00")));
+        Synchronization commit = registered.get(0);
+
+        // The commit reaches the database, but its deltas are not applied until afterCompletion
+        commit.beforeCompletion();
+        dao.cells.set(0, cell(1, "alice", "A", W1, "9.00"));
+        CompletableFuture<Void> reload = CompletableFuture.runAsync(cube::reload);
+        assertThrows(TimeoutException.class, () -> reload.get(200, TimeUnit.MILLISECONDS));
+        commit.afterCompletion(Status.STATUS_COMMITTED);
+        reload.get(5, TimeUnit.SECONDS);
+
+        assertEquals(0L, cube.stats().get("pendingDeltas"));
+        assertEquals(List.of(row("alice", null, null, "13.00")),
+                cube.query(W1, W3, null, "alice", EnumSet.of(Dimension.USER)));
+    }
+
+    private static HoursRollupCell cell(long userId, String username, String project, LocalDate week, String hours) {
+        return new HoursRollupCell(userId, username, project, week, Hours.parse(hours));
+    }
+
+    private static HoursRollupRow row(String username, String project, LocalDate week, String hours) {
+        return new HoursRollupRow(username, project, week, Hours.parse(hours));
+    }
+
+    private static void setField(Object target, String field, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    private static class FakeHoursRollupDAO extends HoursRollupDAO {
+        final List<HoursRollupCell> cells = new ArrayList<>();
+
+        @Override
+        public void pinConnection() {
+        }
+
+        @Override
+        public void openReadView() {
+        }
+
+        @Override
+        public long scrollAll(int fetchSize, Consumer<HoursRollupCell> sink) {
+            cells.stream()
+                    .sorted((a, b) -> a.weekStart().compareTo(b.weekStart()))
+                    .forEach(sink);
+            return cells.size();
+        }
+    }
+}
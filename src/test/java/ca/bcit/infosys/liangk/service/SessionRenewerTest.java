@@ -0,0 +1,67 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dao.AuthTokenDAO;
+import ca.bcit.infosys.liangk.util.TokenHash;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionRenewerTest {
+
+    private SessionRenewer renewer;
+    private FakeAuthTokenDAO tokenDAO;
+
+    @BeforeEach
+    void setup() throws Exception {
+        renewer = new SessionRenewer(true, TimeUnit.MINUTES.toMillis(5), 24L);
+        tokenDAO = new FakeAuthTokenDAO();
+        Field f = SessionRenewer.class.getDeclaredField("tokenDAO");
+        f.setAccessible(true);
+        f.set(renewer, tokenDAO);
+    }
+
+    @Test
+    void freshTokensAreNotQueued() {
+        renewer.touch("tok", LocalDateTime.now().plusHours(AuthService.TOKEN_TTL_HOURS).minusMinutes(1));
+        renewer.flush();
+        assertTrue(tokenDAO.batches.isEmpty());
+    }
+
+    @Test
+    void repeatedActivityIsCoalescedIntoOneBatchedWrite() {
+        LocalDateTime aging = LocalDateTime.now().plusHours(1);
+        for (int i = 0; i < 5; i++) {
+            renewer.touch("tok", aging);
+        }
+        renewer.touch("other", aging);
+        renewer.flush();
+
+        assertEquals(1, tokenDAO.batches.size());
+        assertEquals(2, tokenDAO.batches.get(0).size());
+        assertTrue(tokenDAO.batches.get(0).stream().anyMatch(h -> java.util.Arrays.equals(h, TokenHash.of("tok"))));
+        assertEquals(4L, renewer.stats().get("coalesced"));
+
+        // Still inside the renewal interval, so the stale cached expiry does not queue another write
+        renewer.touch("tok", aging);
+        renewer.flush();
+        assertEquals(1, tokenDAO.batches.size());
+    }
+
+    private static class FakeAuthTokenDAO extends AuthTokenDAO {
+        final List<List<byte[]>> batches = new ArrayList<>();
+
+        @Override
+        public int extendExpiry(List<byte[]> hashes, LocalDateTime now, LocalDateTime expiresAt, LocalDateTime issuedAfter) {
+            if (hashes.isEmpty()) return 0;
+            batches.add(new ArrayList<>(hashes));
+            return hashes.size();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dao.TimesheetDAO;
+import ca.bcit.infosys.liangk.dao.TimesheetExportRow;
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.service.TimesheetImportReader.ImportRow;
+import jakarta.transaction.Status;
+import jakarta.transaction.UserTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimesheetExportServiceTest {
+
+    private TimesheetExportService service;
+    private FakeTimesheetDAO timesheetDAO;
+    private FakeTransaction tx;
+
+    @BeforeEach
+    void setup() throws Exception {
+        service = new TimesheetExportService();
+        timesheetDAO = new FakeTimesheetDAO();
+        tx = new FakeTransaction();
+        setField(service, "timesheetDAO", timesheetDAO);
+        setField(service, "userTransaction", tx);
+    }
+
+    @Test
+    void writesOneLinePerTimesheetThatCanBeReimported() {
+        LocalDate week = LocalDate.parse("2025-01-06");
+        timesheetDAO.rows.add(new TimesheetExportRow(10L, "alice", week, TimesheetStatus.SUBMITTED, Hours.parse("9.50"),
+                100L, week, "P1", null, Hours.parse("7.50"), "Design, \"review\""));
+        timesheetDAO.rows.add(new TimesheetExportRow(10L, "alice", week, TimesheetStatus.SUBMITTED, Hours.parse("9.50"),
+                101L, week.plusDays(1), "P2", "T1", Hours.parse("2.00"), null));
+        timesheetDAO.rows.add(new TimesheetExportRow(11L, "bob", week, TimesheetStatus.OPEN, Hours.parse("0.00"),
+                null, null, null, null, null, null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = service.export(service.parseRange("2025-01-01", "2025-01-31"), out);
+
+        assertEquals(2, written);
+        assertEquals(1, tx.commits);
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertEquals(2, body.lines().count());
+        assertTrue(body.endsWith("\n"));
+
+        TimesheetImportReader reader = TimesheetImportReader.open(TimesheetImportReader.NDJSON,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        ImportRow alice = reader.next();
+        assertNull(alice.error());
+        assertEquals("alice", alice.username());
+        assertEquals(TimesheetStatus.SUBMITTED, alice.timesheet().getStatus());
+        assertEquals(2, alice.timesheet().getEntries().size());
+        assertEquals("Design, \"review\"", alice.timesheet().getEntries().get(0).getDescription());
+        assertEquals("T1", alice.timesheet().getEntries().get(1).getTaskCode());
+        ImportRow bob = reader.next();
+        assertTrue(bob.timesheet().getEntries().isEmpty());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void rejectsBadRanges() {
+        assertThrows(ValidationException.class, () -> service.parseRange(null, "2025-01-31"));
+        assertThrows(ValidationException.class, () -> service.parseRange("2025-01-01", "31/01/2025"));
+        assertThrows(ValidationException.class, () -> service.parseRange("2025-02-01", "2025-01-31"));
+    }
+
+    @Test
+    void rollsBackWhenTheClientGoesAway() {
+        LocalDate week = LocalDate.parse("2025-01-06");
+        for (long id = 1; id <= 600; id++) {
+            timesheetDAO.rows.add(new TimesheetExportRow(id, "alice", week, TimesheetStatus.OPEN, Hours.ZERO,
+                    null, null, null, null, null, null));
+        }
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        assertThrows(RuntimeException.class,
+                () -> service.export(service.parseRange("2025-01-01", "2025-01-31"), broken));
+        assertEquals(0, tx.commits);
+        assertEquals(1, tx.rollbacks);
+    }
+
+    private static void setField(Object target, String field, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    private static class FakeTimesheetDAO extends TimesheetDAO {
+        final List<TimesheetExportRow> rows = new ArrayList<>();
+
+        @Override
+        public long scrollForExport(LocalDate from, LocalDate to, int fetchSize, Consumer<TimesheetExportRow> sink) {
+            rows.forEach(sink);
+            return rows.size();
+        }
+    }
+
+    private static class FakeTransaction implements UserTransaction {
+        int status = Status.STATUS_NO_TRANSACTION;
+        int commits;
+        int rollbacks;
+
+        @Override
+        public void begin() {
+            status = Status.STATUS_ACTIVE;
+        }
+
+        @Override
+        public void commit() {
+            status = Status.STATUS_NO_TRANSACTION;
+            commits++;
+        }
+
+        @Override
+        public void rollback() {
+            status = Status.STATUS_NO_TRANSACTION;
+            rollbacks++;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            status = Status.STATUS_MARKED_ROLLBACK;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public void setTransactionTimeout(int seconds) {
+        }
+    }
+}
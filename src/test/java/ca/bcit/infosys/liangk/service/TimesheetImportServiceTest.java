@@ -0,0 +1,287 @@
+package ca.bcit.infosys.liangk.service;
+
+import ca.bcit.infosys.liangk.dao.HoursRollupDAO;
+import ca.bcit.infosys.liangk.dao.HoursRollupKey;
+import ca.bcit.infosys.liangk.dao.TimesheetBulkWriter;
+import ca.bcit.infosys.liangk.dao.TimesheetDAO;
+import ca.bcit.infosys.liangk.dao.UserDAO;
+import ca.bcit.infosys.liangk.dto.ImportReport;
+import ca.bcit.infosys.liangk.entity.Hours;
+import ca.bcit.infosys.liangk.entity.Timesheet;
+import ca.bcit.infosys.liangk.entity.TimesheetStatus;
+import ca.bcit.infosys.liangk.entity.User;
+import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.service.TimesheetImportReader.ImportRow;
+import jakarta.transaction.Status;
+import jakarta.transaction.UserTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimesheetImportServiceTest {
+
+    private TimesheetImportService service;
+    private FakeTimesheetDAO timesheetDAO;
+    private FakeTransaction tx;
+    private FakeHoursRollupDAO rollup;
+    private FakeHoursCube cube;
+
+    @BeforeEach
+    void setup() throws Exception {
+        service = new TimesheetImportService();
+        timesheetDAO = new FakeTimesheetDAO();
+        tx = new FakeTransaction();
+        setField(service, "timesheetDAO", timesheetDAO);
+        setField(service, "userDAO", new FakeUserDAO(Map.of("alice", 1L, "bob", 2L)));
+        setField(service, "userTransaction", tx);
+        rollup = new FakeHoursRollupDAO();
+        setField(service, "hoursRollupDAO", rollup);
+        cube = new FakeHoursCube();
+        setField(service, "hoursCube", cube);
+    }
+
+    @Test
+    void csvGroupsConsecutiveRowsIntoTimesheets() {
+        TimesheetImportReader reader = reader(TimesheetImportReader.CSV, """
+                username,weekStart,status,workDate,projectCode,taskCode,hours,description
+                alice,2025-01-06,SUBMITTED,2025-01-06,P1,,7.5,"Design, review"
+                alice,2025-01-06,,2025-01-07,P1,T2,8,"said ""done""\"
+                bob,2025-01-06,,,,,,
+                """);
+
+        ImportRow first = reader.next();
+        assertEquals(2, first.line());
+        assertEquals("alice", first.username());
+        assertEquals(TimesheetStatus.SUBMITTED, first.timesheet().getStatus());
+        assertEquals(2, first.timesheet().getEntries().size());
+        assertEquals("Design, review", first.timesheet().getEntries().get(0).getDescription());
+        assertEquals("said \"done\"", first.timesheet().getEntries().get(1).getDescription());
+
+        ImportRow second = reader.next();
+        assertEquals(4, second.line());
+        assertTrue(second.timesheet().getEntries().isEmpty());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void csvRejectsMissingColumnsAndBadRows() {
+        assertThrows(ValidationException.class,
+                () -> reader(TimesheetImportReader.CSV, "username,weekStart\nalice,2025-01-06\n").next());
+
+        TimesheetImportReader reader = reader(TimesheetImportReader.CSV, """
+                username,weekStart,workDate,projectCode,hours
+                alice,2025-01-06,2025-01-06,P1,lots
+                alice,2025-01-13,"2025-01-13,P1,1
+                """);
+        assertTrue(reader.next().error().contains("Invalid entry hours"));
+        assertEquals("Unterminated quoted field", reader.next().error());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void csvMalformedRowInsideATimesheetFailsTheWholeTimesheet() {
+        TimesheetImportReader reader = reader(TimesheetImportReader.CSV, """
+                username,weekStart,workDate,projectCode,hours
+                alice,2025-01-06,2025-01-06,P1,1
+                alice,2025-01-06,"2025-01-07,P1,1
+                alice,2025-01-06,2025-01-08,P1,1
+                bob,2025-01-06,2025-01-06,P1,1
+                bob,2025-01-06,"2025-01-07,P1,1
+                alice,2025-01-13,2025-01-13,P1,1
+                """);
+
+        ImportRow alice = reader.next();
+        assertEquals(2, alice.line());
+        assertEquals("Unterminated quoted field (line 3)", alice.error());
+        // Followed by another timesheet, the malformed row is reported on its own
+        ImportRow bob = reader.next();
+        assertNull(bob.error());
+        assertEquals(1, bob.timesheet().getEntries().size());
+        assertEquals(6, reader.next().line());
+        assertEquals(7, reader.next().line());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void ndjsonReportsMalformedLinesAndContinues() {
+        TimesheetImportReader reader = reader("application/x-ndjson; charset=utf-8", """
+                {"username":"alice","weekStart":"2025-01-06","entries":[{"workDate":"2025-01-06","projectCode":"P1","hours":7.25}]}
+                not json
+
+                {"username":"bob","weekStart":"2025-01-06","status":"PENDING"}
+                """);
+        ImportRow ok = reader.next();
+        assertNull(ok.error());
+        assertEquals(new BigDecimal("7.25"), ok.timesheet().getEntries().get(0).getHours());
+        assertEquals(2, reader.next().line());
+        ImportRow badStatus = reader.next();
+        assertEquals(4, badStatus.line());
+        assertTrue(badStatus.error().startsWith("Invalid status"));
+        assertNull(reader.next());
+    }
+
+    @Test
+    void importsValidRowsAndReportsTheRest() {
+        timesheetDAO.existing.put(2L, new HashSet<>(Set.of(LocalDate.parse("2025-01-06"))));
+        ImportReport report = service.importTimesheets(reader(TimesheetImportReader.NDJSON, """
+                {"username":"ALICE","weekStart":"2025-01-06","entries":[{"workDate":"2025-01-07","projectCode":"P1","hours":8}]}
+                {"username":"alice","weekStart":"2025-01-06"}
+                {"username":"bob","weekStart":"2025-01-06"}
+                {"username":"carol","weekStart":"2025-01-06"}
+                {"username":"bob","weekStart":"2025-01-13","entries":[{"workDate":"2025-01-06","projectCode":"P1","hours":8}]}
+                {"username":"bob","weekStart":"2025-01-13","entries":[{"workDate":"2025-01-13","projectCode":"P1","hours":25}]}
+                """));
+
+        assertEquals(1, report.getImported());
+        assertEquals(5, report.getFailed());
+        List<Long> failedLines = report.getErrors().stream().map(ImportReport.RowError::getLine).sorted().toList();
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), failedLines);
+        assertEquals(1, timesheetDAO.inserted.size());
+        Timesheet ts = timesheetDAO.inserted.get(0);
+        assertEquals(1L, ts.getOwner().getId());
+        assertEquals(TimesheetStatus.OPEN, ts.getStatus());
+        assertEquals(Hours.parse("8"), ts.getTotalHours());
+        assertEquals(Map.of(new HoursRollupKey(1L, "P1", LocalDate.parse("2025-01-06")), Hours.parse("8")), rollup.rows);
+        assertEquals(rollup.rows, cube.applied);
+        assertEquals(1, tx.commits);
+    }
+
+    @Test
+    void failedCommitReportsEveryRowOfTheChunk() {
+        tx.failCommit = true;
+        ImportReport report = service.importTimesheets(reader(TimesheetImportReader.NDJSON, """
+                {"username":"alice","weekStart":"2025-01-06"}
+                {"username":"bob","weekStart":"2025-01-06"}
+                """));
+        assertEquals(0, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertTrue(report.getErrors().get(0).getMessage().startsWith("Not imported"));
+        assertEquals(1, tx.rollbacks);
+    }
+
+    private static TimesheetImportReader reader(String type, String body) {
+        return TimesheetImportReader.open(type, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void setField(Object target, String field, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    private static class FakeUserDAO extends UserDAO {
+        private final Map<String, Long> ids;
+
+        FakeUserDAO(Map<String, Long> ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public Map<String, Long> findIdsByUsernames(Collection<String> usernames) {
+            Map<String, Long> found = new HashMap<>();
+            for (String name : usernames) {
+                Long id = ids.get(name.toLowerCase(Locale.ROOT));
+                if (id != null) found.put(name.toLowerCase(Locale.ROOT), id);
+            }
+            return found;
+        }
+
+        @Override
+        public User getReference(long id) {
+            User u = new User();
+            u.setId(id);
+            return u;
+        }
+    }
+
+    private static class FakeTimesheetDAO extends TimesheetDAO {
+        final Map<Long, Set<LocalDate>> existing = new HashMap<>();
+        final List<Timesheet> inserted = new ArrayList<>();
+
+        @Override
+        public Map<Long, Set<LocalDate>> findExistingWeeks(Collection<Long> userIds, Collection<LocalDate> weeks) {
+            Map<Long, Set<LocalDate>> copy = new HashMap<>();
+            existing.forEach((k, v) -> copy.put(k, new HashSet<>(v)));
+            return copy;
+        }
+
+        @Override
+        public TimesheetBulkWriter openBulkWriter(int batchSize) {
+            return new TimesheetBulkWriter() {
+                @Override
+                public void insertAll(List<Timesheet> timesheets) {
+                    inserted.addAll(timesheets);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+
+    private static class FakeTransaction implements UserTransaction {
+        int status = Status.STATUS_NO_TRANSACTION;
+        int commits;
+        int rollbacks;
+        boolean failCommit;
+
+        @Override
+        public void begin() {
+            status = Status.STATUS_ACTIVE;
+        }
+
+        @Override
+        public void commit() {
+            if (failCommit) throw new IllegalStateException("Duplicate entry for key 'uq_timesheets_user_week'");
+            status = Status.STATUS_NO_TRANSACTION;
+            commits++;
+        }
+
+        @Override
+        public void rollback() {
+            status = Status.STATUS_NO_TRANSACTION;
+            rollbacks++;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            status = Status.STATUS_MARKED_ROLLBACK;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public void setTransactionTimeout(int seconds) {
+        }
+    }
+
+    private static class FakeHoursRollupDAO extends HoursRollupDAO {
+        final Map<HoursRollupKey, Hours> rows = new HashMap<>();
+
+        @Override
+        public void applyDeltas(Map<HoursRollupKey, Hours> deltas) {
+            deltas.forEach((k, v) -> rows.merge(k, v, Hours::plus));
+        }
+    }
+
+    private static class FakeHoursCube extends HoursCube {
+        final Map<HoursRollupKey, Hours> applied = new HashMap<>();
+
+        @Override
+        public void afterCommit(Map<HoursRollupKey, Hours> deltas) {
+            deltas.forEach((k, v) -> applied.merge(k, v, Hours::plus));
+        }
+    }
+}
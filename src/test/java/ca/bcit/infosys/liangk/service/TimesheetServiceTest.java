@@ -1,22 +1,44 @@
 package ca.bcit.infosys.liangk.service;
 
+import ca.bcit.infosys.liangk.dao.HoursRollupDAO;
+import ca.bcit.infosys.liangk.dao.HoursRollupKey;
 import ca.bcit.infosys.liangk.dao.TimesheetDAO;
+import ca.bcit.infosys.liangk.dao.TimesheetHeader;
+import ca.bcit.infosys.liangk.dao.TimesheetKey;
+import ca.bcit.infosys.liangk.dao.TimesheetSearchFilter;
+import ca.bcit.infosys.liangk.dao.TimesheetSearchRow;
+import ca.bcit.infosys.liangk.dao.UserDAO;
 import ca.bcit.infosys.liangk.dto.TimesheetDTO;
 import ca.bcit.infosys.liangk.dto.TimesheetEntryDTO;
+import ca.bcit.infosys.liangk.entity.Hours;
 import ca.bcit.infosys.liangk.entity.Timesheet;
+import ca.bcit.infosys.liangk.entity.TimesheetEntry;
 import ca.bcit.infosys.liangk.entity.TimesheetStatus;
 import ca.bcit.infosys.liangk.entity.User;
 import ca.bcit.infosys.liangk.entity.UserRole;
+import ca.bcit.infosys.liangk.exception.ConflictException;
 import ca.bcit.infosys.liangk.exception.ForbiddenException;
 import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.exception.NotFoundException;
+import ca.bcit.infosys.liangk.exception.PreconditionFailedException;
+import ca.bcit.infosys.liangk.security.AuthPrincipal;
+import ca.bcit.infosys.liangk.util.Page;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,19 +46,27 @@ public class TimesheetServiceTest {
 
     private TimesheetService service;
     private FakeTimesheetDAO fakeDAO;
-    private User owner;
-    private User otherUser;
-    private User admin;
+    private FakeHoursRollupDAO rollup;
+    private FakeHoursCube cube;
+    private AuthPrincipal owner;
+    private AuthPrincipal otherUser;
+    private AuthPrincipal admin;
 
     @BeforeEach
     void setup() throws Exception {
         service = new TimesheetService();
         fakeDAO = new FakeTimesheetDAO();
         setField(service, "timesheetDAO", fakeDAO);
+        setField(service, "userDAO", new FakeUserDAO());
+        setField(service, "entryWriteMetrics", new EntryWriteMetrics());
+        rollup = new FakeHoursRollupDAO();
+        setField(service, "hoursRollupDAO", rollup);
+        cube = new FakeHoursCube();
+        setField(service, "hoursCube", cube);
 
-        owner = new User(); owner.setId(1L); owner.setRole(UserRole.USER);
-        otherUser = new User(); otherUser.setId(2L); otherUser.setRole(UserRole.USER);
-        admin = new User(); admin.setId(3L); admin.setRole(UserRole.ADMIN);
+        owner = principal(1L, UserRole.USER);
+        otherUser = principal(2L, UserRole.USER);
+        admin = principal(3L, UserRole.ADMIN);
     }
 
     @Test
@@ -59,7 +89,7 @@ public class TimesheetServiceTest {
 
         Timesheet created = service.createTimesheet(owner, dto);
         assertNotNull(created.getId());
-        assertEquals(new BigDecimal("5.75"), created.getTotalHours());
+        assertEquals(Hours.parse("5.75"), created.getTotalHours());
         assertEquals(2, created.getEntries().size());
 
         // DAO should have it stored
@@ -119,8 +149,321 @@ public class TimesheetServiceTest {
         assertEquals(ts1.getId(), list.get(0).getId());
     }
 
+    @Test
+    void listTimesheetsPage_seeksByWeekAndIdAcrossPages() {
+        Timesheet w1 = createBasicWeek(owner, LocalDate.of(2025,1,6));
+        Timesheet w2 = createBasicWeek(owner, LocalDate.of(2025,1,13));
+        Timesheet w3 = createBasicWeek(owner, LocalDate.of(2025,1,20));
+        createBasicWeek(otherUser, LocalDate.of(2025,1,27));
+
+        var first = service.listTimesheetsPage(owner, 2, null);
+        assertEquals(List.of(w3.getId(), w2.getId()), first.items().stream().map(Timesheet::getId).toList());
+        assertNotNull(first.nextCursor());
+
+        var second = service.listTimesheetsPage(owner, 2, first.nextCursor());
+        assertEquals(List.of(w1.getId()), second.items().stream().map(Timesheet::getId).toList());
+        assertNull(second.nextCursor());
+
+        assertThrows(ValidationException.class, () -> service.listTimesheetsPage(owner, 0, null));
+        assertThrows(ValidationException.class, () -> service.listTimesheetsPage(owner, 2, "not a cursor"));
+    }
+
+    @Test
+    void updateTimesheet_reconcilesEntriesById() throws Exception {
+        LocalDate week = LocalDate.of(2025,1,6);
+        TimesheetDTO dto = new TimesheetDTO();
+        dto.setWeekStart(week.toString());
+        dto.setEntries(List.of(entryDTO(null, "2025-01-06", "KEEP", "1.00"),
+                entryDTO(null, "2025-01-07", "EDIT", "2.00"),
+                entryDTO(null, "2025-01-08", "DROP", "3.00")));
+        Timesheet ts = service.createTimesheet(owner, dto);
+        long nextId = 100;
+        for (var e : ts.getEntries()) e.setId(nextId++); // ids the database would assign
+        var keep = ts.getEntries().get(0);
+        var edit = ts.getEntries().get(1);
+
+        TimesheetDTO update = new TimesheetDTO();
+        update.setEntries(List.of(entryDTO(keep.getId(), "2025-01-06", "KEEP", "1.0"),
+                entryDTO(edit.getId(), "2025-01-07", "EDIT", "4.50"),
+                entryDTO(null, "2025-01-09", "NEW", "0.50")));
+        Timesheet updated = service.updateTimesheet(owner, ts.getId(), update);
+
+        assertEquals(3, updated.getEntries().size());
+        assertSame(keep, updated.getEntries().get(0));
+        assertEquals(Hours.parse("1.00"), keep.getHours()); // untouched, not rewritten as 1.0
+        assertSame(edit, updated.getEntries().get(1));
+        assertEquals(Hours.parse("4.50"), edit.getHours());
+        assertEquals("NEW", updated.getEntries().get(2).getProjectCode());
+        assertEquals(Hours.parse("6.00"), updated.getTotalHours());
+
+        EntryWriteMetrics metrics = (EntryWriteMetrics) getField(service, "entryWriteMetrics");
+        assertEquals(Map.of("reconciles", 1L, "inserted", 1L, "updated", 1L, "deleted", 1L, "unchanged", 1L),
+                metrics.stats());
+
+        TimesheetDTO foreign = new TimesheetDTO();
+        foreign.setEntries(List.of(entryDTO(999L, "2025-01-06", "X", "1.00")));
+        assertThrows(ValidationException.class, () -> service.updateTimesheet(owner, ts.getId(), foreign));
+    }
+
+    @Test
+    void conditionalWritesRequireTheExpectedVersion() {
+        Timesheet ts = createBasicWeek(owner, LocalDate.of(2025,1,6));
+        ts.setVersion(3);
+        ts.setUpdatedAt(null);
+
+        TimesheetDTO update = new TimesheetDTO();
+        update.setStatus(TimesheetStatus.SUBMITTED);
+        assertThrows(PreconditionFailedException.class, () -> service.updateTimesheet(owner, ts.getId(), update, 2L));
+        assertEquals(TimesheetStatus.OPEN, ts.getStatus());
+        assertThrows(PreconditionFailedException.class, () -> service.deleteTimesheet(owner, ts.getId(), 2L));
+
+        TimesheetDTO describe = new TimesheetDTO();
+        describe.setEntries(List.of(entryDTO(ts.getEntries().get(0).getId(), "2025-01-06", "P", "1.00")));
+        ts.getEntries().get(0).setId(7L);
+        describe.getEntries().get(0).setId(7L);
+        describe.getEntries().get(0).setDescription("changed");
+        service.updateTimesheet(owner, ts.getId(), describe, 3L);
+        assertNotNull(ts.getUpdatedAt()); // entry-only change still touches the timesheet row
+
+        service.deleteTimesheet(owner, ts.getId(), 3L);
+        assertThrows(NotFoundException.class, () -> service.getTimesheet(owner, ts.getId()));
+    }
+
+    @Test
+    void singleEntryChangesAdjustTotalByDelta() {
+        Timesheet ts = createBasicWeek(owner, LocalDate.of(2025,1,6)); // one 1.00h entry
+
+        var added = service.addEntry(owner, ts.getId(), entryDTO(null, "2025-01-07", "P2", "2.50"));
+        assertEquals(List.of(Hours.parse("2.50")), fakeDAO.deltas);
+
+        TimesheetEntryDTO patch = new TimesheetEntryDTO();
+        patch.setHours(new BigDecimal("4.00"));
+        var patched = service.patchEntry(owner, ts.getId(), added.getId(), patch);
+        assertEquals("P2", patched.getProjectCode());
+        assertEquals(Hours.parse("1.50"), fakeDAO.deltas.get(1));
+
+        service.deleteEntry(owner, ts.getId(), added.getId());
+        assertEquals(Hours.parse("-4.00"), fakeDAO.deltas.get(2));
+        assertEquals(Hours.parse("1.00"), ts.getTotalHours());
+
+        assertThrows(ForbiddenException.class,
+                () -> service.addEntry(otherUser, ts.getId(), entryDTO(null, "2025-01-07", "P", "1.00")));
+        assertThrows(ValidationException.class,
+                () -> service.addEntry(owner, ts.getId(), entryDTO(null, "2025-02-01", "P", "1.00")));
+        assertThrows(ca.bcit.infosys.liangk.exception.NotFoundException.class,
+                () -> service.deleteEntry(owner, ts.getId(), 12345L));
+    }
+
+    @Test
+    void concurrentPatchesOfOneEntryApplyInTurn() throws Exception {
+        Timesheet ts = createBasicWeek(owner, LocalDate.of(2025,1,6)); // one 1.00h entry
+        var entry = service.addEntry(owner, ts.getId(), entryDTO(null, "2025-01-07", "P2", "8.00"));
+        fakeDAO.commit();
+        fakeDAO.snapshotReads = true;
+
+        // The first patch stalls after reading the entry; the second must wait for it, not read 8.00 too
+        CountDownLatch firstRead = new CountDownLatch(1);
+        fakeDAO.onFindEntry = () -> {
+            fakeDAO.onFindEntry = null;
+            firstRead.countDown();
+            sleep(200);
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = pool.submit(() -> patchHours(ts.getId(), entry.getId(), "6.00"));
+            assertTrue(firstRead.await(5, TimeUnit.SECONDS));
+            Future<?> second = pool.submit(() -> patchHours(ts.getId(), entry.getId(), "4.00"));
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(List.of(Hours.parse("-2.00"), Hours.parse("-2.00")), fakeDAO.deltas.subList(1, 3));
+        assertEquals(Hours.parse("5.00"), ts.getTotalHours());
+        assertEquals(Hours.parse("4.00"), rollup.rows.get(new HoursRollupKey(1L, "P2", ts.getWeekStart())));
+    }
+
+    private void patchHours(long timesheetId, long entryId, String hours) {
+        TimesheetEntryDTO patch = new TimesheetEntryDTO();
+        patch.setHours(new BigDecimal(hours));
+        try {
+            service.patchEntry(owner, timesheetId, entryId, patch);
+        } finally {
+            fakeDAO.commit();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void approvedTimesheetsCanNoLongerBeChanged() {
+        Timesheet ts = createBasicWeek(owner, LocalDate.of(2025,1,6));
+        long entryId = service.addEntry(owner, ts.getId(), entryDTO(null, "2025-01-07", "P", "1.00")).getId();
+        TimesheetDTO approve = new TimesheetDTO();
+        approve.setWeekStart("2025-01-06");
+        approve.setStatus(TimesheetStatus.APPROVED);
+        service.updateTimesheet(admin, ts.getId(), approve);
+        Hours approvedTotal = ts.getTotalHours();
+
+        TimesheetDTO reopen = new TimesheetDTO();
+        reopen.setWeekStart("2025-01-06");
+        reopen.setStatus(TimesheetStatus.OPEN);
+        assertThrows(ConflictException.class, () -> service.updateTimesheet(admin, ts.getId(), reopen));
+        assertThrows(ConflictException.class,
+                () -> service.addEntry(owner, ts.getId(), entryDTO(null, "2025-01-07", "P", "1.00")));
+        assertThrows(ConflictException.class,
+                () -> service.patchEntry(owner, ts.getId(), entryId, entryDTO(null, null, null, "2.00")));
+        assertThrows(ConflictException.class, () -> service.deleteEntry(owner, ts.getId(), entryId));
+        assertEquals(TimesheetStatus.APPROVED, ts.getStatus());
+        assertEquals(approvedTotal, ts.getTotalHours());
+    }
+
+    @Test
+    void everyWriteKeepsTheHoursRollupInStep() {
+        LocalDate week = LocalDate.of(2025,1,6);
+        TimesheetDTO dto = new TimesheetDTO();
+        dto.setWeekStart(week.toString());
+        dto.setEntries(List.of(entryDTO(null, "2025-01-06", "A", "2.00"),
+                entryDTO(null, "2025-01-07", "A", "3.00"),
+                entryDTO(null, "2025-01-08", "B", "1.00")));
+        Timesheet ts = service.createTimesheet(owner, dto);
+        long nextId = 100;
+        for (var e : ts.getEntries()) e.setId(nextId++);
+        assertEquals(Map.of(key("A", week), Hours.parse("5.00"), key("B", week), Hours.parse("1.00")), rollup.rows);
+
+        // Move B's hours to A and shift the whole timesheet a week later
+        LocalDate next = week.plusWeeks(1);
+        TimesheetDTO update = new TimesheetDTO();
+        update.setWeekStart(next.toString());
+        update.setEntries(List.of(entryDTO(100L, "2025-01-13", "A", "2.00"),
+                entryDTO(101L, "2025-01-14", "A", "3.00"),
+                entryDTO(102L, "2025-01-15", "A", "1.00")));
+        service.updateTimesheet(owner, ts.getId(), update);
+        assertEquals(Hours.ZERO, rollup.rows.get(key("A", week)));
+        assertEquals(Hours.ZERO, rollup.rows.get(key("B", week)));
+        assertEquals(Hours.parse("6.00"), rollup.rows.get(key("A", next)));
+
+        var added = service.addEntry(owner, ts.getId(), entryDTO(null, "2025-01-16", "C", "4.00"));
+        TimesheetEntryDTO patch = new TimesheetEntryDTO();
+        patch.setProjectCode("A");
+        service.patchEntry(owner, ts.getId(), added.getId(), patch);
+        assertEquals(Hours.ZERO, rollup.rows.get(key("C", next)));
+        assertEquals(Hours.parse("10.00"), rollup.rows.get(key("A", next)));
+
+        service.deleteEntry(owner, ts.getId(), added.getId());
+        service.deleteTimesheet(owner, ts.getId());
+        assertTrue(rollup.rows.values().stream().allMatch(Hours::isZero));
+        assertEquals(rollup.rows, cube.applied);
+    }
+
+    @Test
+    void ownershipIsPartOfTheLoadForNonAdmins() {
+        Timesheet ts = createBasicWeek(owner, LocalDate.of(2025,1,6));
+
+        assertThrows(ForbiddenException.class, () -> service.getTimesheet(otherUser, ts.getId()));
+        assertThrows(ForbiddenException.class, () -> service.deleteTimesheet(otherUser, ts.getId()));
+        assertThrows(NotFoundException.class, () -> service.getTimesheet(otherUser, 999L));
+        assertThrows(NotFoundException.class, () -> service.getTimesheet(admin, 999L));
+        assertEquals(ts.getId(), service.getTimesheet(admin, ts.getId()).getId());
+        assertEquals(ts.getId(), service.getTimesheet(owner, ts.getId()).getId());
+        assertEquals(Arrays.asList(2L, 2L, null, null, 1L), fakeDAO.loadScopes);
+    }
+
+    @Test
+    void adminBulkDeleteByIdsOrUserAndRange() {
+        LocalDate week = LocalDate.of(2025,1,6);
+        Timesheet a = createBasicWeek(owner, week);
+        createBasicWeek(owner, week.plusWeeks(1));
+        Timesheet c = createBasicWeek(owner, week.plusWeeks(2));
+        Timesheet d = createBasicWeek(otherUser, week);
+
+        assertThrows(ForbiddenException.class, () -> service.deleteTimesheets(owner, List.of(a.getId()), null, null, null));
+        assertThrows(ValidationException.class, () -> service.deleteTimesheets(admin, List.of(), null, null, null));
+        assertThrows(ValidationException.class, () -> service.deleteTimesheets(admin, List.of(a.getId()), "user1", null, null));
+        assertThrows(ValidationException.class, () -> service.deleteTimesheets(admin, null, "user1", "2025-01-06", null));
+        assertThrows(NotFoundException.class, () -> service.deleteTimesheets(admin, null, "nobody", "2025-01-06", "2025-01-13"));
+
+        assertEquals(2, service.deleteTimesheets(admin, null, "user1", "2025-01-06", "2025-01-13"));
+        assertEquals(Set.of(c.getId(), d.getId()), fakeDAO.storage.keySet());
+        assertEquals(2, service.deleteTimesheets(admin, List.of(c.getId(), d.getId(), 999L), null, null, null));
+        assertTrue(fakeDAO.storage.isEmpty());
+        assertTrue(rollup.rows.values().stream().allMatch(Hours::isZero));
+    }
+
+    @Test
+    void adminSearchFiltersAcrossUsersAndPagesByKeyset() {
+        LocalDate week = LocalDate.of(2025,1,6);
+        Timesheet a = createBasicWeek(owner, week);
+        Timesheet b = createBasicWeek(otherUser, week);
+        createBasicWeek(owner, week.plusWeeks(1));
+        Timesheet c = createBasicWeek(otherUser, week.plusWeeks(2));
+        for (Timesheet t : List.of(a, b, c)) t.setStatus(TimesheetStatus.SUBMITTED);
+
+        Page<TimesheetSearchRow> first = service.searchTimesheets(admin, "submitted", "2025-01-06", null, null, null, 2, null);
+        assertEquals(List.of(c.getId(), b.getId()), first.items().stream().map(TimesheetSearchRow::id).toList());
+        assertEquals("user2", first.items().get(0).username());
+        Page<TimesheetSearchRow> second = service.searchTimesheets(admin, "SUBMITTED", "2025-01-06", null, null, null, 2,
+                first.nextCursor());
+        assertEquals(List.of(a.getId()), second.items().stream().map(TimesheetSearchRow::id).toList());
+        assertNull(second.nextCursor());
+        assertEquals(1, service.searchTimesheets(admin, null, null, "2025-01-12", "user1", null, 10, null).items().size());
+
+        assertThrows(ForbiddenException.class,
+                () -> service.searchTimesheets(owner, null, null, null, null, null, 10, null));
+        assertThrows(ValidationException.class,
+                () -> service.searchTimesheets(admin, "DONE", null, null, null, null, 10, null));
+        assertThrows(ValidationException.class,
+                () -> service.searchTimesheets(admin, null, "2025-02-01", "2025-01-01", null, null, 10, null));
+    }
+
+    @Test
+    void singleEntryChangesRespectTheDailyCap() {
+        Timesheet ts = createBasicWeek(owner, LocalDate.of(2025,1,6)); // one 1.00h entry on 2025-01-06
+
+        assertThrows(ValidationException.class,
+                () -> service.addEntry(owner, ts.getId(), entryDTO(null, "2025-01-06", "P2", "23.50")));
+        var added = service.addEntry(owner, ts.getId(), entryDTO(null, "2025-01-07", "P2", "23.50"));
+
+        TimesheetEntryDTO move = new TimesheetEntryDTO();
+        move.setWorkDate("2025-01-06");
+        ValidationException e = assertThrows(ValidationException.class,
+                () -> service.patchEntry(owner, ts.getId(), added.getId(), move));
+        assertTrue(e.getMessage().contains("2025-01-06 total 24.50"));
+
+        TimesheetEntryDTO same = new TimesheetEntryDTO();
+        same.setHours(new BigDecimal("24.00"));
+        service.patchEntry(owner, ts.getId(), added.getId(), same); // own hours are not counted twice
+        assertEquals(Hours.parse("25.00"), ts.getTotalHours());
+    }
+
     // Helpers
-    private Timesheet createBasicWeek(User u, LocalDate weekStart) {
+    private static HoursRollupKey key(String project, LocalDate week) {
+        return new HoursRollupKey(1L, project, week);
+    }
+
+    private static TimesheetEntryDTO entryDTO(Long id, String workDate, String project, String hours) {
+        TimesheetEntryDTO e = new TimesheetEntryDTO();
+        e.setId(id);
+        e.setWorkDate(workDate);
+        e.setProjectCode(project);
+        e.setHours(new BigDecimal(hours));
+        return e;
+    }
+
+    private static Object getField(Object target, String field) throws Exception {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        return f.get(target);
+    }
+
+    private Timesheet createBasicWeek(AuthPrincipal u, LocalDate weekStart) {
         TimesheetDTO dto = new TimesheetDTO();
         dto.setWeekStart(weekStart.toString());
         TimesheetEntryDTO e = new TimesheetEntryDTO();
@@ -131,20 +474,51 @@ public class TimesheetServiceTest {
         return service.createTimesheet(u, dto);
     }
 
+    private static AuthPrincipal principal(long id, UserRole role) {
+        return new AuthPrincipal(id, "user" + id, role, true, LocalDateTime.now().plusHours(1));
+    }
+
     private static void setField(Object target, String field, Object value) throws Exception {
         Field f = target.getClass().getDeclaredField(field);
         f.setAccessible(true);
         f.set(target, value);
     }
 
+    private static class FakeUserDAO extends UserDAO {
+        @Override
+        public User getReference(long id) {
+            User u = new User();
+            u.setId(id);
+            return u;
+        }
+
+        @Override
+        public Map<String, Long> findIdsByUsernames(Collection<String> usernames) {
+            Map<String, Long> ids = new HashMap<>();
+            for (String name : usernames) {
+                if (name.matches("user\\d+")) ids.put(name, Long.parseLong(name.substring(4)));
+            }
+            return ids;
+        }
+    }
+
     // In-memory fake DAO
     private static class FakeTimesheetDAO extends TimesheetDAO {
         Map<Long, Timesheet> storage = new HashMap<>();
         AtomicLong seq = new AtomicLong(1);
+        final List<Long> loadScopes = new ArrayList<>();
 
         @Override
-        public Timesheet findById(long id) {
-            return storage.get(id);
+        public Timesheet findById(long id, Long ownerId) {
+            loadScopes.add(ownerId);
+            Timesheet t = storage.get(id);
+            return t == null || ownerId == null || ownerId.equals(t.getOwner().getId()) ? t : null;
+        }
+
+        @Override
+        public Long findOwnerId(long id) {
+            Timesheet t = storage.get(id);
+            return t == null ? null : t.getOwner().getId();
         }
 
         @Override
@@ -163,6 +537,122 @@ public class TimesheetServiceTest {
                     .toList();
         }
 
+        @Override
+        public List<TimesheetKey> findPageKeysByUser(long userId, TimesheetKey after, int limit) {
+            Comparator<Timesheet> order = Comparator.comparing(Timesheet::getWeekStart)
+                    .thenComparing(Timesheet::getId).reversed();
+            return storage.values().stream()
+                    .filter(t -> t.getOwner() != null && Objects.equals(t.getOwner().getId(), userId))
+                    .filter(t -> after == null || t.getWeekStart().isBefore(after.weekStart())
+                            || (t.getWeekStart().equals(after.weekStart()) && t.getId() < after.id()))
+                    .sorted(order)
+                    .limit(limit)
+                    .map(t -> new TimesheetKey(t.getWeekStart(), t.getId()))
+                    .toList();
+        }
+
+        @Override
+        public List<TimesheetSearchRow> search(TimesheetSearchFilter f, TimesheetKey after, int limit) {
+            Comparator<Timesheet> order = Comparator.comparing(Timesheet::getWeekStart)
+                    .thenComparing(Timesheet::getId).reversed();
+            return storage.values().stream()
+                    .filter(t -> f.status() == null || t.getStatus() == f.status())
+                    .filter(t -> f.from() == null || !t.getWeekStart().isBefore(f.from()))
+                    .filter(t -> f.to() == null || !t.getWeekStart().isAfter(f.to()))
+                    .filter(t -> f.username() == null || f.username().equals("user" + t.getOwner().getId()))
+                    .filter(t -> f.projectCode() == null
+                            || t.getEntries().stream().anyMatch(e -> f.projectCode().equals(e.getProjectCode())))
+                    .filter(t -> after == null || t.getWeekStart().isBefore(after.weekStart())
+                            || (t.getWeekStart().equals(after.weekStart()) && t.getId() < after.id()))
+                    .sorted(order)
+                    .limit(limit)
+                    .map(t -> new TimesheetSearchRow(t.getId(), t.getWeekStart(), t.getStatus(), t.getTotalHours(),
+                            t.getVersion(), "user" + t.getOwner().getId(), null, null))
+                    .toList();
+        }
+
+        @Override
+        public List<Timesheet> findByIdsWithEntries(List<Long> ids) {
+            return ids.stream().map(storage::get).filter(Objects::nonNull).toList();
+        }
+
+        List<Hours> deltas = new ArrayList<>();
+        AtomicLong entrySeq = new AtomicLong(1000);
+
+        @Override
+        public TimesheetHeader findHeader(long id) {
+            Timesheet t = storage.get(id);
+            return t == null ? null : new TimesheetHeader(t.getId(), t.getOwner().getId(), t.getWeekStart(), t.getStatus(), t.getTotalHours(), t.getVersion(), t.getUpdatedAt());
+        }
+
+        // Row locks taken by lockHeaders, held by the calling thread until commit()
+        final Map<Long, ReentrantLock> rowLocks = new ConcurrentHashMap<>();
+        final ThreadLocal<List<ReentrantLock>> held = ThreadLocal.withInitial(ArrayList::new);
+        // When set, findEntry returns a detached copy that updateEntry writes back, like a fresh persistence context
+        volatile boolean snapshotReads;
+        volatile Runnable onFindEntry;
+
+        void commit() {
+            held.get().forEach(ReentrantLock::unlock);
+            held.get().clear();
+        }
+
+        @Override
+        public TimesheetEntry findEntry(long timesheetId, long entryId) {
+            Timesheet t = storage.get(timesheetId);
+            if (t == null) return null;
+            TimesheetEntry found = t.getEntries().stream().filter(e -> Objects.equals(e.getId(), entryId)).findFirst().orElse(null);
+            if (found == null || !snapshotReads) return found;
+            TimesheetEntry copy = new TimesheetEntry();
+            copy.setId(found.getId());
+            copy.setTimesheet(t);
+            copy.setWorkDate(found.getWorkDate());
+            copy.setProjectCode(found.getProjectCode());
+            copy.setTaskCode(found.getTaskCode());
+            copy.setHours(found.getHours());
+            copy.setDescription(found.getDescription());
+            Runnable hook = onFindEntry;
+            if (hook != null) hook.run();
+            return copy;
+        }
+
+        @Override
+        public Hours sumEntryHoursOnDay(long timesheetId, LocalDate workDate, Long excludeEntryId) {
+            return storage.get(timesheetId).getEntries().stream()
+                    .filter(e -> workDate.equals(e.getWorkDate()) && (excludeEntryId == null || !excludeEntryId.equals(e.getId())))
+                    .map(TimesheetEntry::getHours)
+                    .reduce(Hours.ZERO, Hours::plus);
+        }
+
+        @Override
+        public TimesheetEntry createEntry(long timesheetId, TimesheetEntry entry) {
+            entry.setId(entrySeq.getAndIncrement());
+            entry.setTimesheet(storage.get(timesheetId));
+            storage.get(timesheetId).getEntries().add(entry);
+            return entry;
+        }
+
+        @Override
+        public TimesheetEntry updateEntry(TimesheetEntry entry) {
+            List<TimesheetEntry> entries = entry.getTimesheet().getEntries();
+            for (int i = 0; i < entries.size(); i++) {
+                if (Objects.equals(entries.get(i).getId(), entry.getId())) entries.set(i, entry);
+            }
+            return entry;
+        }
+
+        @Override
+        public void deleteEntry(TimesheetEntry entry) {
+            entry.getTimesheet().getEntries().remove(entry);
+        }
+
+        @Override
+        public void adjustTotalHours(long timesheetId, Hours delta) {
+            deltas.add(delta);
+            Timesheet t = storage.get(timesheetId);
+            t.setTotalHours(t.getTotalHours().plus(delta));
+        }
+
         @Override
         public Timesheet create(Timesheet timesheet) {
             long id = seq.getAndIncrement();
@@ -178,8 +668,61 @@ public class TimesheetServiceTest {
         }
 
         @Override
-        public void delete(long id) {
-            storage.remove(id);
+        public List<Long> findIdsByUserAndWeekRange(long userId, LocalDate from, LocalDate to) {
+            return storage.values().stream()
+                    .filter(t -> t.getOwner().getId() == userId && !t.getWeekStart().isBefore(from) && !t.getWeekStart().isAfter(to))
+                    .map(Timesheet::getId)
+                    .sorted()
+                    .toList();
+        }
+
+        @Override
+        public List<TimesheetHeader> lockHeaders(Collection<Long> ids) {
+            for (Long id : new TreeSet<>(ids)) {
+                ReentrantLock lock = rowLocks.computeIfAbsent(id, k -> new ReentrantLock());
+                lock.lock();
+                held.get().add(lock);
+            }
+            return ids.stream().sorted().map(this::findHeader).filter(Objects::nonNull).toList();
+        }
+
+        @Override
+        public Map<HoursRollupKey, Hours> sumHoursByRollupKey(Collection<Long> ids) {
+            Map<HoursRollupKey, Hours> sums = new HashMap<>();
+            for (Long id : ids) {
+                Timesheet t = storage.get(id);
+                for (TimesheetEntry e : t.getEntries()) {
+                    sums.merge(new HoursRollupKey(t.getOwner().getId(), e.getProjectCode(), t.getWeekStart()), e.getHours(), Hours::plus);
+                }
+            }
+            return sums;
+        }
+
+        @Override
+        public int deleteByIds(Collection<Long> ids) {
+            int deleted = 0;
+            for (Long id : ids) {
+                if (storage.remove(id) != null) deleted++;
+            }
+            return deleted;
+        }
+    }
+
+    private static class FakeHoursRollupDAO extends HoursRollupDAO {
+        final Map<HoursRollupKey, Hours> rows = new HashMap<>();
+
+        @Override
+        public void applyDeltas(Map<HoursRollupKey, Hours> deltas) {
+            deltas.forEach((k, v) -> rows.merge(k, v, Hours::plus));
+        }
+    }
+
+    private static class FakeHoursCube extends HoursCube {
+        final Map<HoursRollupKey, Hours> applied = new HashMap<>();
+
+        @Override
+        public void afterCommit(Map<HoursRollupKey, Hours> deltas) {
+            deltas.forEach((k, v) -> applied.merge(k, v, Hours::plus));
         }
     }
 }
@@ -1,18 +1,25 @@
 package ca.bcit.infosys.liangk.service;
 
+import ca.bcit.infosys.liangk.dao.HoursRollupDAO;
+import ca.bcit.infosys.liangk.dao.HoursRollupKey;
 import ca.bcit.infosys.liangk.dao.TimesheetDAO;
+import ca.bcit.infosys.liangk.dao.UserDAO;
 import ca.bcit.infosys.liangk.dto.TimesheetDTO;
 import ca.bcit.infosys.liangk.dto.TimesheetEntryDTO;
+import ca.bcit.infosys.liangk.entity.Hours;
 import ca.bcit.infosys.liangk.entity.Timesheet;
 import ca.bcit.infosys.liangk.entity.User;
 import ca.bcit.infosys.liangk.entity.UserRole;
 import ca.bcit.infosys.liangk.exception.ValidationException;
+import ca.bcit.infosys.liangk.exception.Violation;
+import ca.bcit.infosys.liangk.security.AuthPrincipal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,14 +28,18 @@ public class TimesheetServiceValidationTest {
 
     private TimesheetService service;
     private FakeTimesheetDAO fakeDAO;
-    private User owner;
+    private AuthPrincipal owner;
 
     @BeforeEach
     void setup() throws Exception {
         service = new TimesheetService();
         fakeDAO = new FakeTimesheetDAO();
         setField(service, "timesheetDAO", fakeDAO);
-        owner = new User(); owner.setId(1L); owner.setRole(UserRole.USER);
+        setField(service, "userDAO", new FakeUserDAO());
+        setField(service, "entryWriteMetrics", new EntryWriteMetrics());
+        setField(service, "hoursRollupDAO", new FakeHoursRollupDAO());
+        setField(service, "hoursCube", new FakeHoursCube());
+        owner = new AuthPrincipal(1L, "user1", UserRole.USER, true, LocalDateTime.now().plusHours(1));
     }
 
     @Test
@@ -86,6 +97,48 @@ public class TimesheetServiceValidationTest {
         assertThrows(ValidationException.class, () -> service.createTimesheet(owner, dto));
     }
 
+    @Test
+    void allViolationsReportedTogether() {
+        TimesheetDTO dto = baseDTO("2025-1-6");
+        TimesheetEntryDTO bad = new TimesheetEntryDTO();
+        bad.setWorkDate("2025-02-30");
+        bad.setHours(new BigDecimal("1e30"));
+        TimesheetEntryDTO ok = new TimesheetEntryDTO();
+        ok.setWorkDate("2025-01-06");
+        ok.setProjectCode("P");
+        ok.setHours(new BigDecimal("2.00"));
+        dto.setEntries(List.of(ok, bad));
+
+        ValidationException ex = assertThrows(ValidationException.class, () -> service.createTimesheet(owner, dto));
+        assertEquals(List.of("weekStart", "entries[1].workDate", "entries[1].projectCode", "entries[1].hours"),
+                ex.getViolations().stream().map(Violation::field).toList());
+        assertTrue(ex.getMessage().startsWith("4 validation errors: weekStart: Invalid weekStart format"));
+        assertTrue(fakeDAO.storage.isEmpty());
+    }
+
+    @Test
+    void dayAndWeekCapsApplyAcrossEntries() throws Exception {
+        setField(service, "validator", new TimesheetValidator(4_000L)); // 40.00 h per week
+        TimesheetDTO dto = baseDTO("2025-01-06");
+        List<TimesheetEntryDTO> entries = new ArrayList<>();
+        for (String[] e : new String[][]{{"2025-01-06", "20"}, {"2025-01-06", "4.01"}, {"2025-01-07", "16"}}) {
+            TimesheetEntryDTO entry = new TimesheetEntryDTO();
+            entry.setWorkDate(e[0]);
+            entry.setProjectCode("P");
+            entry.setHours(new BigDecimal(e[1]));
+            entries.add(entry);
+        }
+        dto.setEntries(entries);
+
+        ValidationException ex = assertThrows(ValidationException.class, () -> service.createTimesheet(owner, dto));
+        assertEquals(2, ex.getViolations().size());
+        assertEquals("Entries on 2025-01-06 total 24.01 hours, more than 24.00", ex.getViolations().get(0).message());
+        assertEquals("Entries total 40.01 hours, more than the weekly limit of 40.00", ex.getViolations().get(1).message());
+
+        entries.get(1).setHours(new BigDecimal("4"));
+        assertEquals(Hours.parse("40.00"), service.createTimesheet(owner, dto).getTotalHours());
+    }
+
     private static TimesheetDTO baseDTO(String weekStart) {
         TimesheetDTO dto = new TimesheetDTO();
         dto.setWeekStart(weekStart);
@@ -98,11 +151,19 @@ public class TimesheetServiceValidationTest {
         f.set(target, value);
     }
 
+    private static class FakeUserDAO extends UserDAO {
+        @Override public User getReference(long id) { User u = new User(); u.setId(id); return u; }
+    }
+
     // Minimal in-memory DAO to satisfy service
     private static class FakeTimesheetDAO extends TimesheetDAO {
         Map<Long, Timesheet> storage = new HashMap<>();
         long seq = 1L;
-        @Override public Timesheet findById(long id) { return storage.get(id); }
+        @Override public Timesheet findById(long id, Long ownerId) {
+            Timesheet t = storage.get(id);
+            return t == null || ownerId == null || ownerId.equals(t.getOwner().getId()) ? t : null;
+        }
+        @Override public Long findOwnerId(long id) { Timesheet t = storage.get(id); return t == null ? null : t.getOwner().getId(); }
         @Override public Timesheet findByUserAndWeek(long userId, LocalDate weekStart) {
             return storage.values().stream().filter(t -> t.getOwner()!=null && Objects.equals(t.getOwner().getId(), userId) && weekStart.equals(t.getWeekStart())).findFirst().orElse(null);
         }
@@ -111,6 +172,24 @@ public class TimesheetServiceValidationTest {
         }
         @Override public Timesheet create(Timesheet timesheet) { timesheet.setId(seq++); storage.put(timesheet.getId(), timesheet); return timesheet; }
         @Override public Timesheet update(Timesheet timesheet) { storage.put(timesheet.getId(), timesheet); return timesheet; }
-        @Override public void delete(long id) { storage.remove(id); }
+        @Override public int deleteByIds(Collection<Long> ids) { int n = 0; for (Long id : ids) if (storage.remove(id) != null) n++; return n; }
+    }
+
+    private static class FakeHoursRollupDAO extends HoursRollupDAO {
+        final Map<HoursRollupKey, Hours> rows = new HashMap<>();
+
+        @Override
+        public void applyDeltas(Map<HoursRollupKey, Hours> deltas) {
+            deltas.forEach((k, v) -> rows.merge(k, v, Hours::plus));
+        }
+    }
+
+    private static class FakeHoursCube extends HoursCube {
+        final Map<HoursRollupKey, Hours> applied = new HashMap<>();
+
+        @Override
+        public void afterCommit(Map<HoursRollupKey, Hours> deltas) {
+            deltas.forEach((k, v) -> applied.merge(k, v, Hours::plus));
+        }
     }
 }
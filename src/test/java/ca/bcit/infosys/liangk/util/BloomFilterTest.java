@@ -0,0 +1,24 @@
+package ca.bcit.infosys.liangk.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    void neverForgetsAddedStringsAndKeepsFalsePositivesNearTarget() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.put("user" + i);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("absent" + i)) falsePositives++;
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,62 @@
+package ca.bcit.infosys.liangk.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GroupCommitterTest {
+
+    @Test
+    void concurrentSubmitsShareBatchesAndReturnAfterWrite() throws Exception {
+        List<List<Integer>> written = Collections.synchronizedList(new ArrayList<>());
+        GroupCommitter<Integer> committer = new GroupCommitter<>(written::add, 200L, 8);
+
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                int item = i;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    committer.submit(item);
+                    // Durable means the item is already in a written batch when submit returns
+                    synchronized (written) {
+                        return written.stream().anyMatch(b -> b.contains(item));
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> r : results) {
+                assertTrue(r.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(callers, written.stream().mapToInt(List::size).sum());
+        assertTrue(written.size() < callers, "expected submits to be grouped");
+        assertEquals((long) callers, committer.stats().get("items"));
+    }
+
+    @Test
+    void writerFailureIsRethrownToCaller() {
+        GroupCommitter<String> committer = new GroupCommitter<>(items -> {
+            throw new java.sql.SQLException("boom");
+        }, 0L, 4);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> committer.submit("x"));
+        assertEquals("boom", e.getCause().getMessage());
+        assertEquals(1L, committer.stats().get("failedBatches"));
+    }
+}
@@ -1,6 +1,7 @@
 package ca.bcit.infosys.liangk.util;
 
 import ca.bcit.infosys.liangk.dto.*;
+import ca.bcit.infosys.liangk.entity.Hours;
 import ca.bcit.infosys.liangk.entity.*;
 import org.junit.jupiter.api.Test;
 
@@ -41,7 +42,7 @@ public class MapperTest {
         e.setWorkDate(LocalDate.of(2025, 1, 2));
         e.setProjectCode("P100");
         e.setTaskCode("T1");
-        e.setHours(new BigDecimal("7.50"));
+        e.setHours(Hours.parse("7.50"));
         e.setDescription("Feature work");
 
         TimesheetEntryDTO dto = Mapper.toTimesheetEntryDTO(e);
@@ -65,14 +66,14 @@ public class MapperTest {
         e1.setId(1L);
         e1.setWorkDate(LocalDate.of(2025, 1, 6));
         e1.setProjectCode("P1");
-        e1.setHours(new BigDecimal("2.00"));
+        e1.setHours(Hours.parse("2.00"));
         t.addEntry(e1);
 
         TimesheetEntry e2 = new TimesheetEntry();
         e2.setId(2L);
         e2.setWorkDate(LocalDate.of(2025, 1, 7));
         e2.setProjectCode("P1");
-        e2.setHours(new BigDecimal("3.25"));
+        e2.setHours(Hours.parse("3.25"));
         t.addEntry(e2);
 
         TimesheetDTO dto = Mapper.toTimesheetDTO(t);
@@ -0,0 +1,27 @@
+package ca.bcit.infosys.liangk.util;
+
+import ca.bcit.infosys.liangk.entity.AuthToken;
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenHashTest {
+
+    @Test
+    void matchesSha256OfTokenText() {
+        // Same value MySQL yields for UNHEX(SHA2('abc', 256)), which the schema migration uses
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                HexFormat.of().formatHex(TokenHash.of("abc")));
+        assertEquals(TokenHash.LENGTH, TokenHash.of("abc").length);
+    }
+
+    @Test
+    void authTokenDerivesStoredDigestFromRawToken() {
+        AuthToken t = new AuthToken();
+        t.setToken("abc");
+        assertArrayEquals(TokenHash.of("abc"), t.getTokenHash());
+        assertEquals("abc", t.getToken());
+    }
+}